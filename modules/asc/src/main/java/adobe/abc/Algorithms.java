@@ -301,7 +301,9 @@ public abstract class Algorithms
 	 */
 	public static class Pool<T extends Comparable>
 	{
-		Map<T,Integer> refs = new HashMap<>();
+		// CodeOrchestra: modified, the elements referenced as often keep the order they're first added in,
+		// whatever their hash codes are
+		Map<T,Integer> refs = new LinkedHashMap<>();
 		ArrayList<T> values;
 		int countFrom;
 		
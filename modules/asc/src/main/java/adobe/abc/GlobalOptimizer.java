@@ -40,10 +40,13 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.Vector;
 import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import macromedia.asc.embedding.ConfigVar;
 import macromedia.asc.util.ObjectList;
+import macromedia.asc.util.WorkerThreads;
 
 import static macromedia.asc.embedding.avmplus.ActionBlockConstants.*;
 import static adobe.abc.Algorithms.*;
@@ -1981,6 +1984,14 @@ public class GlobalOptimizer
 	 * make this set work.
 	 */
 	Set<Method> already_processed = new HashSet<>();
+
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * The methods readied by the method a worker thread optimizes. They go on the ready list once
+	 * the methods optimized with it are done, see optimizeConcurrently().
+	 */
+	private final ThreadLocal<List<Method>> readied = new ThreadLocal<>();
 	
 	
 	void readyType(Type t)
@@ -1994,7 +2005,13 @@ public class GlobalOptimizer
 	{
 		traceEntry("readyMethod");
 		addTraceAttr(m);
-		if (m.entry != null && ! already_processed.contains(m) )
+		// CodeOrchestra: added
+		List<Method> methods = readied.get();
+		if (methods != null)
+		{
+			methods.add(m);
+		}
+		else if (m.entry != null && ! already_processed.contains(m) )
 		{
 			addTraceAttr("process", true);
 			ready.add(m);
@@ -2014,8 +2031,79 @@ public class GlobalOptimizer
  		for (Type t: a.scripts)
 			readyType(t);
 		
+		// CodeOrchestra: modified
+		if (WorkerThreads.isEnabled() && !verbose_mode && !OUTPUT_DOT && !tm.isEnabled())
+			optimizeConcurrently();
+		else
+			while (!ready.isEmpty())
+				optimize(getMethod(ready));
+	}
+
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * Optimizes the ready methods in waves. A method is readied by the method creating its class or
+	 * closure, once the scopes it captures are known, so the methods of a wave don't depend on each
+	 * other and are optimized concurrently. The methods they ready are collected in the order of the
+	 * wave and make up the next one, so the output doesn't depend on the scheduling of the threads.
+	 * The methods are optimized on the worker threads of the compiler, see WorkerThreads.
+	 */
+	private void optimizeConcurrently()
+	{
 		while (!ready.isEmpty())
-			optimize(getMethod(ready));
+		{
+			List<Method> wave = new ArrayList<>(ready);
+			ready.clear();
+			// in the order getMethod() takes them
+			Collections.reverse(wave);
+
+			List<Future<List<Method>>> futures = new ArrayList<>(wave.size());
+			for (final Method m: wave)
+			{
+				futures.add(WorkerThreads.getExecutor().submit(() ->
+				{
+					List<Method> methods = new ArrayList<>();
+					readied.set(methods);
+					try
+					{
+						optimize(m);
+					}
+					finally
+					{
+						readied.remove();
+					}
+					return methods;
+				}));
+			}
+
+			Throwable failure = null;
+			for (Future<List<Method>> future: futures)
+			{
+				try
+				{
+					for (Method m: future.get())
+						readyMethod(m);
+				}
+				catch (ExecutionException e)
+				{
+					if (failure == null)
+						failure = e.getCause();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					if (failure == null)
+						failure = e;
+				}
+			}
+
+			if (failure instanceof RuntimeException)
+				throw (RuntimeException)failure;
+			else if (failure instanceof Error)
+				throw (Error)failure;
+			else if (failure != null)
+				throw new RuntimeException(failure);
+		}
 	}
 	
 	/**
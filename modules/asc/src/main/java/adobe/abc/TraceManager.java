@@ -53,7 +53,8 @@ public class TraceManager
 		this.sink = sink;
 	}
 	
-	private boolean isEnabled()
+	// CodeOrchestra: modified, package-private
+	boolean isEnabled()
 	{
 		return enabled && sink != null;
 	}
@@ -87,6 +88,10 @@ public class TraceManager
 	 */
 	public int pushElement(String elementName, boolean popOnNext)
 	{	
+		// CodeOrchestra: added, no element is written without a sink
+		if ( sink == null )
+			return activeElements.size();
+
 		if ( 0 == activeElements.size() )
 			println("<?xml version='1.0' encoding='utf-8' ?>");
 		else
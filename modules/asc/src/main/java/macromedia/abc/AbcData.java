@@ -429,7 +429,7 @@ public class AbcData implements java.io.Externalizable
 		
 			if ( ns != null )
 			{
-				String uri = strings[ns.nameOffset];
+				String uri = getString(ns.nameOffset);
 				return getVersion(uri);
 			}
 			return null;
@@ -505,12 +505,32 @@ public class AbcData implements java.io.Externalizable
     }
     
     private transient BinaryMN[] binaryMultinames;
+
+    // CodeOrchestra: added
+    private NameData getNameData(int idx)
+    {
+        NameData nd = this.nameData[idx];
+        return (nd != null || namePositions == null) ? nd : readNameData(idx);
+    }
+
+    // CodeOrchestra: added
+    private synchronized NameData readNameData(int idx)
+    {
+        if (this.nameData[idx] == null)
+        {
+            int pos = in.pos();
+            in.seek(namePositions[idx]);
+            this.nameData[idx] = readNameData(in);
+            in.seek(pos);
+        }
+        return this.nameData[idx];
+    }
     
     public BinaryMN getName(int idx)
     {
         if ( null == this.binaryMultinames[idx] )
         {
-            NameData nd = this.nameData[idx];
+            NameData nd = getNameData(idx);
             int name_index;
             int name_space;
             boolean ns_is_set;
@@ -573,7 +593,7 @@ public class AbcData implements java.io.Externalizable
 		public String getName()
 		{
 			assert(nameOffset < strings.length);
-			return strings[nameOffset];
+			return getString(nameOffset);
 		}
 
 		public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
@@ -649,6 +669,21 @@ public class AbcData implements java.io.Externalizable
 	
 	public String getString(int i)
 	{
+		String s = this.strings[i];
+		return (s != null || stringPositions == null) ? s : readString(i);
+	}
+
+	// CodeOrchestra: added
+	private synchronized String readString(int i)
+	{
+		if (this.strings[i] == null)
+		{
+			int pos = in.pos();
+			in.seek(stringPositions[i]);
+			int length = in.readU32();
+			this.strings[i] = Context.livecodingSession ? in.readString(length) : in.readString(length).intern();
+			in.seek(pos);
+		}
 		return this.strings[i];
 	}
     
@@ -741,7 +776,7 @@ public class AbcData implements java.io.Externalizable
 			String[] result = new String[paramNames.length];
 			
 			for ( int i = 0; i < paramNames.length; i++ )
-				result[i] = strings[paramNames[i]];
+				result[i] = getString(paramNames[i]);
 			return result;
 		}
 		
@@ -785,6 +820,20 @@ public class AbcData implements java.io.Externalizable
 	public Method getMethod(int index)
 	{
 		assert(index >= 0 && index < this.methods.length);
+		Method m = this.methods[index];
+		return (m != null || methodPositions == null) ? m : readMethod(index);
+	}
+
+	// CodeOrchestra: added
+	private synchronized Method readMethod(int index)
+	{
+		if (this.methods[index] == null)
+		{
+			int pos = in.pos();
+			in.seek(methodPositions[index]);
+			this.methods[index] = readMethod(in);
+			in.seek(pos);
+		}
 		return this.methods[index];
 	}
 
@@ -858,10 +907,10 @@ public class AbcData implements java.io.Externalizable
             Value[] vals = new Value[keys.length];
             for(int i = 0; i < keys.length; ++i )
             {
-                String value = strings[raw_values[i]];
+                String value = getString(raw_values[i]);
                 vals[i] = ( keys[i] == 0 )
                     ? new MetaDataEvaluator.KeylessValue(value)
-                    : new MetaDataEvaluator.KeyValuePair( strings[keys[i]], value);
+                    : new MetaDataEvaluator.KeyValuePair( getString(keys[i]), value);
             }
             
             metaNode.setValues(vals);
@@ -1053,6 +1102,7 @@ public class AbcData implements java.io.Externalizable
 	 */
 	public void writeExternal(ObjectOutput out) throws IOException
 	{
+		materialize();
 		out.writeObject(classInfos);
 		out.writeObject(doubles);
 		out.writeObject(instanceInfos);
@@ -1113,6 +1163,34 @@ public class AbcData implements java.io.Externalizable
         scanMetadata(buf);
         scanClasses(buf);
         scanScripts(buf);
+
+        this.in = buf;
+	}
+
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * readAbc() only indexes the strings, the multinames and the method infos. They're read from the ABC when
+	 * they're first asked for, so reading the type information of an ABC doesn't decode the string literals,
+	 * the names and the signatures its method bodies refer to.
+	 */
+	private transient BytecodeBuffer in;
+	private transient int[] stringPositions, namePositions, methodPositions;
+
+	private void materialize()
+	{
+		for (int i = 0; stringPositions != null && i < strings.length; i++)
+		{
+			getString(i);
+		}
+		for (int i = 1; namePositions != null && i < nameData.length; i++)
+		{
+			getNameData(i);
+		}
+		for (int i = 0; methodPositions != null && i < methods.length; i++)
+		{
+			getMethod(i);
+		}
 	}
 
 	void scanCpool(BytecodeBuffer buf, boolean hasDecimal)
@@ -1152,14 +1230,11 @@ public class AbcData implements java.io.Externalizable
             }
         }
 
-        size = buf.readU32();
-        this.strings = new String[size];
-        this.strings[0] = Context.livecodingSession ? "" : "";
-        for (int i = 1; i < size; i++)
+        this.stringPositions = Scanner.scanStrConstants(buf);
+        this.strings = new String[stringPositions.length];
+        if (strings.length > 0)
         {
-            int length = buf.readU32();
-            this.strings[i] = Context.livecodingSession ? buf.readString(length) : buf.readString(length).intern();
-            buf.skip(length);   //  readString() doesn't reset pos pointer.
+            this.strings[0] = "";
         }
         
         size = buf.readU32();
@@ -1184,86 +1259,89 @@ public class AbcData implements java.io.Externalizable
             this.namespaceSets[i] = new NamespaceSet(ns_ids);
         }
         
-        size = buf.readU32();
-        this.nameData = new NameData[size];
-        this.binaryMultinames = new BinaryMN[size];
-              
-        for (int i = 1; i < size; i++)
+        try
         {
-            int kind = buf.readU8();
-            switch (kind)
-            {
-                case ActionBlockConstants.CONSTANT_Qname:
-                case ActionBlockConstants.CONSTANT_QnameA:
-                    this.nameData[i] = new NameData(kind, new int[] {buf.readU32(), buf.readU32()});
-                    break;
-                case ActionBlockConstants.CONSTANT_RTQname:
-                case ActionBlockConstants.CONSTANT_RTQnameA:
-                    this.nameData[i] = new NameData(kind, new int[] {buf.readU32()});
-                    break;
-                case ActionBlockConstants.CONSTANT_Multiname:
-                case ActionBlockConstants.CONSTANT_MultinameA:
-                    this.nameData[i] = new NameData(kind, new int[] {buf.readU32(), buf.readU32()} );
-                    break;
-                case ActionBlockConstants.CONSTANT_MultinameL:
-                case ActionBlockConstants.CONSTANT_MultinameLA:
-                    this.nameData[i] = new NameData(kind, new int[] {buf.readU32()});
-                    break;
-                case ActionBlockConstants.CONSTANT_TypeName:
-                    int name_index = buf.readU32(); // name index
-                    int count = buf.readU32(); // param count;
-                    int[] entries = new int[count+2];
-                    entries[0] = name_index;
-                    entries[1] = count;
-                    for ( int k = 0; k < count; k++)
-                        entries[k+2] = buf.readU32();
-                    this.nameData[i] = new NameData(kind, entries);
-                    break;
-                case ActionBlockConstants.CONSTANT_RTQnameL:
-                case ActionBlockConstants.CONSTANT_RTQnameLA:
-                    this.nameData[i] = new NameData(kind, null);
-                    break;
-                default:
-                    throw new RuntimeException("bad multiname type: " + kind);
+            this.namePositions = Scanner.scanMultinameConstants(buf);
+        }
+        catch (DecoderException e)
+        {
+            throw new RuntimeException(e.getMessage());
+        }
+        this.nameData = new NameData[namePositions.length];
+        this.binaryMultinames = new BinaryMN[namePositions.length];
+    }
+
+    // CodeOrchestra: added
+    private NameData readNameData(BytecodeBuffer buf)
+    {
+        int kind = buf.readU8();
+        switch (kind)
+        {
+            case ActionBlockConstants.CONSTANT_Qname:
+            case ActionBlockConstants.CONSTANT_QnameA:
+                return new NameData(kind, new int[] {buf.readU32(), buf.readU32()});
+            case ActionBlockConstants.CONSTANT_RTQname:
+            case ActionBlockConstants.CONSTANT_RTQnameA:
+                return new NameData(kind, new int[] {buf.readU32()});
+            case ActionBlockConstants.CONSTANT_Multiname:
+            case ActionBlockConstants.CONSTANT_MultinameA:
+                return new NameData(kind, new int[] {buf.readU32(), buf.readU32()} );
+            case ActionBlockConstants.CONSTANT_MultinameL:
+            case ActionBlockConstants.CONSTANT_MultinameLA:
+                return new NameData(kind, new int[] {buf.readU32()});
+            case ActionBlockConstants.CONSTANT_TypeName:
+                int name_index = buf.readU32(); // name index
+                int count = buf.readU32(); // param count;
+                int[] entries = new int[count+2];
+                entries[0] = name_index;
+                entries[1] = count;
+                for ( int k = 0; k < count; k++)
+                    entries[k+2] = buf.readU32();
+                return new NameData(kind, entries);
+            case ActionBlockConstants.CONSTANT_RTQnameL:
+            case ActionBlockConstants.CONSTANT_RTQnameLA:
+                return new NameData(kind, null);
+            default:
+                throw new RuntimeException("bad multiname type: " + kind);
 
-            }
         }
     }
 
     void scanMethods(BytecodeBuffer buf)
     {
-        int methodEntries = buf.readU32();
-        this.methods = new Method[methodEntries];
+        this.methodPositions = Scanner.scanMethods(buf);
+        this.methods = new Method[methodPositions.length];
+    }
+
+    // CodeOrchestra: added
+    private Method readMethod(BytecodeBuffer buf)
+    {
+        int param_count = buf.readU32();
+        int return_type = buf.readU32();
+        int[] param_types = new int[param_count];
+        for ( int j = 0; j < param_count; j++ )
+            param_types[j] = buf.readU32();
+        int name_index = buf.readU32();
+        int flags = buf.readU8();   
         
-        for (int i = 0; i < methodEntries; i++)
+        int optional_param_count = ((flags & ActionBlockConstants.METHOD_HasOptional) != 0)? buf.readU32(): 0;
+        int[] optional_param_types = new int[optional_param_count];
+        int[] optional_param_kinds = new int[optional_param_count];
+        
+        for( int q = 0; q < optional_param_count; ++q )
         {
-            int param_count = buf.readU32();
-            int return_type = buf.readU32();
-            int[] param_types = new int[param_count];
-            for ( int j = 0; j < param_count; j++ )
-                param_types[j] = buf.readU32();
-            int name_index = buf.readU32();
-            int flags = buf.readU8();   
-            
-            int optional_param_count = ((flags & ActionBlockConstants.METHOD_HasOptional) != 0)? buf.readU32(): 0;
-            int[] optional_param_types = new int[optional_param_count];
-            int[] optional_param_kinds = new int[optional_param_count];
-            
-            for( int q = 0; q < optional_param_count; ++q )
-            {
-                optional_param_types[q] = buf.readU32(); 
-                optional_param_kinds[q] = buf.readU8();
-            }
+            optional_param_types[q] = buf.readU32(); 
+            optional_param_kinds[q] = buf.readU8();
+        }
 
-            int param_name_count = ((flags & ActionBlockConstants.METHOD_HasParamNames)!=0) ? param_count : 0;
-            int[] param_names = new int[param_name_count];
-            for( int q = 0; q < param_name_count; ++q )
-            {
-                param_names[q] = buf.readU32();
-            }
-            
-            this.methods[i] = new Method(return_type, param_types, name_index, flags, optional_param_types, optional_param_kinds, param_names);
+        int param_name_count = ((flags & ActionBlockConstants.METHOD_HasParamNames)!=0) ? param_count : 0;
+        int[] param_names = new int[param_name_count];
+        for( int q = 0; q < param_name_count; ++q )
+        {
+            param_names[q] = buf.readU32();
         }
+        
+        return new Method(return_type, param_types, name_index, flags, optional_param_types, optional_param_kinds, param_names);
     }
 
     void scanMetadata(BytecodeBuffer buf)
@@ -0,0 +1,68 @@
+/*
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package macromedia.abc;
+
+class ByteArray
+{
+	BytecodeBuffer b;
+	int start, end, hash;
+
+	void clear()
+	{
+		b = null;
+		start = 0;
+		end = 0;
+		hash = 0;
+	}
+
+	void init()
+	{
+		hash = b.hashCode(start, end);
+	}
+
+	/**
+	 * CodeOrchestra: added, spreads a 64 bits hash over the bits of an int
+	 */
+	static int mix(long h)
+	{
+		h *= 0x9E3779B97F4A7C15L;
+		h ^= h >>> 32;
+		h *= 0xC2B2AE3D27D4EB4FL;
+		return (int) (h ^ (h >>> 29));
+	}
+
+	public boolean equals(Object obj)
+	{
+		if (obj instanceof ByteArray)
+		{
+			ByteArray a = (ByteArray) obj;
+			return b.same(a.b, start, end, a.start, a.end);
+		}
+		else
+		{
+			return false;
+		}
+	}
+
+	public int hashCode()
+	{
+		return hash;
+	}	
+}
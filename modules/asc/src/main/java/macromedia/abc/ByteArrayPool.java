@@ -0,0 +1,166 @@
+/*
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package macromedia.abc;
+
+import java.util.Arrays;
+import java.util.Stack;
+
+/**
+ * CodeOrchestra: modified, the byte arrays are kept in the order of their indices and looked up in an open
+ * addressing table of indices instead of a HashMap with boxed indices
+ */
+class ByteArrayPool
+{
+	ByteArrayPool()
+	{
+		entries = new ByteArray[16];
+		table = new int[32];
+		wrappers = new Stack<>();
+		key = newByteArray();
+	}
+
+	// entries[i] has the index i + 1
+	private ByteArray[] entries;
+	private int count;
+	// the indices of the entries by hash, 0 for a free slot
+	private int[] table;
+	Stack<ByteArray> wrappers;
+	private ByteArray key;
+
+	ByteArray newByteArray()
+	{
+		return new ByteArray();
+	}
+
+	int store(BytecodeBuffer b, int start, int end)
+	{
+		ByteArray a = wrappers.isEmpty() ? null : wrappers.pop();
+
+		if (a == null)
+		{
+			a = newByteArray();
+		}
+
+		a.clear();
+		a.b = b;
+		a.start = start;
+		a.end = end;
+		a.init();
+
+		if (count == entries.length)
+		{
+			entries = Arrays.copyOf(entries, count * 2);
+		}
+		entries[count++] = a;
+
+		if (count * 2 > table.length)
+		{
+			rehash();
+		}
+		else
+		{
+			insert(a.hash, count);
+		}
+
+		return count;
+	}
+
+	int contains(BytecodeBuffer b, int start, int end)
+	{
+		key.clear();
+		key.b = b;
+		key.start = start;
+		key.end = end;
+		key.hash = 0;
+		key.init();
+
+		int mask = table.length - 1;
+		for (int slot = key.hash & mask, index; (index = table[slot]) != 0; slot = (slot + 1) & mask)
+		{
+			ByteArray a = entries[index - 1];
+			if (a.hash == key.hash && key.equals(a))
+			{
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	private void insert(int hash, int index)
+	{
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		while (table[slot] != 0)
+		{
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = index;
+	}
+
+	private void rehash()
+	{
+		table = new int[table.length * 2];
+		for (int i = 0; i < count; i++)
+		{
+			insert(entries[i].hash, i + 1);
+		}
+	}
+
+	/**
+	 * @return the count of byte arrays
+	 */
+	int count()
+	{
+		return count;
+	}
+
+	/**
+	 * @param index 1-based
+	 */
+	ByteArray get(int index)
+	{
+		return entries[index - 1];
+	}
+
+	void clear()
+	{
+		for (int i = 0; i < count; i++)
+		{
+			ByteArray a = entries[i];
+			a.clear();
+			wrappers.push(a);
+			entries[i] = null;
+		}
+
+		count = 0;
+		Arrays.fill(table, 0);
+	}
+
+	void writeTo(BytecodeBuffer b)
+	{
+		b.writeU32((count == 0) ? 0 : count + 1);
+
+		for (int i = 0; i < count; i++)
+		{
+			ByteArray a = entries[i];
+			b.writeBytes(a.b, a.start, a.end);
+		}
+	}
+}
@@ -19,10 +19,8 @@
 
 package macromedia.abc;
 
-import macromedia.asc.util.IntegerPool;
 
 import java.io.*;
-import java.util.*;
 
 public class BytecodeBuffer
 {
@@ -347,14 +345,15 @@ public class BytecodeBuffer
 
 	public int hashCode(int start, int end)
 	{
+		// CodeOrchestra: modified, xor-ing the bytes made most strings of a pool collide
 		long hash = 1234;
 
 		for (int j = start; j < end; j++)
 		{
-			hash ^= bytecodes[j];
+			hash = hash * 31 + bytecodes[j];
 		}
 
-		return (int) ((hash >> 32) ^ hash);
+		return ByteArray.mix(hash);
 	}
 
 	public void writeTo(OutputStream out) throws IOException
@@ -367,123 +366,3 @@ public class BytecodeBuffer
 		return (bytecodes[0] & 0xff) | ((bytecodes[1] & 0xff) << 8);		
 	}
 }
-
-class ByteArrayPool
-{
-	ByteArrayPool()
-	{
-		map = new HashMap();
-		wrappers = new Stack();
-		key = newByteArray();
-	}
-
-	protected Map map;
-	Stack wrappers;
-	private ByteArray key;
-
-	ByteArray newByteArray()
-	{
-		return new ByteArray();
-	}
-
-	int store(BytecodeBuffer b, int start, int end)
-	{
-		ByteArray a = wrappers.isEmpty() ? null : (ByteArray) wrappers.pop();
-
-		if (a == null)
-		{
-			a = newByteArray();
-		}
-
-		a.clear();
-		a.b = b;
-		a.start = start;
-		a.end = end;
-		a.init();
-
-		Integer index = IntegerPool.getNumber(map.size() + 1);
-		map.put(a, index);
-
-		return index;
-	}
-
-	int contains(BytecodeBuffer b, int start, int end)
-	{
-		key.clear();
-		key.b = b;
-		key.start = start;
-		key.end = end;
-		key.hash = 0;
-		key.init();
-
-		Integer index = (Integer) map.get(key);
-		return (index != null) ? index : -1;
-	}
-
-	void clear()
-	{
-		for (Object o : map.keySet()) {
-			ByteArray a = (ByteArray) o;
-			a.clear();
-			wrappers.push(a);
-		}
-
-		map.clear();
-	}
-
-	void writeTo(BytecodeBuffer b)
-	{
-		Map sortedMap = new TreeMap();
-
-		for (Object key : map.keySet()) {
-			Object value = map.get(key); // Integer
-			sortedMap.put(value, key);
-		}
-
-		b.writeU32((sortedMap.size() == 0) ? 0 : sortedMap.size() + 1);
-
-		for (Object o : sortedMap.keySet()) {
-			Integer index = (Integer) o;
-			ByteArray a = (ByteArray) sortedMap.get(index);
-			b.writeBytes(a.b, a.start, a.end);
-		}
-	}
-}
-
-class ByteArray
-{
-	BytecodeBuffer b;
-	int start, end, hash;
-
-	void clear()
-	{
-		b = null;
-		start = 0;
-		end = 0;
-		hash = 0;
-	}
-
-	void init()
-	{
-		hash = b.hashCode(start, end);
-	}
-
-	public boolean equals(Object obj)
-	{
-		if (obj instanceof ByteArray)
-		{
-			ByteArray a = (ByteArray) obj;
-			return b.same(a.b, start, end, a.start, a.end);
-		}
-		else
-		{
-			return false;
-		}
-	}
-
-	public int hashCode()
-	{
-		return hash;
-	}	
-}
-
@@ -54,7 +54,6 @@ import java.util.Collections;
 
 import macromedia.asc.util.Decimal128;
 import macromedia.asc.util.IntegerPool;
-import macromedia.asc.util.IntList;
 
 
 /**
@@ -615,411 +614,6 @@ public class ConstantPool
     }
 }
 
-final class IndexHistory
-{
-	public static final int cp_int = 0;
-	public static final int cp_uint = 1;
-	public static final int cp_double = 2;
-	public static final int cp_decimal = 3;
-	public static final int cp_string = 4;
-	public static final int cp_ns = 5;
-	public static final int cp_nsset = 6;
-	public static final int cp_mn = 7;
-	
-	IndexHistory(ConstantPool[] pools, boolean poolHasDecimal)
-	{
-		this.pools = pools;
-		poolSizes = new int[pools.length];
-		hasDecimal = poolHasDecimal;
-
-		int size = 0, preferredSize = 0;
-		for (int i = 0, length = pools.length; i < length; i++)
-		{
-			poolSizes[i] = (i == 0) ? 0 : size;
-			size += pools[i].size();
-			preferredSize += (pools[i].mnEnd - pools[i].strEnd);
-		}
-
-		map = new int[size];
-		in_ns = new BytecodeBuffer(preferredSize);
-		in_nsset = new BytecodeBuffer(preferredSize);
-		in_mn = new BytecodeBuffer(preferredSize);
-
-		intP = new ByteArrayPool();
-		uintP = new ByteArrayPool();
-		doubleP = new ByteArrayPool();
-		if (hasDecimal)
-			decimalP = new ByteArrayPool();
-		stringP = new ByteArrayPool();
-		nsP = new NSPool();
-		nssP = new NSSPool();
-		mnP = new MultiNamePool();
-
-		total = 0;
-		duplicate = 0;
-		totalBytes = 0;
-		duplicateBytes = 0;
-
-		// nss = new HashSet<Integer>();
-	}
-
-	public int total, duplicate, totalBytes, duplicateBytes;
-
-	private ConstantPool[] pools;
-	private int[] poolSizes;
-	private int[] map;
-
-	private boolean hasDecimal;
-	
-	private ByteArrayPool intP, uintP, doubleP, decimalP, stringP, nsP, nssP, mnP;
-	private BytecodeBuffer in_ns, in_nsset, in_mn;
-	// private Set<Integer> nss;
-
-    // Needed so we can strip out the index for all CONSTANT_PrivateNamespace entries
-    // since the name for private namespaces is not important
-    private boolean disableDebuggingInfo = false;
-    void disableDebugging()
-    {
-        disableDebuggingInfo = true;
-    }
-
-
-	public int getIndex(int poolIndex, int kind, int index)
-	{
-		if (index == 0)
-		{
-			return 0;
-		}
-		else
-		{
-			int newIndex = calculateIndex(poolIndex, kind, index);
-
-			if (map[newIndex] == 0)
-			{
-				decodeOnDemand(poolIndex, kind, index, newIndex);
-			}
-
-			return map[newIndex];
-		}
-	}
-
-	public void writeTo(BytecodeBuffer b)
-	{
-		intP.writeTo(b);
-		uintP.writeTo(b);
-		doubleP.writeTo(b);
-		if (hasDecimal)
-			decimalP.writeTo(b);
-		stringP.writeTo(b);
-		nsP.writeTo(b);
-		nssP.writeTo(b);
-		mnP.writeTo(b);
-	}
-
-	/**
-	 * @param poolIndex 0-based
-	 * @param kind 0-based
-	 * @param oldIndex 1-based
-	 */
-	private int calculateIndex(final int poolIndex, final int kind, final int oldIndex)
-	{
-		int index = poolSizes[poolIndex];
-
-		if (kind > cp_int)
-		{
-			index += (pools[poolIndex].intpositions.length == 0) ? 0 : (pools[poolIndex].intpositions.length - 1);
-		}
-
-		if (kind > cp_uint)
-		{
-			index += (pools[poolIndex].uintpositions.length == 0) ? 0 : (pools[poolIndex].uintpositions.length - 1);
-		}
-
-		if (kind > cp_double)
-		{
-			index += (pools[poolIndex].doublepositions.length == 0) ? 0 : (pools[poolIndex].doublepositions.length - 1);
-		}
-
-		if (hasDecimal && (kind > cp_decimal))
-		{
-			index += (pools[poolIndex].decimalpositions.length == 0) ? 0 : (pools[poolIndex].decimalpositions.length - 1);
-		}
-
-		if (kind > cp_string)
-		{
-			index += (pools[poolIndex].strpositions.length == 0) ? 0 : (pools[poolIndex].strpositions.length - 1);
-		}
-
-		if (kind > cp_ns)
-		{
-			index += (pools[poolIndex].nspositions.length == 0) ? 0 : (pools[poolIndex].nspositions.length - 1);
-		}
-
-		if (kind > cp_nsset)
-		{
-			index += (pools[poolIndex].nsspositions.length == 0) ? 0 : (pools[poolIndex].nsspositions.length - 1);
-		}
-
-		if (kind > cp_mn)
-		{
-			index += (pools[poolIndex].mnpositions.length == 0) ? 0 : (pools[poolIndex].mnpositions.length - 1);
-		}
-
-		index += (oldIndex - 1);
-
-		return index;
-	}
-
-	private void decodeOnDemand(final int poolIndex, final int kind, final int j, final int j2)
-    {
-	    ConstantPool pool = pools[poolIndex];
-	    ByteArrayPool baPool = null;
-	    BytecodeBuffer poolIn = null;
-	    int[] positions = null;
-	    int length = 0, endPos = 0;
-
-	    if (kind == cp_int)
-	    {
-		    positions = pool.intpositions;
-		    length = positions.length;
-		    endPos = pool.intEnd;
-		    baPool = intP;
-		    poolIn = pool.in;
-	    }
-	    else if (kind == cp_uint)
-	    {
-		    positions = pool.uintpositions;
-		    length = positions.length;
-		    endPos = pool.uintEnd;
-		    baPool = uintP;
-		    poolIn = pool.in;
-	    }
-	    else if (kind == cp_double)
-	    {
-		    positions = pool.doublepositions;
-		    length = positions.length;
-		    endPos = pool.doubleEnd;
-		    baPool = doubleP;
-		    poolIn = pool.in;
-	    }
-	    else if (kind == cp_decimal)
-	    {
-	    	assert(hasDecimal);
-		    positions = pool.decimalpositions;
-		    length = positions.length;
-		    endPos = pool.decimalEnd;
-		    baPool = decimalP;
-		    poolIn = pool.in;
-	    }
-	    else if (kind == cp_string)
-	    {
-		    positions = pool.strpositions;
-		    length = positions.length;
-		    endPos = pool.strEnd;
-		    baPool = stringP;
-		    poolIn = pool.in;
-	    }
-	    else if (kind == cp_ns)
-	    {
-		    positions = pool.nspositions;
-		    length = positions.length;
-		    endPos = pool.nsEnd;
-		    baPool = nsP;
-		    poolIn = pool.in;
-	    }
-	    else if (kind == cp_nsset)
-	    {
-		    positions = pool.nsspositions;
-		    length = positions.length;
-		    endPos = pool.nssEnd;
-		    baPool = nssP;
-		    poolIn = pool.in;
-	    }
-	    else if (kind == cp_mn)
-	    {
-		    positions = pool.mnpositions;
-		    length = positions.length;
-		    endPos = pool.mnEnd;
-		    baPool = mnP;
-		    poolIn = pool.in;
-	    }
-
-	    int start = positions[j];
-	    int end = (j != length - 1) ? positions[j + 1] : endPos;
-
-	    if (kind == cp_ns)
-	    {
-		    int pos = positions[j];
-		    int originalPos = poolIn.pos();
-		    poolIn.seek(pos);
-		    start = in_ns.size();
-		    int nsKind = poolIn.readU8();
-		    in_ns.writeU8(nsKind);
-		    switch (nsKind)
-		    {
-		    case CONSTANT_PrivateNamespace:
-                if( this.disableDebuggingInfo )
-                {
-                    in_ns.writeU32(0); // name not important for private namespace
-                    break;
-                }
-                // else fall through and treat like a normal namespace
-		    case CONSTANT_Namespace:
-            case CONSTANT_PackageNamespace:
-            case CONSTANT_PackageInternalNs:
-            case CONSTANT_ProtectedNamespace:
-            case CONSTANT_ExplicitNamespace:
-            case CONSTANT_StaticProtectedNs:				
-			    int index = poolIn.readU32();
-			    int newIndex = getIndex(poolIndex, cp_string, index);
-			    in_ns.writeU32(newIndex);
-			    break;
-		    default:
-			    assert false; // can't possibly happen...
-		    }
-            poolIn.seek(originalPos);
-            end = in_ns.size();
-            poolIn = in_ns;
-	    }
-	    else if (kind == cp_nsset)
-	    {
-		    int pos = positions[j];
-		    int originalPos = poolIn.pos();
-		    poolIn.seek(pos);
-		    start = in_nsset.size();
-
-		    /*
-		    nss.clear();
-		    int count = (int) poolIn.readU32();
-		    for (int k = 0; k < count; k++)
-		    {
-			    nss.add((int) poolIn.readU32());
-		    }
-		    count = nss.size();
-		    in5.writeU32(count);
-		    for (Iterator<Integer> k = nss.iterator(); k.hasNext();)
-		    {
-			    int index = k.next();
-			    int newIndex = getIndex(poolIndex, 4, index);
-			    in_nsset.writeU32(newIndex);
-		    }
-            */
-
-		    int count = poolIn.readU32();
-		    in_nsset.writeU32(count);
-		    for (int k = 0; k < count; k++)
-		    {
-			    int index = poolIn.readU32();
-			    int newIndex = getIndex(poolIndex, cp_ns, index);
-			    in_nsset.writeU32(newIndex);
-		    }
-
-		    poolIn.seek(originalPos);
-		    end = in_nsset.size();
-		    poolIn = in_nsset;
-	    }
-	    else if (kind == cp_mn)
-	    {
-		    int pos = positions[j];
-		    int originalPos = poolIn.pos();
-		    poolIn.seek(pos);
-		    start = in_mn.size();
-		    int constKind = poolIn.readU8();
-            if( !(constKind==CONSTANT_TypeName))
-                in_mn.writeU8(constKind);
-
-		    switch (constKind)
-		    {
-		    case CONSTANT_Qname:
-		    case CONSTANT_QnameA:
-		    {
-			    int namespaceIndex = poolIn.readU32();
-			    int newNamespaceIndex = getIndex(poolIndex, cp_ns, namespaceIndex);
-			    in_mn.writeU32(newNamespaceIndex);
-			    int nameIndex = poolIn.readU32();
-			    int newNameIndex = getIndex(poolIndex, cp_string, nameIndex);
-			    in_mn.writeU32(newNameIndex);
-			    break;
-		    }
-		    case CONSTANT_Multiname:
-		    case CONSTANT_MultinameA:
-		    {
-			    int nameIndex = poolIn.readU32();
-			    int newNameIndex = getIndex(poolIndex, cp_string, nameIndex);
-			    in_mn.writeU32(newNameIndex);
-			    int namespace_set = poolIn.readU32();
-			    int newNamespace_set = getIndex(poolIndex, cp_nsset, namespace_set);
-			    in_mn.writeU32(newNamespace_set);
-			    break;
-		    }
-		    case CONSTANT_RTQname:
-		    case CONSTANT_RTQnameA:
-		    {
-			    int index = poolIn.readU32();
-			    int newIndex = getIndex(poolIndex, cp_string, index);
-			    in_mn.writeU32(newIndex);
-			    break;
-		    }
-		    case CONSTANT_RTQnameL:
-		    case CONSTANT_RTQnameLA:
-				break;
-		    case CONSTANT_MultinameL:
-		    case CONSTANT_MultinameLA:
-			{
-				int namespace_set = poolIn.readU32();
-				int newNamespace_set = getIndex(poolIndex, cp_nsset, namespace_set);
-				in_mn.writeU32(newNamespace_set);
-				break;
-			}
-            case CONSTANT_TypeName:
-            {
-                int nameIndex = poolIn.readU32();
-                int newNameIndex = getIndex(poolIndex, cp_mn, nameIndex);
-                int count = poolIn.readU32();
-                IntList newParams = new IntList();
-                for( int i = 0; i<count;++i) {
-                    newParams.add(getIndex(poolIndex, cp_mn, poolIn.readU32()));
-                }
-                start = in_mn.size();
-                in_mn.writeU8(constKind);
-                in_mn.writeU32(newNameIndex);
-                in_mn.writeU32(count);
-                for( int i =0; i < count; ++i ) {
-                    in_mn.writeU32(newParams.at(i));
-                }
-				break;
-            }
-
-            default:
-			    assert false; // can't possibly happen...
-		    }
-
-		    poolIn.seek(originalPos);
-		    end = in_mn.size();
-		    poolIn = in_mn;
-	    }
-
-	    int newIndex = baPool.contains(poolIn, start, end);
-	    if (newIndex == -1)
-	    {
-		    newIndex = baPool.store(poolIn, start, end);
-	    }
-	    else
-	    {
-		    duplicate++;
-		    duplicateBytes += (end - start);
-	    }
-
-	    total++;
-	    totalBytes += (end - start);
-
-	    if (j != 0)
-	    {
-		    map[j2] = newIndex;
-	    }
-    }
-}
-
 final class NSPool extends ByteArrayPool
 {
 	NSPool()
@@ -1037,10 +631,9 @@ final class NS extends ByteArray
 {
 	int nsKind = 0, index = 0;
 
+	// CodeOrchestra: modified, mixes the fields equals() compares instead of xor-ing them
 	void init()
 	{
-		super.init();
-
 		int originalPos = b.pos();
 		b.seek(start);
 		nsKind = b.readU8();
@@ -1060,8 +653,7 @@ final class NS extends ByteArray
 		}
 		b.seek(originalPos);
 
-		long num = 1234 ^ nsKind ^ index;
-		hash = (int) ((num >> 32) ^ num);
+		hash = mix((1234L * 31 + nsKind) * 31 + index);
 	}
 
 	void clear()
@@ -1111,10 +703,9 @@ final class NSS extends ByteArray
 	int[] set = null;
 	int size = 0;
 
+	// CodeOrchestra: modified, mixes the fields equals() compares instead of xor-ing them
 	void init()
 	{
-		super.init();
-
 		int originalPos = b.pos();
 		b.seek(start);
 		int count = b.readU32();
@@ -1134,9 +725,9 @@ final class NSS extends ByteArray
 		long num = 1234;
 		for (int k = 0; k < count; k++)
 		{
-			num ^= set[k];
+			num = num * 31 + set[k];
 		}
-		hash = (int) ((num >> 32) ^ num);
+		hash = mix(num);
 	}
 
 	void clear()
@@ -1190,10 +781,9 @@ final class MN extends ByteArray
 {
 	int constKind = 0, index1 = 1, index2 = 1;
 
+	// CodeOrchestra: modified, mixes the fields equals() compares instead of xor-ing them
 	void init()
 	{
-		super.init();
-
 		int originalPos = b.pos();
 		b.seek(start);
 		constKind = b.readU8();
@@ -1205,8 +795,7 @@ final class MN extends ByteArray
 		{
 			index1 = b.readU32();
 			index2 = b.readU32();
-			long num = 1234 ^ constKind ^ index1 ^ index2;
-			hash = (int) ((num >> 32) ^ num);
+			hash = mix(((1234L * 31 + constKind) * 31 + index1) * 31 + index2);
 			break;
 		}
 		case CONSTANT_Multiname:
@@ -1214,31 +803,27 @@ final class MN extends ByteArray
 		{
 			index1 = b.readU32();
 			index2 = b.readU32();
-			long num = 1234 ^ constKind ^ index1 ^ index2;
-			hash = (int) ((num >> 32) ^ num);
+			hash = mix(((1234L * 31 + constKind) * 31 + index1) * 31 + index2);
 			break;
 		}
 		case CONSTANT_RTQname:
 		case CONSTANT_RTQnameA:
 		{
 			index1 = b.readU32();
-			long num = 1234 ^ constKind ^ index1;
-			hash = (int) ((num >> 32) ^ num);
+			hash = mix((1234L * 31 + constKind) * 31 + index1);
 			break;
 		}
 		case CONSTANT_RTQnameL:
 		case CONSTANT_RTQnameLA:
 		{
-			long num = 1234 ^ constKind;
-			hash = (int) ((num >> 32) ^ num);
+			hash = mix(1234L * 31 + constKind);
 			break;
 		}
 		case CONSTANT_MultinameL:
 		case CONSTANT_MultinameLA:
 		{
 			index1 = b.readU32();
-			long num = 1234 ^ constKind ^ index1;
-			hash = (int) ((num >> 32) ^ num);
+			hash = mix((1234L * 31 + constKind) * 31 + index1);
 			break;
 		}
         case CONSTANT_TypeName:
@@ -1247,8 +832,7 @@ final class MN extends ByteArray
             int count = b.readU32();
             // Only 1 typeparam for now.
             index2 = b.readU32();
-            long num = 1234 ^ constKind ^ index1 ^ index2;
-            hash = (int) ((num >> 32) ^ num);
+            hash = mix(((1234L * 31 + constKind) * 31 + index1) * 31 + index2);
             break;
         }
         default:
@@ -263,6 +263,66 @@ public class Encoder implements Visitor
 		poolIndex = index;
 	}
 
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * Merges the constants the method bodies of the current pool refer to, in the order encoding them would.
+	 * Once done for every pool, encoding the method bodies doesn't change the merged constant pool, and the
+	 * bodies of different pools can be encoded concurrently by the encoders of {@link #newMethodBodyEncoder(Decoder[], int)}.
+	 */
+	public void resolveMethodBodies(Decoder.MethodBodies methodBodies) throws DecoderException
+	{
+		ConstantResolver resolver = new ConstantResolver();
+		for (int k = 0, bodySize = methodBodies.size(); k < bodySize; k++)
+		{
+			methodBodies.decode(k, 1, resolver);
+		}
+	}
+
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * While frozen, the merged constant pool is only read, and a constant which is not merged yet is an error.
+	 */
+	public void freezeConstantPool(boolean frozen)
+	{
+		pool.history.setFrozen(frozen);
+	}
+
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * Creates an encoder for the method bodies of the pool at <code>index</code>. It shares the merged constant
+	 * pool, method infos, metadata and classes of this encoder and writes the bodies into its own buffer, which
+	 * {@link #appendMethodBodies(Encoder)} adds to the bodies of this encoder.
+	 */
+	public Encoder newMethodBodyEncoder(Decoder[] decoders, int index)
+	{
+		Encoder encoder = new Encoder(majorVersion, minorVersion);
+		encoder.pool = pool;
+		encoder.pools = pools;
+		encoder.peepHole = peepHole;
+		encoder.disableDebugging = disableDebugging;
+		encoder.removeMetadata = removeMetadata;
+		encoder.keep_metadata = keep_metadata;
+		encoder.methodInfo = methodInfo;
+		encoder.metadataInfo = metadataInfo;
+		encoder.classInfo = classInfo;
+		encoder.methodBodies = encoder.new BytecodeBuffer2(decoders[index].methodBodies.estimatedSize, null);
+		encoder.opcodes = encoder.new BytecodeBuffer3(decoders, 4096);
+		encoder.exceptions = new BytecodeBuffer(4096);
+		encoder.poolIndex = index;
+		return encoder;
+	}
+
+	/**
+	 * CodeOrchestra: added
+	 */
+	public void appendMethodBodies(Encoder encoder)
+	{
+		methodBodies.writeBytes(encoder.methodBodies, 0, encoder.methodBodies.size());
+	}
+
 	public byte[] toABC()
 	{
 		/*
@@ -541,6 +601,8 @@ public class Encoder implements Visitor
 		currentBuffer = methodBodies;
 		opcodePass = 1;
 		exPass = 1;
+		// CodeOrchestra: the peephole window doesn't extend into the previous method body
+		clearWindow();
 	}
 
 	public void endMethodBody()
@@ -675,6 +737,18 @@ public class Encoder implements Visitor
 		currentBuffer.writeU32(slotId);
 		currentBuffer.writeU32(pool.history.getIndex(poolIndex, IndexHistory.cp_mn, type));
 
+		int newIndex = slotValueIndex(value, value_kind);
+		currentBuffer.writeU32(newIndex);
+		if (value != 0)
+		{
+			currentBuffer.writeU8(value_kind);
+		}
+
+		encodeMetaData(trait_kind, new_metadata);
+	}
+
+	private int slotValueIndex(int value, int value_kind)
+	{
 		int kind = -1;
 
 		switch(value_kind)
@@ -734,13 +808,7 @@ public class Encoder implements Visitor
 		}
 		}
 
-		currentBuffer.writeU32(newIndex);
-		if (value != 0)
-		{
-			currentBuffer.writeU8(value_kind);
-		}
-
-		encodeMetaData(trait_kind, new_metadata);
+		return newIndex;
 	}
 
 	public void methodTrait(int trait_kind, int name, int dispId, int methodInfo, int[] metadata)
@@ -2890,19 +2958,36 @@ public class Encoder implements Visitor
         }
     }
 
+	/**
+	 * CodeOrchestra: added
+	 *
+	 * @return the sums of the sizes of the preceding pools
+	 */
+	private static int[] offsets(int[] sizes)
+	{
+		int[] offsets = new int[sizes.length];
+		for (int i = 1; i < sizes.length; i++)
+		{
+			offsets[i] = offsets[i - 1] + sizes[i - 1];
+		}
+		return offsets;
+	}
+
     class ByteArrayPool2 extends ByteArrayPool
     {
         ByteArrayPool2(int[] sizes)
         {
-            this.sizes = sizes;
-            indexes = new HashMap<>();
+            // CodeOrchestra: modified, the indexes are kept in an array instead of a map of boxed indexes
+            offsets = offsets(sizes);
+            indexes = new int[sizes.length == 0 ? 0 : offsets[sizes.length - 1] + sizes[sizes.length - 1]];
+            Arrays.fill(indexes, -1);
         }
 
         int size = 0;
 
-        private int[] sizes;
+        private int[] offsets;
 
-        private Map<Integer, Integer> indexes;
+        private int[] indexes;
 
         int addByteArray(int poolIndex, int oldIndex, BytecodeBuffer ba)
         {
@@ -2913,27 +2998,13 @@ public class Encoder implements Visitor
                 size += ba.size();
             }
             // ByteArrayPool is 1 based, we want zero based for metadataInfos
-            indexes.put(IntegerPool.getNumber(calcIndex(poolIndex, oldIndex)), IntegerPool.getNumber(index-1));
+            indexes[offsets[poolIndex] + oldIndex] = index - 1;
             return index;
         }
 
-        private int calcIndex(int poolIndex, int oldIndex)
-        {
-            int newIndex = 0;
-            for (int i = 0; i < poolIndex; i++)
-            {
-                newIndex += sizes[i];
-            }
-            newIndex += oldIndex;
-
-            return newIndex;
-        }
-
         int getIndex(int poolIndex, int oldIndex)
         {
-            int newIndex = calcIndex(poolIndex, oldIndex);
-            Integer i = indexes.get(IntegerPool.getNumber(newIndex));
-            return i != null ? i : -1;
+            return indexes[offsets[poolIndex] + oldIndex];
         }
 
         int size()
@@ -2943,20 +3014,13 @@ public class Encoder implements Visitor
 
         void writeTo(BytecodeBuffer b)
         {
-            Map sortedMap = new TreeMap();
+            b.writeU32(count());
 
-			for (Object key : map.keySet()) {
-				Object value = map.get(key); // Integer
-				sortedMap.put(value, key);
-			}
-
-            b.writeU32((sortedMap.size() == 0) ? 0 : sortedMap.size() );
-
-			for (Object o : sortedMap.keySet()) {
-				Integer index = (Integer) o;
-				ByteArray a = (ByteArray) sortedMap.get(index);
-				b.writeBytes(a.b, a.start, a.end);
-			}
+            for (int index = 1, count = count(); index <= count; index++)
+            {
+                ByteArray a = get(index);
+                b.writeBytes(a.b, a.start, a.end);
+            }
         }
 
         void writeTo(OutputStream os) throws java.io.IOException
@@ -2972,23 +3036,17 @@ public class Encoder implements Visitor
 		BytecodeBuffer2(int estimatedSize, int[] sizes)
 		{
 			super(estimatedSize);
-			this.sizes = sizes;
+			// CodeOrchestra: modified, the offsets of the pools are summed up once
+			this.offsets = sizes == null ? null : offsets(sizes);
 			this.estimatedSize = estimatedSize;
 		}
 
-		private int[] sizes;
+		private int[] offsets;
 		int estimatedSize;
 
 		int getIndex(int poolIndex, int oldIndex)
 		{
-			int newIndex = 0;
-			for (int i = 0; i < poolIndex; i++)
-			{
-				newIndex += sizes[i];
-			}
-			newIndex += oldIndex;
-
-			return newIndex;
+			return offsets[poolIndex] + oldIndex;
 		}
 	}
 
@@ -3080,5 +3138,213 @@ public class Encoder implements Visitor
 			offsets.clear();
 		}
 	}
+
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * Merges the constants of the method bodies it visits, in the order the encoder does: the operands of the
+	 * opcodes on the first opcode pass, the exceptions on the second pass and then the traits.
+	 */
+	class ConstantResolver extends OpcodeVisitor
+	{
+		private IntList exceptions = new IntList();
+
+		private void resolve(int kind, int index)
+		{
+			pool.history.getIndex(poolIndex, kind, index);
+		}
+
+		public void exception(long start, long end, long target, int type, int name)
+		{
+			exceptions.add(type);
+			exceptions.add(name);
+		}
+
+		public void endOpcodes()
+		{
+			for (int i = 0, size = exceptions.size(); i < size; i += 2)
+			{
+				resolve(IndexHistory.cp_mn, exceptions.get(i));
+				if (minorVersion != 15)
+				{
+					resolve(IndexHistory.cp_mn, exceptions.get(i + 1));
+				}
+			}
+			exceptions.clear();
+		}
+
+		public void slotTrait(int kind, int name, int slotId, int type, int value, int value_kind, int[] metadata)
+		{
+			resolve(IndexHistory.cp_mn, name);
+			resolve(IndexHistory.cp_mn, type);
+			slotValueIndex(value, value_kind);
+		}
+
+		public void methodTrait(int kind, int name, int dispId, int methodInfo, int[] metadata)
+		{
+			resolve(IndexHistory.cp_mn, name);
+		}
+
+		public void classTrait(int kind, int name, int slotId, int classIndex, int[] metadata)
+		{
+			resolve(IndexHistory.cp_mn, name);
+		}
+
+		public void functionTrait(int kind, int name, int slotId, int methodInfo, int[] metadata)
+		{
+			resolve(IndexHistory.cp_mn, name);
+		}
+
+		public void OP_debug(int di_local, int index, int slot, int linenum)
+		{
+			if (!disableDebugging)
+			{
+				resolve(IndexHistory.cp_string, index);
+			}
+		}
+
+		public void OP_debugfile(int index)
+		{
+			if (!disableDebugging)
+			{
+				resolve(IndexHistory.cp_string, index);
+			}
+		}
+
+		public void OP_pushstring(int index)
+		{
+			resolve(IndexHistory.cp_string, index);
+		}
+
+		public void OP_pushnamespace(int index)
+		{
+			resolve(IndexHistory.cp_ns, index);
+		}
+
+		public void OP_pushint(int index)
+		{
+			resolve(IndexHistory.cp_int, index);
+		}
+
+		public void OP_pushuint(int index)
+		{
+			resolve(IndexHistory.cp_uint, index);
+		}
+
+		public void OP_pushdouble(int index)
+		{
+			resolve(IndexHistory.cp_double, index);
+		}
+
+		public void OP_pushdecimal(int index)
+		{
+			resolve(IndexHistory.cp_decimal, index);
+		}
+
+		public void OP_dxns(int index)
+		{
+			resolve(IndexHistory.cp_string, index);
+		}
+
+		public void OP_getproperty(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_setproperty(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_initproperty(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_getdescendants(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_findpropstrict(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_findproperty(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_finddef(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_getlex(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_deleteproperty(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_callproperty(int index, int argc)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_callproplex(int index, int argc)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_constructprop(int index, int argc)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_callsuper(int index, int argc)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_getsuper(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_setsuper(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_astype(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_coerce(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_istype(int index)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_callsupervoid(int index, int argc)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+
+		public void OP_callpropvoid(int index, int argc)
+		{
+			resolve(IndexHistory.cp_mn, index);
+		}
+	}
 }
 
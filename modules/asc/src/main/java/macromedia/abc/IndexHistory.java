@@ -0,0 +1,471 @@
+/*
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package macromedia.abc;
+
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_ExplicitNamespace;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_Multiname;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_MultinameA;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_MultinameL;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_MultinameLA;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_TypeName;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_Namespace;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_PackageInternalNs;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_PackageNamespace;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_PrivateNamespace;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_ProtectedNamespace;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_Qname;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_QnameA;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_RTQname;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_RTQnameA;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_RTQnameL;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_RTQnameLA;
+import static macromedia.asc.embedding.avmplus.ActionBlockConstants.CONSTANT_StaticProtectedNs;
+
+import macromedia.asc.util.IntList;
+
+final class IndexHistory
+{
+	public static final int cp_int = 0;
+	public static final int cp_uint = 1;
+	public static final int cp_double = 2;
+	public static final int cp_decimal = 3;
+	public static final int cp_string = 4;
+	public static final int cp_ns = 5;
+	public static final int cp_nsset = 6;
+	public static final int cp_mn = 7;
+	
+	IndexHistory(ConstantPool[] pools, boolean poolHasDecimal)
+	{
+		this.pools = pools;
+		poolSizes = new int[pools.length];
+		hasDecimal = poolHasDecimal;
+
+		int size = 0, preferredSize = 0;
+		for (int i = 0, length = pools.length; i < length; i++)
+		{
+			poolSizes[i] = (i == 0) ? 0 : size;
+			size += pools[i].size();
+			preferredSize += (pools[i].mnEnd - pools[i].strEnd);
+		}
+
+		map = new int[size];
+		kindOffsets = new int[pools.length * (cp_mn + 1)];
+		for (int i = 0, length = pools.length; i < length; i++)
+		{
+			for (int kind = cp_int; kind <= cp_mn; kind++)
+			{
+				kindOffsets[i * (cp_mn + 1) + kind] = kindOffset(i, kind);
+			}
+		}
+		in_ns = new BytecodeBuffer(preferredSize);
+		in_nsset = new BytecodeBuffer(preferredSize);
+		in_mn = new BytecodeBuffer(preferredSize);
+
+		intP = new ByteArrayPool();
+		uintP = new ByteArrayPool();
+		doubleP = new ByteArrayPool();
+		if (hasDecimal)
+			decimalP = new ByteArrayPool();
+		stringP = new ByteArrayPool();
+		nsP = new NSPool();
+		nssP = new NSSPool();
+		mnP = new MultiNamePool();
+
+		total = 0;
+		duplicate = 0;
+		totalBytes = 0;
+		duplicateBytes = 0;
+
+		// nss = new HashSet<Integer>();
+	}
+
+	public int total, duplicate, totalBytes, duplicateBytes;
+
+	private ConstantPool[] pools;
+	private int[] poolSizes;
+	private int[] map;
+	private int[] kindOffsets;
+
+	private boolean hasDecimal;
+	
+	private ByteArrayPool intP, uintP, doubleP, decimalP, stringP, nsP, nssP, mnP;
+	private BytecodeBuffer in_ns, in_nsset, in_mn;
+	// private Set<Integer> nss;
+
+    // Needed so we can strip out the index for all CONSTANT_PrivateNamespace entries
+    // since the name for private namespaces is not important
+    private boolean disableDebuggingInfo = false;
+    void disableDebugging()
+    {
+        disableDebuggingInfo = true;
+    }
+
+	// CodeOrchestra: added. While frozen, getIndex() doesn't merge constants and can be called concurrently.
+	private boolean frozen;
+
+	void setFrozen(boolean frozen)
+	{
+		this.frozen = frozen;
+	}
+
+
+	public int getIndex(int poolIndex, int kind, int index)
+	{
+		if (index == 0)
+		{
+			return 0;
+		}
+		else
+		{
+			int newIndex = calculateIndex(poolIndex, kind, index);
+
+			if (map[newIndex] == 0)
+			{
+				if (frozen)
+				{
+					throw new IllegalStateException("constant " + index + " of kind " + kind + " in pool " + poolIndex + " is not merged");
+				}
+				decodeOnDemand(poolIndex, kind, index, newIndex);
+			}
+
+			return map[newIndex];
+		}
+	}
+
+	public void writeTo(BytecodeBuffer b)
+	{
+		intP.writeTo(b);
+		uintP.writeTo(b);
+		doubleP.writeTo(b);
+		if (hasDecimal)
+			decimalP.writeTo(b);
+		stringP.writeTo(b);
+		nsP.writeTo(b);
+		nssP.writeTo(b);
+		mnP.writeTo(b);
+	}
+
+	/**
+	 * @param poolIndex 0-based
+	 * @param kind 0-based
+	 * @param oldIndex 1-based
+	 */
+	private int calculateIndex(final int poolIndex, final int kind, final int oldIndex)
+	{
+		// CodeOrchestra: modified, the offsets of the kinds are summed up once
+		return kindOffsets[poolIndex * (cp_mn + 1) + Math.max(kind, cp_int)] + (oldIndex - 1);
+	}
+
+	private int kindOffset(final int poolIndex, final int kind)
+	{
+		int index = poolSizes[poolIndex];
+
+		if (kind > cp_int)
+		{
+			index += (pools[poolIndex].intpositions.length == 0) ? 0 : (pools[poolIndex].intpositions.length - 1);
+		}
+
+		if (kind > cp_uint)
+		{
+			index += (pools[poolIndex].uintpositions.length == 0) ? 0 : (pools[poolIndex].uintpositions.length - 1);
+		}
+
+		if (kind > cp_double)
+		{
+			index += (pools[poolIndex].doublepositions.length == 0) ? 0 : (pools[poolIndex].doublepositions.length - 1);
+		}
+
+		if (hasDecimal && (kind > cp_decimal))
+		{
+			index += (pools[poolIndex].decimalpositions.length == 0) ? 0 : (pools[poolIndex].decimalpositions.length - 1);
+		}
+
+		if (kind > cp_string)
+		{
+			index += (pools[poolIndex].strpositions.length == 0) ? 0 : (pools[poolIndex].strpositions.length - 1);
+		}
+
+		if (kind > cp_ns)
+		{
+			index += (pools[poolIndex].nspositions.length == 0) ? 0 : (pools[poolIndex].nspositions.length - 1);
+		}
+
+		if (kind > cp_nsset)
+		{
+			index += (pools[poolIndex].nsspositions.length == 0) ? 0 : (pools[poolIndex].nsspositions.length - 1);
+		}
+
+		if (kind > cp_mn)
+		{
+			index += (pools[poolIndex].mnpositions.length == 0) ? 0 : (pools[poolIndex].mnpositions.length - 1);
+		}
+
+		return index;
+	}
+
+	private void decodeOnDemand(final int poolIndex, final int kind, final int j, final int j2)
+    {
+	    ConstantPool pool = pools[poolIndex];
+	    ByteArrayPool baPool = null;
+	    BytecodeBuffer poolIn = null;
+	    int[] positions = null;
+	    int length = 0, endPos = 0;
+
+	    if (kind == cp_int)
+	    {
+		    positions = pool.intpositions;
+		    length = positions.length;
+		    endPos = pool.intEnd;
+		    baPool = intP;
+		    poolIn = pool.in;
+	    }
+	    else if (kind == cp_uint)
+	    {
+		    positions = pool.uintpositions;
+		    length = positions.length;
+		    endPos = pool.uintEnd;
+		    baPool = uintP;
+		    poolIn = pool.in;
+	    }
+	    else if (kind == cp_double)
+	    {
+		    positions = pool.doublepositions;
+		    length = positions.length;
+		    endPos = pool.doubleEnd;
+		    baPool = doubleP;
+		    poolIn = pool.in;
+	    }
+	    else if (kind == cp_decimal)
+	    {
+	    	assert(hasDecimal);
+		    positions = pool.decimalpositions;
+		    length = positions.length;
+		    endPos = pool.decimalEnd;
+		    baPool = decimalP;
+		    poolIn = pool.in;
+	    }
+	    else if (kind == cp_string)
+	    {
+		    positions = pool.strpositions;
+		    length = positions.length;
+		    endPos = pool.strEnd;
+		    baPool = stringP;
+		    poolIn = pool.in;
+	    }
+	    else if (kind == cp_ns)
+	    {
+		    positions = pool.nspositions;
+		    length = positions.length;
+		    endPos = pool.nsEnd;
+		    baPool = nsP;
+		    poolIn = pool.in;
+	    }
+	    else if (kind == cp_nsset)
+	    {
+		    positions = pool.nsspositions;
+		    length = positions.length;
+		    endPos = pool.nssEnd;
+		    baPool = nssP;
+		    poolIn = pool.in;
+	    }
+	    else if (kind == cp_mn)
+	    {
+		    positions = pool.mnpositions;
+		    length = positions.length;
+		    endPos = pool.mnEnd;
+		    baPool = mnP;
+		    poolIn = pool.in;
+	    }
+
+	    int start = positions[j];
+	    int end = (j != length - 1) ? positions[j + 1] : endPos;
+
+	    if (kind == cp_ns)
+	    {
+		    int pos = positions[j];
+		    int originalPos = poolIn.pos();
+		    poolIn.seek(pos);
+		    start = in_ns.size();
+		    int nsKind = poolIn.readU8();
+		    in_ns.writeU8(nsKind);
+		    switch (nsKind)
+		    {
+		    case CONSTANT_PrivateNamespace:
+                if( this.disableDebuggingInfo )
+                {
+                    in_ns.writeU32(0); // name not important for private namespace
+                    break;
+                }
+                // else fall through and treat like a normal namespace
+		    case CONSTANT_Namespace:
+            case CONSTANT_PackageNamespace:
+            case CONSTANT_PackageInternalNs:
+            case CONSTANT_ProtectedNamespace:
+            case CONSTANT_ExplicitNamespace:
+            case CONSTANT_StaticProtectedNs:				
+			    int index = poolIn.readU32();
+			    int newIndex = getIndex(poolIndex, cp_string, index);
+			    in_ns.writeU32(newIndex);
+			    break;
+		    default:
+			    assert false; // can't possibly happen...
+		    }
+            poolIn.seek(originalPos);
+            end = in_ns.size();
+            poolIn = in_ns;
+	    }
+	    else if (kind == cp_nsset)
+	    {
+		    int pos = positions[j];
+		    int originalPos = poolIn.pos();
+		    poolIn.seek(pos);
+		    start = in_nsset.size();
+
+		    /*
+		    nss.clear();
+		    int count = (int) poolIn.readU32();
+		    for (int k = 0; k < count; k++)
+		    {
+			    nss.add((int) poolIn.readU32());
+		    }
+		    count = nss.size();
+		    in5.writeU32(count);
+		    for (Iterator<Integer> k = nss.iterator(); k.hasNext();)
+		    {
+			    int index = k.next();
+			    int newIndex = getIndex(poolIndex, 4, index);
+			    in_nsset.writeU32(newIndex);
+		    }
+            */
+
+		    int count = poolIn.readU32();
+		    in_nsset.writeU32(count);
+		    for (int k = 0; k < count; k++)
+		    {
+			    int index = poolIn.readU32();
+			    int newIndex = getIndex(poolIndex, cp_ns, index);
+			    in_nsset.writeU32(newIndex);
+		    }
+
+		    poolIn.seek(originalPos);
+		    end = in_nsset.size();
+		    poolIn = in_nsset;
+	    }
+	    else if (kind == cp_mn)
+	    {
+		    int pos = positions[j];
+		    int originalPos = poolIn.pos();
+		    poolIn.seek(pos);
+		    start = in_mn.size();
+		    int constKind = poolIn.readU8();
+            if( !(constKind==CONSTANT_TypeName))
+                in_mn.writeU8(constKind);
+
+		    switch (constKind)
+		    {
+		    case CONSTANT_Qname:
+		    case CONSTANT_QnameA:
+		    {
+			    int namespaceIndex = poolIn.readU32();
+			    int newNamespaceIndex = getIndex(poolIndex, cp_ns, namespaceIndex);
+			    in_mn.writeU32(newNamespaceIndex);
+			    int nameIndex = poolIn.readU32();
+			    int newNameIndex = getIndex(poolIndex, cp_string, nameIndex);
+			    in_mn.writeU32(newNameIndex);
+			    break;
+		    }
+		    case CONSTANT_Multiname:
+		    case CONSTANT_MultinameA:
+		    {
+			    int nameIndex = poolIn.readU32();
+			    int newNameIndex = getIndex(poolIndex, cp_string, nameIndex);
+			    in_mn.writeU32(newNameIndex);
+			    int namespace_set = poolIn.readU32();
+			    int newNamespace_set = getIndex(poolIndex, cp_nsset, namespace_set);
+			    in_mn.writeU32(newNamespace_set);
+			    break;
+		    }
+		    case CONSTANT_RTQname:
+		    case CONSTANT_RTQnameA:
+		    {
+			    int index = poolIn.readU32();
+			    int newIndex = getIndex(poolIndex, cp_string, index);
+			    in_mn.writeU32(newIndex);
+			    break;
+		    }
+		    case CONSTANT_RTQnameL:
+		    case CONSTANT_RTQnameLA:
+				break;
+		    case CONSTANT_MultinameL:
+		    case CONSTANT_MultinameLA:
+			{
+				int namespace_set = poolIn.readU32();
+				int newNamespace_set = getIndex(poolIndex, cp_nsset, namespace_set);
+				in_mn.writeU32(newNamespace_set);
+				break;
+			}
+            case CONSTANT_TypeName:
+            {
+                int nameIndex = poolIn.readU32();
+                int newNameIndex = getIndex(poolIndex, cp_mn, nameIndex);
+                int count = poolIn.readU32();
+                IntList newParams = new IntList();
+                for( int i = 0; i<count;++i) {
+                    newParams.add(getIndex(poolIndex, cp_mn, poolIn.readU32()));
+                }
+                start = in_mn.size();
+                in_mn.writeU8(constKind);
+                in_mn.writeU32(newNameIndex);
+                in_mn.writeU32(count);
+                for( int i =0; i < count; ++i ) {
+                    in_mn.writeU32(newParams.at(i));
+                }
+				break;
+            }
+
+            default:
+			    assert false; // can't possibly happen...
+		    }
+
+		    poolIn.seek(originalPos);
+		    end = in_mn.size();
+		    poolIn = in_mn;
+	    }
+
+	    int newIndex = baPool.contains(poolIn, start, end);
+	    if (newIndex == -1)
+	    {
+		    newIndex = baPool.store(poolIn, start, end);
+	    }
+	    else
+	    {
+		    duplicate++;
+		    duplicateBytes += (end - start);
+	    }
+
+	    total++;
+	    totalBytes += (end - start);
+
+	    if (j != 0)
+	    {
+		    map[j2] = newIndex;
+	    }
+    }
+}
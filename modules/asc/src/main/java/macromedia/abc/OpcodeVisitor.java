@@ -19,7 +19,7 @@
 
 package macromedia.abc;
 
-public class OpcodeVisitor implements Visitor
+public class OpcodeVisitor implements Visitor // CodeOrchestra: made the exception and trait callbacks overridable
 {
 	public final void methodInfo(int returnType, int[] paramTypes, int nativeName, int flags, int[] values, int[] value_kinds, int[] param_names) {}
 	public final void metadataInfo(int index, int name, int[] keys, int[] values) {}
@@ -32,15 +32,15 @@ public class OpcodeVisitor implements Visitor
 	public final void startMethodBody(int methodInfo, int maxStack, int maxRegs, int scopeDepth, int maxScope, int codeStart, long codeLength) {}
 	public final void endMethodBody() {}
 	public final void startOpcodes(int methodInfo) {}
-	public final void endOpcodes() {}
-	public final void exception(long start, long end, long target, int type, int name) {}
+	public void endOpcodes() {}
+	public void exception(long start, long end, long target, int type, int name) {}
 	public final void startExceptions(int exceptionCount) {}
 	public final void endExceptions() {}
 	public final void traitCount(int traitCount) {}
-	public final void slotTrait(int kind, int name, int slotId, int type, int value, int value_kind, int[] metadata) {}
-	public final void methodTrait(int kind, int name, int dispId, int methodInfo, int[] metadata) {}
-	public final void classTrait(int kind, int name, int slotId, int classIndex, int[] metadata) {}
-	public final void functionTrait(int kind, int name, int slotId, int methodInfo, int[] metadata) {}
+	public void slotTrait(int kind, int name, int slotId, int type, int value, int value_kind, int[] metadata) {}
+	public void methodTrait(int kind, int name, int dispId, int methodInfo, int[] metadata) {}
+	public void classTrait(int kind, int name, int slotId, int classIndex, int[] metadata) {}
+	public void functionTrait(int kind, int name, int slotId, int methodInfo, int[] metadata) {}
 
 	public void target(int pos) {}
 	public void OP_returnvoid() {}
@@ -404,4 +404,9 @@ public class Node implements Serializable, Cloneable // CodeOrchestra: made seri
         return (Node) super.clone();
     }
 
+    // CodeOrchestra: added method, field-by-field copy regardless of the clone() overrides in subclasses
+    public final Node shallowClone() throws CloneNotSupportedException {
+        return (Node) super.clone();
+    }
+
 }
@@ -73,7 +73,8 @@ public final class Parser
     private static BitSet XMLTokenSet;
     private static BitSet StatementTokenSet;
     
-    private void init_BitSets() 
+    // CodeOrchestra: synchronized, the parsers may run on several threads
+    private static synchronized void init_BitSets()
     {
 	
     	if (XMLTokenSet != null)
@@ -182,7 +183,8 @@ public final class Parser
     	return StatementTokenSet.get(-id);
     }
     	
-    private void init_binary_precedence()
+    // CodeOrchestra: synchronized, the parsers may run on several threads
+    private static synchronized void init_binary_precedence()
     {
 
     	if ( binary_precedence != null )
@@ -4829,7 +4831,7 @@ XMLElementContent
         }
 
         // make sure that we check the include path trail. This is to stop infinite recursion.
-        if (ctx.statics.includePaths.contains(fixed_filespec))
+        if (ctx.includePaths().contains(fixed_filespec))
         {
             error(ParseError.syntax, kError_Parser_FileIncludesItself, fixed_filespec);
             try { in.close(); } catch (IOException ignored) {}
@@ -4838,7 +4840,7 @@ XMLElementContent
         else
         {
             // add the file name to the include path trail.
-            ctx.statics.includePaths.push_back(fixed_filespec);
+            ctx.includePaths().push_back(fixed_filespec);
         }
 
         // To get proper path resolution for included files inside of include directives,
@@ -4878,7 +4880,7 @@ XMLElementContent
     		{
     			ctx.setPath(oldCtxPathSpec);
     			// now we can remove the filename...
-    			ctx.statics.includePaths.removeLast();
+    			ctx.includePaths().removeLast();
     			if (in != null)
     			{
     				try { in.close(); } catch (IOException ignored) {}
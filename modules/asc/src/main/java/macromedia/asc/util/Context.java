@@ -31,6 +31,7 @@ import java.io.File;
 import java.io.PrintWriter;
 import java.io.Writer;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static macromedia.asc.embedding.avmplus.RuntimeConstants.*;
 import static macromedia.asc.parser.Tokens.*;
@@ -73,9 +74,13 @@ public final class Context implements ErrorConstants
     public Decimal128Context decimal_ctx;
     public int decimalParams;
 
-    private static int contextIds=0;
+    // CodeOrchestra: modified, contexts may be created by the parsers running on other threads
+    private static final AtomicInteger contextIds = new AtomicInteger();
     private int contextId;
 
+    // CodeOrchestra: added, see DetachedParse
+    private DetachedParse detached;
+
     private TreeMap<UnresolvedNamespace, ObjectList<ObjectValue>> unresolved_namespaces;
 	public ObjectList<Node>    comments = new ObjectList<>();
 	public boolean scriptAssistParsing = false;	// allows use of the Asc parser by flex-debugger
@@ -87,10 +92,11 @@ public final class Context implements ErrorConstants
         this.handler = null;
         this.qualified_origin = "";
         err = null;
-        contextId = contextIds++;
+        contextId = contextIds.getAndIncrement();
+        detached = DetachedParse.current();
         if (statics != null)
         {
-            if (statics.nodeFactory == null)
+            if (statics.nodeFactory == null && detached == null)
             {
                 statics.nodeFactory = new NodeFactory(this);
             }
@@ -115,6 +121,7 @@ public final class Context implements ErrorConstants
         this.handler = origCtx.handler;
         this.err = origCtx.err;
         this.contextId = origCtx.contextId;
+        this.detached = origCtx.detached;
         this.def_types = origCtx.def_types;
         this.input = origCtx.input;
         this.parser = origCtx.parser;
@@ -151,6 +158,7 @@ public final class Context implements ErrorConstants
         this.input = cx.input;
         this.statics = cx.statics;
         this.handler = cx.handler;
+        this.detached = cx.detached;
         //this.unresolved_namespaces = cx.unresolved_namespaces;
         // cn: don't loose new unresolved namespaces added while evaluating an include file's contents
         if (cx.unresolved_namespaces != null)
@@ -379,7 +387,7 @@ public final class Context implements ErrorConstants
 	    {
 		    missingHandler(filename, ln, col, msg, source);
 	    }
-	    ++statics.errCount;
+	    countError();
 	}
 
 	public void localizedWarning2(int pos, Object msg)
@@ -495,7 +503,7 @@ public final class Context implements ErrorConstants
         {
 	        missingHandler(filename, ln, col, msg, source);
         }
-        ++statics.errCount;
+        countError();
     }
 
     private void localizedWarning(String filename, int ln, int col, String msg, String source, int code)
@@ -787,7 +795,27 @@ public final class Context implements ErrorConstants
 
     public int errorCount()
     {
-        return statics.errCount;
+        DetachedParse detached = detached();
+        return detached != null ? detached.errCount : statics.errCount;
+    }
+
+    private void countError()
+    {
+        DetachedParse detached = detached();
+        if (detached != null)
+        {
+            ++detached.errCount;
+        }
+        else
+        {
+            ++statics.errCount;
+        }
+    }
+
+    // CodeOrchestra: added
+    private DetachedParse detached()
+    {
+        return detached != null && !detached.isAttached() ? detached : null;
     }
 
     private void pushStaticClassScopesHelper(TypeValue cframe)
@@ -898,26 +926,61 @@ public final class Context implements ErrorConstants
 
     public void setPath(String pathspec)
     {
+        DetachedParse detached = detached();
+        if (detached != null)
+        {
+            detached.pathspec = pathspec;
+            return;
+        }
         statics.pathspec = pathspec;
     }
 
     public String path()
     {
-        return statics.pathspec;
+        DetachedParse detached = detached();
+        return detached != null ? detached.pathspec : statics.pathspec;
     }
 
     public void setScriptName(String scriptname)
     {
+        DetachedParse detached = detached();
+        if (detached != null)
+        {
+            detached.scriptname = scriptname;
+            return;
+        }
         statics.scriptname = scriptname;
     }
 
     public String scriptName()
     {
-        return statics.scriptname;
+        DetachedParse detached = detached();
+        return detached != null ? detached.scriptname : statics.scriptname;
+    }
+
+    // CodeOrchestra: added
+    public ObjectList<String> includePaths()
+    {
+        DetachedParse detached = detached();
+        return detached != null ? detached.includePaths : statics.includePaths;
     }
 
     public NodeFactory getNodeFactory()
     {
+        DetachedParse detached = detached();
+        if (detached != null)
+        {
+            if (detached.nodeFactory == null)
+            {
+                detached.nodeFactory = new NodeFactory(this);
+            }
+            else
+            {
+                detached.nodeFactory.setContext(this);
+            }
+            return detached.nodeFactory;
+        }
+
         if (statics.nodeFactory == null)
         {
             statics.nodeFactory = new NodeFactory(this);
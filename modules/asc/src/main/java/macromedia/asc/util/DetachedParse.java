@@ -0,0 +1,73 @@
+package macromedia.asc.util;
+
+import macromedia.asc.embedding.ErrorConstants;
+import macromedia.asc.parser.NodeFactory;
+
+/**
+ * CodeOrchestra: added
+ * <p/>
+ * Parsing of a source off the compiler thread. The contexts created on a thread between {@link #begin()}
+ * and {@link #end()} keep the per-file parser state (node factory, path, script name, include trail and
+ * error count) here instead of the shared {@link ContextStatics}. Once the compiler thread picks the
+ * syntax tree up, {@link #attach(ContextStatics)} makes the contexts use the shared statics again.
+ * <p/>
+ * The lazily created shared values the parser relies on (noType(), intType(), the error messages) must be
+ * initialized before the first detached parse starts, see {@link #prepare(Context)}.
+ */
+public final class DetachedParse
+{
+    private static final ThreadLocal<DetachedParse> current = new ThreadLocal<>();
+
+    NodeFactory nodeFactory;
+    String pathspec;
+    String scriptname;
+    final ObjectList<String> includePaths = new ObjectList<>();
+    int errCount;
+
+    private volatile boolean attached;
+
+    private DetachedParse()
+    {
+    }
+
+    public static DetachedParse begin()
+    {
+        DetachedParse parse = new DetachedParse();
+        current.set(parse);
+        return parse;
+    }
+
+    public static void end()
+    {
+        current.remove();
+    }
+
+    static DetachedParse current()
+    {
+        return current.get();
+    }
+
+    /**
+     * To be called on the compiler thread before any detached parse of the compilation
+     */
+    public static void prepare(Context cx)
+    {
+        cx.noType();
+        cx.intType();
+        cx.errorString(ErrorConstants.kError_Parser_DefinitionOrDirectiveExpected);
+    }
+
+    boolean isAttached()
+    {
+        return attached;
+    }
+
+    /**
+     * To be called on the compiler thread, the errors of the parse are added to the shared count
+     */
+    public void attach(ContextStatics statics)
+    {
+        attached = true;
+        statics.errCount += errCount;
+    }
+}
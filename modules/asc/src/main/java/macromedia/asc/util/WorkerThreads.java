@@ -0,0 +1,62 @@
+package macromedia.asc.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CodeOrchestra: added
+ * <p/>
+ * The bounded pool of worker threads, <code>-Dflex2.compiler.threads=N</code> (N &gt; 1 enables it). It is
+ * shared by the compiler (flex2.compiler.util.WorkerPool, which adds the ThreadLocalToolkit hand-off) and
+ * the abc optimizer (adobe.abc.GlobalOptimizer), asc being the module both of them see. A task must not
+ * wait for other tasks of the pool.
+ */
+public final class WorkerThreads
+{
+    private static volatile int threadCount = Integer.getInteger("flex2.compiler.threads", 1);
+    private static ExecutorService executor;
+
+    private WorkerThreads()
+    {
+    }
+
+    public static boolean isEnabled()
+    {
+        return threadCount > 1;
+    }
+
+    public static int getThreadCount()
+    {
+        return threadCount;
+    }
+
+    /**
+     * Overrides <code>-Dflex2.compiler.threads</code>, for the tools embedding the compiler and the tests.
+     * The threads of the previous pool finish their tasks and stop.
+     */
+    public static synchronized void setThreadCount(int count)
+    {
+        threadCount = count;
+        if (executor != null)
+        {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    public static synchronized ExecutorService getExecutor()
+    {
+        if (executor == null)
+        {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(Math.max(threadCount, 1), r ->
+            {
+                Thread thread = new Thread(r, "flex2-compiler-worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,145 @@
+package adobe.abc;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import macromedia.asc.embedding.ConfigVar;
+import macromedia.asc.embedding.Main;
+import macromedia.asc.util.ObjectList;
+import macromedia.asc.util.WorkerThreads;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class GlobalOptimizerTest extends TestCase
+{
+	private static final String BUILTIN =
+		"package {\n" +
+		"public dynamic class Object { public function Object() {} }\n" +
+		"public final class Class {}\n" +
+		"public final dynamic class Function {}\n" +
+		"public final class Namespace {}\n" +
+		"public final class Boolean {}\n" +
+		"public final class Number {}\n" +
+		"public final class int {}\n" +
+		"public final class uint {}\n" +
+		"public final class String { public function get length():int { return 0; } }\n" +
+		"public dynamic class Array {}\n" +
+		"public final class QName {}\n" +
+		"public final class XML {}\n" +
+		"public final class XMLList {}\n" +
+		"public final class RegExp {}\n" +
+		"}\n";
+
+	private static byte[] abc;
+
+	private int threadCount;
+	private PrintStream out;
+	private PrintStream err;
+
+	public GlobalOptimizerTest(String name)
+	{
+		super(name);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(GlobalOptimizerTest.class);
+	}
+
+	protected void setUp() throws Exception
+	{
+		threadCount = WorkerThreads.getThreadCount();
+		out = System.out;
+		err = System.err;
+		System.setOut(quiet());
+		System.setErr(quiet());
+		if (abc == null)
+		{
+			abc = compile();
+		}
+	}
+
+	protected void tearDown() throws Exception
+	{
+		WorkerThreads.setThreadCount(threadCount);
+		System.setOut(out);
+		System.setErr(err);
+	}
+
+	public void testConcurrentOptimizationIsSerialOptimization() throws Exception
+	{
+		byte[] serial = optimize(1);
+		assertTrue(serial.length > 0);
+
+		for (int threads : new int[]{2, 8})
+		{
+			assertTrue(Arrays.equals(serial, optimize(threads)));
+		}
+	}
+
+	private static byte[] optimize(int threads) throws Exception
+	{
+		WorkerThreads.setThreadCount(threads);
+		return GlobalOptimizer.optimize(abc, "S.abc", new ObjectList<ConfigVar>(), new ObjectList<String>());
+	}
+
+	/**
+	 * Compiles classes whose methods create closures, so that the methods are optimized in several waves.
+	 * The builtins go in the same file, asc's Main keeps the imports of its previous runs.
+	 */
+	private static byte[] compile() throws Exception
+	{
+		StringBuilder source = new StringBuilder(BUILTIN);
+		for (int c = 0; c < 8; c++)
+		{
+			source.append("package { public class C").append(c).append(" { public var x:int = ").append(c).append("; ");
+			for (int m = 0; m < 4; m++)
+			{
+				source.append("public function m").append(m).append("(a:int, s:String):int { ")
+				      .append("var t:int = a * ").append(m + 1).append("; ")
+				      .append("var f:Function = function(q:int):int { return q + t + ").append(c).append("; }; ")
+				      .append("for (var i:int = 0; i < a; i++) { if (i % ").append(m + 2)
+				      .append(" == 0) t += i; else t -= s.length; } ")
+				      .append("return f(t) + x; } ");
+			}
+			source.append("} }\n");
+		}
+
+		File directory = Files.createTempDirectory("optimizer").toFile();
+		try
+		{
+			File file = new File(directory, "S.as");
+			Files.write(file.toPath(), source.toString().getBytes(StandardCharsets.UTF_8));
+			Main.main(new String[]{file.getPath()});
+			return Files.readAllBytes(new File(directory, "S.abc").toPath());
+		}
+		finally
+		{
+			File[] files = directory.listFiles();
+			if (files != null)
+			{
+				for (File file : files)
+				{
+					file.delete();
+				}
+			}
+			directory.delete();
+		}
+	}
+
+	// asc reports the .abc files it writes, the optimizer the sizes before and after
+	private static PrintStream quiet()
+	{
+		return new PrintStream(new OutputStream()
+		{
+			public void write(int b)
+			{
+			}
+		});
+	}
+}
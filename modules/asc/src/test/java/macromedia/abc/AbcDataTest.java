@@ -0,0 +1,269 @@
+package macromedia.abc;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import macromedia.asc.embedding.Main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class AbcDataTest extends TestCase
+{
+	private static final String BUILTIN =
+		"package {\n" +
+		"public dynamic class Object { public function Object() {} }\n" +
+		"public final class Class {}\n" +
+		"public final dynamic class Function {}\n" +
+		"public final class Namespace {}\n" +
+		"public final class Boolean {}\n" +
+		"public final class Number {}\n" +
+		"public final class int {}\n" +
+		"public final class uint {}\n" +
+		"public final class String { public function get length():int { return 0; } }\n" +
+		"public dynamic class Array {}\n" +
+		"public final class QName {}\n" +
+		"public final class XML {}\n" +
+		"public final class XMLList {}\n" +
+		"public final class RegExp {}\n" +
+		"}\n";
+
+	private static final String A =
+		"package a {\n" +
+		"public class A {\n" +
+		"  public var x:int = 1;\n" +
+		"  public function f(count:int, separator:String = \",\"):String {\n" +
+		"    var s:String = \"begin\";\n" +
+		"    for (var i:int = 0; i < count; i++) { s += separator + i * x; }\n" +
+		"    return s + \"end\";\n" +
+		"  }\n" +
+		"  public static function g(o:Object):Boolean { return o is A; }\n" +
+		"  protected function h(s:String):int { return s.length; }\n" +
+		"}\n" +
+		"}\n";
+
+	private static byte[] abc;
+
+	private PrintStream out;
+	private PrintStream err;
+
+	public AbcDataTest(String name)
+	{
+		super(name);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(AbcDataTest.class);
+	}
+
+	protected void setUp() throws Exception
+	{
+		out = System.out;
+		err = System.err;
+		System.setOut(quiet());
+		System.setErr(quiet());
+		if (abc == null)
+		{
+			abc = compile();
+		}
+	}
+
+	protected void tearDown() throws Exception
+	{
+		System.setOut(out);
+		System.setErr(err);
+	}
+
+	public void testReadOnDemand() throws Exception
+	{
+		AbcData data = read();
+		List<String> strings = Arrays.asList(strings(data));
+
+		assertTrue(strings.contains("a"));
+		assertTrue(strings.contains("A"));
+		assertTrue(strings.contains("begin"));
+		assertTrue(strings.contains("end"));
+		assertTrue(strings.contains(","));
+
+		// reading the entries in any order doesn't disturb each other
+		AbcData reversed = read();
+		int names = length(reversed, "nameData");
+		int methods = length(reversed, "methods");
+		for (int i = Math.max(names, methods) - 1; i >= 0; i--)
+		{
+			if (i < methods)
+			{
+				describe(reversed.getMethod(i));
+			}
+			if (i > 0 && i < names)
+			{
+				describe(reversed.getName(i));
+			}
+		}
+		assertEquals(describe(data), describe(reversed));
+	}
+
+	public void testConcurrentReads() throws Exception
+	{
+		final String expected = describe(read());
+		final AbcData data = read();
+		final String[] results = new String[8];
+
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < results.length; t++)
+		{
+			final int index = t;
+			Thread thread = new Thread(() -> results[index] = describe(data));
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		for (String result : results)
+		{
+			assertEquals(expected, result);
+		}
+	}
+
+	public void testSerializationReadsEverything() throws Exception
+	{
+		AbcData data = read();
+		ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream());
+		data.writeExternal(out);
+		out.close();
+
+		String[] expected = strings(read());
+		for (int i = 0; i < expected.length; i++)
+		{
+			assertEquals(expected[i], data.strings[i]);
+		}
+		// writeExternal() decodes every method and name
+		assertTrue(!Arrays.asList(fieldValue(data, "methods")).contains(null));
+		// every name but the unused name 0
+		assertEquals(0, Arrays.asList(fieldValue(data, "nameData")).lastIndexOf(null));
+	}
+
+	private static AbcData read()
+	{
+		AbcData data = new AbcData("A.as");
+		data.readAbc(abc);
+		return data;
+	}
+
+	private static String[] strings(AbcData data)
+	{
+		String[] result = new String[data.strings.length];
+		for (int i = 0; i < result.length; i++)
+		{
+			result[i] = data.getString(i);
+		}
+		return result;
+	}
+
+	private static String describe(AbcData data)
+	{
+		try
+		{
+			StringBuilder sb = new StringBuilder();
+			sb.append(Arrays.toString(strings(data))).append('\n');
+			for (int i = 1; i < length(data, "nameData"); i++)
+			{
+				sb.append(describe(data.getName(i))).append('\n');
+			}
+			for (int i = 0; i < length(data, "methods"); i++)
+			{
+				sb.append(describe(data.getMethod(i))).append('\n');
+			}
+			return sb.toString();
+		}
+		catch (Exception e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static String describe(AbcData.BinaryMN name)
+	{
+		return name.kind + " " + name.nameID + " " + name.nsID + " " + name.nsIsSet + " " + name.baseMN + " " +
+		       Arrays.toString(name.params);
+	}
+
+	private static String describe(AbcData.Method method)
+	{
+		return method.getNameIndex() + " " + method.getReturnType() + " " + Arrays.toString(method.getParamTypes()) +
+		       " " + method.getFlags() + " " + Arrays.toString(method.getOptionalParamTypes()) + " " +
+		       Arrays.toString(method.getOptionalParamKinds()) + " " +
+		       (method.getHasParamNames() ? Arrays.toString(method.getParamNames()) : "");
+	}
+
+	private static int length(AbcData data, String array) throws Exception
+	{
+		return fieldValue(data, array).length;
+	}
+
+	private static Object[] fieldValue(AbcData data, String array) throws Exception
+	{
+		Field field = AbcData.class.getDeclaredField(array);
+		field.setAccessible(true);
+		return (Object[]) field.get(data);
+	}
+
+	/**
+	 * Compiles class A with asc. The builtins go in the same file, asc's Main keeps the imports of its previous
+	 * runs.
+	 */
+	private static byte[] compile() throws Exception
+	{
+		File directory = Files.createTempDirectory("abcdata").toFile();
+		try
+		{
+			File a = write(directory, "A.as", BUILTIN + A);
+			Main.main(new String[]{a.getPath()});
+			return Files.readAllBytes(new File(directory, "A.abc").toPath());
+		}
+		finally
+		{
+			File[] files = directory.listFiles();
+			if (files != null)
+			{
+				for (File file : files)
+				{
+					file.delete();
+				}
+			}
+			directory.delete();
+		}
+	}
+
+	private static File write(File directory, String name, String content) throws IOException
+	{
+		File file = new File(directory, name);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	// asc reports the .abc files it writes
+	private static PrintStream quiet()
+	{
+		return new PrintStream(new OutputStream()
+		{
+			public void write(int b)
+			{
+			}
+		});
+	}
+}
@@ -0,0 +1,126 @@
+package macromedia.abc;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ByteArrayPoolTest extends TestCase
+{
+	private static final int COUNT = 1000;
+
+	public ByteArrayPoolTest(String name)
+	{
+		super(name);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(ByteArrayPoolTest.class);
+	}
+
+	public void testStoreAndContains()
+	{
+		BytecodeBuffer b = new BytecodeBuffer(COUNT * 8);
+		int[] starts = writeStrings(b, "s");
+		ByteArrayPool pool = new ByteArrayPool();
+
+		for (int i = 0; i < COUNT; i++)
+		{
+			assertEquals(-1, pool.contains(b, starts[i], starts[i + 1]));
+			assertEquals(i + 1, pool.store(b, starts[i], starts[i + 1]));
+		}
+		assertEquals(COUNT, pool.count());
+
+		// the same bytes at another position of another buffer
+		BytecodeBuffer other = new BytecodeBuffer(COUNT * 8);
+		int[] otherStarts = writeStrings(other, "s");
+		for (int i = 0; i < COUNT; i++)
+		{
+			assertEquals(i + 1, pool.contains(other, otherStarts[i], otherStarts[i + 1]));
+			ByteArray a = pool.get(i + 1);
+			assertEquals(starts[i], a.start);
+			assertEquals(starts[i + 1], a.end);
+		}
+
+		BytecodeBuffer missing = new BytecodeBuffer(COUNT * 8);
+		int[] missingStarts = writeStrings(missing, "t");
+		for (int i = 0; i < COUNT; i++)
+		{
+			assertEquals(-1, pool.contains(missing, missingStarts[i], missingStarts[i + 1]));
+		}
+	}
+
+	public void testWriteTo()
+	{
+		BytecodeBuffer b = new BytecodeBuffer(COUNT * 8);
+		int[] starts = writeStrings(b, "s");
+		ByteArrayPool pool = new ByteArrayPool();
+
+		BytecodeBuffer empty = new BytecodeBuffer(16);
+		pool.writeTo(empty);
+		assertEquals(1, empty.size());
+		assertEquals(0, empty.readU32());
+
+		for (int i = 0; i < COUNT; i++)
+		{
+			pool.store(b, starts[i], starts[i + 1]);
+		}
+
+		// the entries in the order of their indices, after the count of the pool
+		BytecodeBuffer out = new BytecodeBuffer(COUNT * 8);
+		pool.writeTo(out);
+		assertEquals(COUNT + 1, out.readU32());
+		int offset = out.pos();
+		assertTrue(out.same(b, offset, out.size(), 0, b.size()));
+	}
+
+	public void testClear()
+	{
+		BytecodeBuffer b = new BytecodeBuffer(COUNT * 8);
+		int[] starts = writeStrings(b, "s");
+		ByteArrayPool pool = new ByteArrayPool();
+
+		for (int i = 0; i < COUNT; i++)
+		{
+			pool.store(b, starts[i], starts[i + 1]);
+		}
+		pool.clear();
+
+		assertEquals(0, pool.count());
+		assertEquals(COUNT, pool.wrappers.size());
+		for (int i = 0; i < COUNT; i++)
+		{
+			assertEquals(-1, pool.contains(b, starts[i], starts[i + 1]));
+		}
+
+		// the wrappers are reused, from the last index down
+		for (int i = COUNT - 1; i >= 0; i--)
+		{
+			assertEquals(COUNT - i, pool.store(b, starts[i], starts[i + 1]));
+			assertEquals(COUNT - i, pool.contains(b, starts[i], starts[i + 1]));
+		}
+		assertEquals(0, pool.wrappers.size());
+	}
+
+	/**
+	 * Writes COUNT strings the way a string pool does
+	 *
+	 * @return the start of each string, and the end of the last one
+	 */
+	private static int[] writeStrings(BytecodeBuffer b, String prefix)
+	{
+		int[] starts = new int[COUNT + 1];
+		for (int i = 0; i < COUNT; i++)
+		{
+			starts[i] = b.size();
+			String s = prefix + i;
+			b.writeU32(s.length());
+			for (int j = 0; j < s.length(); j++)
+			{
+				b.writeU8(s.charAt(j));
+			}
+		}
+		starts[COUNT] = b.size();
+		return starts;
+	}
+}
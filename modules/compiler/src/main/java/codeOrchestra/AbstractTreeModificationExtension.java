@@ -2,6 +2,7 @@ package codeOrchestra;
 
 import codeOrchestra.digest.DigestManager;
 import codeOrchestra.digest.IMember;
+import codeOrchestra.profiling.LiveCodingTimings;
 import codeOrchestra.tree.*;
 import codeOrchestra.util.InsertPosition;
 import codeOrchestra.util.StringUtils;
@@ -14,7 +15,6 @@ import macromedia.asc.parser.*;
 import macromedia.asc.semantics.Value;
 import macromedia.asc.util.Context;
 import macromedia.asc.util.ObjectList;
-import org.apache.commons.lang3.SerializationUtils;
 
 import java.util.*;
 
@@ -49,11 +49,13 @@ public abstract class AbstractTreeModificationExtension implements Extension {
             return;
         }
 
+        long started = LiveCodingTimings.start();
         projectNavigator = new ProjectNavigator();
 
-        for (Map.Entry<String, ProgramNode> programNodeInfo : LastASTHolder.getInstance().getProgramNodes().entrySet()) {
-            projectNavigator.add(programNodeInfo.getKey(), programNodeInfo.getValue());
+        for (ASTSnapshot snapshot : LastASTHolder.getInstance().getSnapshots().values()) {
+            projectNavigator.add(snapshot);
         }
+        LiveCodingTimings.stop(LiveCodingTimings.LOAD_SYNTAX_TREES, started);
     }
 
     protected abstract void performModifications(CompilationUnit unit);
@@ -85,6 +87,8 @@ public abstract class AbstractTreeModificationExtension implements Extension {
         if (!Fcsh.livecodingBaseMode) {
             return;
         }
+        // Normally done by the compiler right after parse1 of the batch
+        ParallelModifications.await();
         traceStep("parse2", unit.getSource().getRawLocation());
     }
 
@@ -247,7 +251,7 @@ public abstract class AbstractTreeModificationExtension implements Extension {
         ParameterListNode parameters = functionDefinitionNode.fexpr.signature.parameter;
         if (parameters != null) {
             for (ParameterNode parameterNode : parameters.items) {
-                Node initializer = SerializationUtils.clone(parameterNode.init);
+                Node initializer = TreeCopier.copy(parameterNode.init);
 
                 if (initializer != null && initializer instanceof MemberExpressionNode) {
                    MemberExpressionNode initializerMemberExpression = (MemberExpressionNode) initializer;
@@ -259,7 +263,7 @@ public abstract class AbstractTreeModificationExtension implements Extension {
 
                            VariableBindingNode fieldDefinition = TreeNavigator.getFieldDefinition(constantName, parentClass);
                            if (fieldDefinition != null && fieldDefinition.initializer != null) {
-                               initializer = SerializationUtils.clone(fieldDefinition.initializer);
+                               initializer = TreeCopier.copy(fieldDefinition.initializer);
                            }
                        }
                    }
@@ -464,7 +468,7 @@ public abstract class AbstractTreeModificationExtension implements Extension {
         }
         for (Node classStatement : parentClass.statements.items) {
             if (classStatement instanceof NamespaceDefinitionNode) {
-                NamespaceDefinitionNode namespaceDefinitionNode = (NamespaceDefinitionNode) SerializationUtils.clone(classStatement);
+                NamespaceDefinitionNode namespaceDefinitionNode = (NamespaceDefinitionNode) TreeCopier.copy(classStatement);
                 namespaceDefinitionNode.pkgdef = classDefinitionNode.pkgdef;
                 classDefinitionNode.statements.items.add(namespaceDefinitionNode);
                 namespaces.add(namespaceDefinitionNode.name.name);
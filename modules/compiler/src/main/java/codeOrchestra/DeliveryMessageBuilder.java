@@ -1,10 +1,11 @@
 package codeOrchestra;
 
+import codeOrchestra.delivery.MethodUpdate;
 import codeOrchestra.tree.TreeNavigator;
 import macromedia.asc.parser.ClassDefinitionNode;
 import macromedia.asc.parser.FunctionDefinitionNode;
 
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -25,41 +26,35 @@ public class DeliveryMessageBuilder {
         this.classDefinitionNode = classDefinitionNode;
     }
 
-    public String build() {
-        StringBuilder sb = new StringBuilder();
+    public List<MethodUpdate> build() {
+        List<MethodUpdate> updates = new ArrayList<>();
 
-        Iterator<FunctionDefinitionNode> iterator = definitionNodes.iterator();
-        while (iterator.hasNext()) {
-            FunctionDefinitionNode functionDefinitionNode = iterator.next();
+        for (FunctionDefinitionNode functionDefinitionNode : definitionNodes) {
             String deliveryClassName = functionToClassNames.get(functionDefinitionNode);
 
-            sb.append("method").append(":");
-            sb.append("codeOrchestra.liveCoding.load.").append(deliveryClassName).append(":");
-            sb.append(fqName).append(":");
-            sb.append(functionDefinitionNode.name.identifier.name).append(":");
-            sb.append(LiveCodingUtil.constructLiveCodingMethodId(functionDefinitionNode, shortNameFromLongName(fqName))).append(":");
-            sb.append(TreeNavigator.isStaticMethod(functionDefinitionNode) ? "1" : "0").append(":");
-
             // TODO: add static initializer support
+            int kind;
             if (TreeNavigator.isSetter(functionDefinitionNode)) {
-                sb.append("2");
+                kind = MethodUpdate.KIND_SETTER;
             } else if (TreeNavigator.isGetter(functionDefinitionNode)) {
-                sb.append("3");
+                kind = MethodUpdate.KIND_GETTER;
             } else if (TreeNavigator.isConstructor(functionDefinitionNode, classDefinitionNode)) {
-                sb.append("4");
+                kind = MethodUpdate.KIND_CONSTRUCTOR;
             } else {
-                sb.append("1");
+                kind = MethodUpdate.KIND_METHOD;
             }
-            sb.append(":");
-
-            sb.append(LCIncrementalExtension.lastCompilationStartTime);
 
-            if (iterator.hasNext()) {
-                sb.append("|");
-            }
+            updates.add(new MethodUpdate(
+                    "codeOrchestra.liveCoding.load." + deliveryClassName,
+                    fqName,
+                    functionDefinitionNode.name.identifier.name,
+                    LiveCodingUtil.constructLiveCodingMethodId(functionDefinitionNode, shortNameFromLongName(fqName)),
+                    TreeNavigator.isStaticMethod(functionDefinitionNode),
+                    kind
+            ));
         }
 
-        return sb.toString();
+        return updates;
     }
 
     private static String shortNameFromLongName(String fqName) {
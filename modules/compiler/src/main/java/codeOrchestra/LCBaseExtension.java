@@ -1,6 +1,7 @@
 package codeOrchestra;
 
 import codeOrchestra.digest.*;
+import codeOrchestra.profiling.LiveCodingTimings;
 import codeOrchestra.tree.*;
 import codeOrchestra.util.StringUtils;
 import flex2.compiler.CompilationUnit;
@@ -10,6 +11,7 @@ import macromedia.asc.parser.*;
 import macromedia.asc.util.Context;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Anton.I.Neverov
@@ -20,7 +22,8 @@ public class LCBaseExtension extends AbstractTreeModificationExtension {
     private boolean mainClassPicked;
 
     private final CompilerConfiguration compilerConfig;
-    private Map<String, String> modelDependenciesUnits = new HashMap<>();
+    // Read by the concurrent modifications, see ParallelModifications
+    private Map<String, String> modelDependenciesUnits = new ConcurrentHashMap<>();
     private boolean liveCodingStarterAdded;
 
     public LCBaseExtension(CompilerConfiguration compilerConfig) {
@@ -52,14 +55,33 @@ public class LCBaseExtension extends AbstractTreeModificationExtension {
         }
 
         String packageName = classDefinitionNode.pkgdef.name.id.pkg_part;
-        String className = classDefinitionNode.name.name;
-        String classFqName = StringUtils.longNameFromNamespaceAndShortName(packageName, className);
 
         if (!modelDependenciesUnits.keySet().contains(packageName) && !ProvidedPackages.isProvidedPackage(packageName)) {
             String mdClassName = addModelDependenciesUnit(packageName, classDefinitionNode.cx);
             modelDependenciesUnits.put(packageName, mdClassName);
         }
 
+        // The first processed class starts the session
+        boolean addLiveCodingStarter = !liveCodingStarterAdded;
+        if (addLiveCodingStarter) {
+            addLiveCodingStarterUnit(packageName, classDefinitionNode.cx);
+            liveCodingStarterAdded = true;
+        }
+
+        // Everything below only changes the class itself, see ParallelModifications
+        if (ParallelModifications.isEnabled()) {
+            ParallelModifications.submit(unit, () -> modifyClass(unit, classDefinitionNode, addLiveCodingStarter));
+        } else {
+            modifyClass(unit, classDefinitionNode, addLiveCodingStarter);
+        }
+    }
+
+    private void modifyClass(CompilationUnit unit, ClassDefinitionNode classDefinitionNode, boolean addLiveCodingStarter) {
+        long started = LiveCodingTimings.start();
+        String packageName = classDefinitionNode.pkgdef.name.id.pkg_part;
+        String className = classDefinitionNode.name.name;
+        String classFqName = StringUtils.longNameFromNamespaceAndShortName(packageName, className);
+
         // COLT-215 - create the initLiveMethod anyway (even if the class is not live)
         // COLT-73
         String initMethodName = "initLiveMethod_" + className;
@@ -161,10 +183,8 @@ public class LCBaseExtension extends AbstractTreeModificationExtension {
             }
         }
 
-        if (!liveCodingStarterAdded) {
+        if (addLiveCodingStarter) {
             initMethodNode.fexpr.body.items.add(new ExpressionStatementNode(new ListNode(null, TreeUtil.createCall("LiveCodingSessionStarter", "start", null), -1)));
-            addLiveCodingStarterUnit(packageName, classDefinitionNode.cx);
-            liveCodingStarterAdded = true;
         }
         initMethodNode.fexpr.body.items.add(new ReturnStatementNode(new LiteralNumberNode("1")));
         classDefinitionNode.statements.items.add(initMethodNode);
@@ -177,6 +197,8 @@ public class LCBaseExtension extends AbstractTreeModificationExtension {
         classDefinitionNode.statements.items.add(0, variableDefinitionNode);
 //        classDefinitionNode.statements.items.add(0, new ExpressionStatementNode(new ListNode(null, new MemberExpressionNode(null, new SetExpressionNode(TreeUtil.createIdentifier("_liveCodingClassParam"), new ArgumentListNode(TreeUtil.createIdentifier(className), -1))), -1), -1));
         classDefinitionNode.statements.items.add(0, TreeUtil.createExpressionStatement(TreeUtil.createAssignmentExpression(null, new IdentifierNode("_liveCodingClassParam", -1), new ArgumentListNode(TreeUtil.createIdentifier(className), -1))));
+
+        LiveCodingTimings.stop(LiveCodingTimings.LIVE_CLASS_GENERATION, started);
     }
 
     private void processProtectedField(IMember member, ClassDefinitionNode classDefinitionNode) {
@@ -1,18 +1,22 @@
 package codeOrchestra;
 
+import codeOrchestra.delivery.DeliveryChannel;
 import codeOrchestra.digest.*;
 import codeOrchestra.digest.impl.SourceClassDigest;
 import codeOrchestra.digest.impl.SourceMember;
+import codeOrchestra.profiling.LiveCodingTimings;
+import codeOrchestra.tree.LastASTHolder;
+import codeOrchestra.tree.TreeCopier;
 import codeOrchestra.tree.TreeNavigator;
 import codeOrchestra.tree.TreeUtil;
 import codeOrchestra.tree.visitor.NodeVisitor;
 import codeOrchestra.tree.visitor.NodeVisitorFactory;
+import codeOrchestra.tree.visitor.TreeFingerprint;
 import codeOrchestra.util.ObjectUtils;
 import codeOrchestra.util.Pair;
 import flex2.compiler.CompilationUnit;
 import macromedia.asc.parser.*;
 import macromedia.asc.util.ObjectList;
-import org.apache.commons.lang3.SerializationUtils;
 
 import java.util.*;
 
@@ -24,17 +28,13 @@ public class LCIncrementalExtension extends AbstractTreeModificationExtension {
 
     public static long lastCompilationStartTime;
 
-    private final String initialClassName;
-    private final String initialPackageName;
-
-    public LCIncrementalExtension(String fqClassName) {
-        if (fqClassName.contains(":")) {
-            String[] parts = fqClassName.split(":");
-            initialPackageName = parts[0];
-            initialClassName = parts[1];
-        } else {
-            initialPackageName = "";
-            initialClassName = fqClassName;
+    // Fq names (dot-separated) of the classes changed since the previous compile
+    private final Set<String> changedClassNames = new HashSet<>();
+
+    public LCIncrementalExtension(Collection<String> fqClassNames) {
+        for (String fqClassName : fqClassNames) {
+            // "package:Class" or "package.Class"
+            changedClassNames.add(fqClassName.replace(':', '.'));
         }
     }
 
@@ -47,7 +47,7 @@ public class LCIncrementalExtension extends AbstractTreeModificationExtension {
 
         String className = modifiedClass.name.name;
         String fqName = TreeUtil.getFqName(modifiedClass);
-        if (!(initialPackageName.equals(modifiedClass.pkgdef.name.id.pkg_part) && initialClassName.equals(className))) {
+        if (!changedClassNames.contains(fqName)) {
             return;
         }
 
@@ -65,16 +65,22 @@ public class LCIncrementalExtension extends AbstractTreeModificationExtension {
         // COLT-171
         if (originalClass == null) {
             // New class is added
+            long started = LiveCodingTimings.start();
             SourceClassDigest classDigest = DigestManager.getInstance().addToDigestUnresolved(modifiedClass);
             classDigest.resolve();
+            LiveCodingTimings.stop(LiveCodingTimings.DIGEST_RESOLUTION, started);
             return;
         }
 
         ArrayList<String> liveCodingClassNames = new ArrayList<>();
         Map<FunctionDefinitionNode, String> functionToClassNames = new HashMap<>();
 
+        long diffStarted = LiveCodingTimings.start();
         List<FunctionDefinitionNode> changedMethods = findChangedMethods(originalClass, modifiedClass);
         List<VariableBindingNode> newFields = findNewFields(originalClass, modifiedClass);
+        LiveCodingTimings.stop(LiveCodingTimings.TREE_DIFF, diffStarted);
+
+        long generationStarted = LiveCodingTimings.start();
         if (!newFields.isEmpty()) {
             FunctionDefinitionNode liveCodingInitializerMethod = addLiveInitializerMethod(modifiedClass, true, null);
             liveCodingInitializerMethod.fexpr.body.items = new ObjectList<Node>();
@@ -84,7 +90,7 @@ public class LCIncrementalExtension extends AbstractTreeModificationExtension {
             classDigest.getAllMembers().stream().filter(member -> member.getKind() == MemberKind.FIELD && member.isAddedDuringProcessing()).forEach(member -> {
                 VariableBindingNode addedField = TreeNavigator.getFieldDefinition(member.getName(), modifiedClass);
                 if (addedField.initializer != null) {
-                    Node initializerClone = SerializationUtils.clone(addedField.initializer);
+                    Node initializerClone = TreeCopier.copy(addedField.initializer);
                     liveInitBody.add(
                             TreeUtil.createExpressionStatement(
                                     TreeUtil.createAssignmentExpression(
@@ -108,8 +114,10 @@ public class LCIncrementalExtension extends AbstractTreeModificationExtension {
             constructor.fexpr.body.items.add(new ExpressionStatementNode(new ListNode(null, TreeUtil.createIdentifier(liveCodingClassName), -1)));
             TreeUtil.addImport(unit, "codeOrchestra.liveCoding.load", liveCodingClassName);
         }
+        LiveCodingTimings.stop(LiveCodingTimings.LIVE_CLASS_GENERATION, generationStarted);
 
-        System.out.println("Delivery Message: [" + new DeliveryMessageBuilder(fqName, changedMethods, functionToClassNames, modifiedClass).build() + "]");
+        // Sent as one message with the other classes of the burst, see Fcsh
+        DeliveryChannel.getInstance().add(new DeliveryMessageBuilder(fqName, changedMethods, functionToClassNames, modifiedClass).build());
     }
 
     private List<VariableBindingNode> findNewFields(ClassDefinitionNode originalClass, ClassDefinitionNode modifiedClass) {
@@ -143,6 +151,7 @@ public class LCIncrementalExtension extends AbstractTreeModificationExtension {
                     if (!membersList.contains(newMember)) {
                         membersList.add(newMember);
                         newMember.resolve((ITypeResolver) classDigest);
+                        DigestManager.getInstance().classDigestChanged(classDigest.getFqName());
                     }
 
                     result.add(modifiedField.getO2());
@@ -162,6 +171,8 @@ public class LCIncrementalExtension extends AbstractTreeModificationExtension {
         List<FunctionDefinitionNode> originalMethodDefinitions = TreeNavigator.getMethodDefinitions(originalClass);
         List<FunctionDefinitionNode> modifiedMethodDefinitions = TreeNavigator.getMethodDefinitions(modifiedClass);
 
+        String fqName = TreeUtil.getFqName(originalClass);
+
         ArrayList<FunctionDefinitionNode> result = new ArrayList<>();
         for (FunctionDefinitionNode modifiedMethod : modifiedMethodDefinitions) {
             // COLT-77
@@ -191,8 +202,7 @@ public class LCIncrementalExtension extends AbstractTreeModificationExtension {
                     continue;
                 }
 
-                NodeVisitor<FunctionDefinitionNode> visitor = NodeVisitorFactory.getVisitor(FunctionDefinitionNode.class);
-                if (!visitor.compareTrees(matchingOriginalMethod, modifiedMethod) && !result.contains(modifiedMethod)) {
+                if (!isSameMethod(fqName, matchingOriginalMethod, modifiedMethod) && !result.contains(modifiedMethod)) {
                     result.add(modifiedMethod);
                 }
             } else {
@@ -214,6 +224,7 @@ public class LCIncrementalExtension extends AbstractTreeModificationExtension {
                     if (!membersList.contains(newMember)) {
                         membersList.add(newMember);
                         newMember.resolve((ITypeResolver) classDigest);
+                        DigestManager.getInstance().classDigestChanged(classDigest.getFqName());
                     }
                 }
             }
@@ -222,4 +233,23 @@ public class LCIncrementalExtension extends AbstractTreeModificationExtension {
         return result;
     }
 
+    private boolean isSameMethod(String fqName, FunctionDefinitionNode originalMethod, FunctionDefinitionNode modifiedMethod) {
+        // Fingerprints of the original trees are kept by the navigator, the modified ones were computed in saveSyntaxTree
+        TreeFingerprint originalFingerprint = projectNavigator.getMethodFingerprint(fqName, originalMethod);
+        TreeFingerprint modifiedFingerprint = LastASTHolder.getInstance().getMethodFingerprints(fqName).get(LastASTHolder.getMethodKey(modifiedMethod));
+
+        if (originalFingerprint != null && modifiedFingerprint != null) {
+            if (originalFingerprint.isDifferentFrom(modifiedFingerprint)) {
+                return false;
+            }
+            if (originalFingerprint.isSameAs(modifiedFingerprint)) {
+                return true;
+            }
+        }
+
+        // Fallback to the full tree walk
+        NodeVisitor<FunctionDefinitionNode> visitor = NodeVisitorFactory.getVisitor(FunctionDefinitionNode.class);
+        return visitor.compareTrees(originalMethod, modifiedMethod);
+    }
+
 }
@@ -32,6 +32,30 @@ public class LiveCodingCLIParameters {
         }
     }
 
+    public static String getDeliveryHost() {
+        String deliveryHost = System.getProperty("codeOrchestra.delivery.host");
+        if (deliveryHost == null) {
+            return DEFAULT_LOCALHOST;
+        }
+        return deliveryHost;
+    }
+
+    /**
+     * @return port of the local socket the livecoding updates are sent to, null if they are printed to stdout
+     */
+    public static Integer getDeliveryPort() {
+        String deliveryPort = System.getProperty("codeOrchestra.delivery.port");
+        if (deliveryPort == null) {
+            return null;
+        }
+
+        try {
+            return Integer.valueOf(deliveryPort);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     public static String getProfilingFolder() {
         return new File(getDigestsFolder()).getParent();
     }
@@ -40,6 +64,26 @@ public class LiveCodingCLIParameters {
         return System.getProperty("codeOrchestra.digestsDir");
     }
 
+    public static boolean isASTSnapshotStoreEnabled() {
+        return getDigestsFolder() != null && Boolean.parseBoolean(System.getProperty("codeOrchestra.live.astStore"));
+    }
+
+    public static boolean isParallelTransformationEnabled() {
+        return Boolean.parseBoolean(System.getProperty("codeOrchestra.live.parallel"));
+    }
+
+    public static boolean isTimingsEnabled() {
+        return Boolean.parseBoolean(System.getProperty("codeOrchestra.profiling.timings"));
+    }
+
+    public static String getDigestsCacheFolder() {
+        return new File(getDigestsFolder(), "cache").getPath();
+    }
+
+    public static String getASTSnapshotsFolder() {
+        return new File(getDigestsFolder(), "ast").getPath();
+    }
+
     public static LiveMethods getLiveMethods() {
         String liveMethodsStringValue = System.getProperty("codeOrchestra.live.liveMethods");
         if (liveMethodsStringValue == null) {
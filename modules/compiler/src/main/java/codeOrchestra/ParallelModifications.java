@@ -0,0 +1,124 @@
+package codeOrchestra;
+
+import flex2.compiler.CompilationUnit;
+import flex2.compiler.Logger;
+import flex2.compiler.util.RecordingLogger;
+import flex2.compiler.util.ThreadLocalToolkit;
+import flex2.compiler.util.WorkerPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the per-class AST modifications of the livecoding base mode on the compiler's worker pool (opt-in,
+ * see {@link LiveCodingCLIParameters#isParallelTransformationEnabled()}). The pool has
+ * <code>-Dflex2.compiler.threads</code> threads, one if that isn't set, see {@link WorkerPool}.
+ * <p/>
+ * The modifications of a unit are submitted from parse1 and must be finished before the compiler looks
+ * at the generated sources, so every submitted task is joined in {@link #await()}.
+ * <p/>
+ * A modification only changes the trees of its own class. Whatever it does to the compiler-wide state
+ * (the generated sources, the valid imports of the ContextStatics) is handed to {@link #onCompilerThread(Runnable)}
+ * and applied by {@link #await()} after the join, in the submission order. The messages are recorded the same way
+ * and replayed into the compiler's logger.
+ */
+public class ParallelModifications {
+
+    private static final List<Modification> pendingModifications = new ArrayList<>();
+    private static final ThreadLocal<Modification> current = new ThreadLocal<>();
+
+    public static boolean isEnabled() {
+        return LiveCodingCLIParameters.isParallelTransformationEnabled();
+    }
+
+    public static void submit(final CompilationUnit unit, final Runnable modifications) {
+        Modification modification = new Modification(unit);
+        modification.task = WorkerPool.submit(() -> {
+            modification.run(modifications);
+            return null;
+        });
+
+        synchronized (pendingModifications) {
+            pendingModifications.add(modification);
+        }
+    }
+
+    /**
+     * Runs the action right away, or after the join on the compiler thread if called from a submitted modification
+     */
+    public static void onCompilerThread(Runnable action) {
+        Modification modification = current.get();
+        if (modification == null) {
+            action.run();
+        } else {
+            modification.deferredActions.add(action);
+        }
+    }
+
+    /**
+     * Waits for all the submitted modifications and applies their deferred actions and messages
+     */
+    public static void await() {
+        List<Modification> modifications;
+        synchronized (pendingModifications) {
+            if (pendingModifications.isEmpty()) {
+                return;
+            }
+            modifications = new ArrayList<>(pendingModifications);
+            pendingModifications.clear();
+        }
+
+        for (Modification modification : modifications) {
+            try {
+                modification.task.get();
+            } catch (ExecutionException e) {
+                modification.failure = e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                modification.failure = e;
+            }
+        }
+
+        Logger logger = ThreadLocalToolkit.getLogger();
+        for (Modification modification : modifications) {
+            if (logger != null) {
+                modification.logger.replay(logger);
+            }
+            // Whatever was done before a failure stays done, just like in parse1
+            for (Runnable action : modification.deferredActions) {
+                action.run();
+            }
+            if (modification.failure != null) {
+                System.out.println("Error during custom AST modifications of " + modification.unit.getSource().getName() + ":");
+                modification.failure.printStackTrace();
+            }
+        }
+    }
+
+    private static class Modification {
+        private final CompilationUnit unit;
+        private Future<?> task;
+        private final RecordingLogger logger = new RecordingLogger();
+        private final List<Runnable> deferredActions = new ArrayList<>();
+        private Throwable failure;
+
+        private Modification(CompilationUnit unit) {
+            this.unit = unit;
+        }
+
+        // on a worker thread, with the ThreadLocalToolkit state of the compiler thread installed
+        private void run(Runnable modifications) {
+            ThreadLocalToolkit.setLogger(logger);
+            current.set(this);
+            try {
+                modifications.run();
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                current.remove();
+            }
+        }
+    }
+}
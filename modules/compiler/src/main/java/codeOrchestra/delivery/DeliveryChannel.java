@@ -0,0 +1,77 @@
+package codeOrchestra.delivery;
+
+import codeOrchestra.LiveCodingCLIParameters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects the method updates of the classes compiled in one livecoding burst and hands them
+ * to the listeners as a single message on {@link #flush(long)}.
+ * <p/>
+ * Without registered listeners the updates go to a local socket if a delivery port is configured,
+ * to stdout otherwise.
+ */
+public class DeliveryChannel {
+
+    private static final DeliveryChannel instance = new DeliveryChannel();
+
+    public static DeliveryChannel getInstance() {
+        return instance;
+    }
+
+    private final List<DeliveryListener> listeners = new CopyOnWriteArrayList<>();
+    private DeliveryListener defaultListener;
+
+    private final List<MethodUpdate> pendingUpdates = new ArrayList<>();
+
+    private DeliveryChannel() {
+    }
+
+    public void addListener(DeliveryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(DeliveryListener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized void add(List<MethodUpdate> updates) {
+        pendingUpdates.addAll(updates);
+    }
+
+    /**
+     * Sends all the updates added since the previous flush as one message
+     */
+    public void flush(long timestamp) {
+        DeliveryMessage message;
+        synchronized (this) {
+            if (pendingUpdates.isEmpty()) {
+                return;
+            }
+            message = new DeliveryMessage(timestamp, new ArrayList<>(pendingUpdates));
+            pendingUpdates.clear();
+        }
+
+        if (listeners.isEmpty()) {
+            getDefaultListener().deliver(message);
+        } else {
+            for (DeliveryListener listener : listeners) {
+                listener.deliver(message);
+            }
+        }
+    }
+
+    private synchronized DeliveryListener getDefaultListener() {
+        if (defaultListener == null) {
+            Integer deliveryPort = LiveCodingCLIParameters.getDeliveryPort();
+            if (deliveryPort != null) {
+                defaultListener = new SocketDeliveryListener(LiveCodingCLIParameters.getDeliveryHost(), deliveryPort);
+            } else {
+                defaultListener = new StdoutDeliveryListener();
+            }
+        }
+        return defaultListener;
+    }
+}
@@ -0,0 +1,10 @@
+package codeOrchestra.delivery;
+
+/**
+ * Receives the livecoding updates, see {@link DeliveryChannel}
+ */
+public interface DeliveryListener {
+
+    void deliver(DeliveryMessage message);
+
+}
@@ -0,0 +1,69 @@
+package codeOrchestra.delivery;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * All the method updates of one livecoding compilation burst, applied by the runtime at once
+ */
+public class DeliveryMessage {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private final long timestamp;
+    private final List<MethodUpdate> updates;
+
+    public DeliveryMessage(long timestamp, List<MethodUpdate> updates) {
+        this.timestamp = timestamp;
+        this.updates = Collections.unmodifiableList(updates);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public List<MethodUpdate> getUpdates() {
+        return updates;
+    }
+
+    /**
+     * Binary form, the frame payload of {@link SocketDeliveryListener}
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeLong(timestamp);
+        out.writeInt(updates.size());
+        for (MethodUpdate update : updates) {
+            out.writeUTF(update.getDeliveryClassFqName());
+            out.writeUTF(update.getClassFqName());
+            out.writeUTF(update.getMethodName());
+            out.writeUTF(update.getMethodId());
+            out.writeBoolean(update.isStatic());
+            out.writeByte(update.getKind());
+        }
+    }
+
+    /**
+     * The textual form which used to be printed as "Delivery Message: [...]"
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (MethodUpdate update : updates) {
+            if (sb.length() > 0) {
+                sb.append("|");
+            }
+            sb.append("method").append(":");
+            sb.append(update.getDeliveryClassFqName()).append(":");
+            sb.append(update.getClassFqName()).append(":");
+            sb.append(update.getMethodName()).append(":");
+            sb.append(update.getMethodId()).append(":");
+            sb.append(update.isStatic() ? "1" : "0").append(":");
+            sb.append(update.getKind()).append(":");
+            sb.append(timestamp);
+        }
+        return sb.toString();
+    }
+}
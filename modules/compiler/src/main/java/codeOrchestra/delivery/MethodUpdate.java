@@ -0,0 +1,52 @@
+package codeOrchestra.delivery;
+
+/**
+ * A method whose body was recompiled into a livecoding class
+ */
+public class MethodUpdate {
+
+    public static final int KIND_METHOD = 1;
+    public static final int KIND_SETTER = 2;
+    public static final int KIND_GETTER = 3;
+    public static final int KIND_CONSTRUCTOR = 4;
+
+    private final String deliveryClassFqName;
+    private final String classFqName;
+    private final String methodName;
+    private final String methodId;
+    private final boolean isStatic;
+    private final int kind;
+
+    public MethodUpdate(String deliveryClassFqName, String classFqName, String methodName, String methodId, boolean isStatic, int kind) {
+        this.deliveryClassFqName = deliveryClassFqName;
+        this.classFqName = classFqName;
+        this.methodName = methodName;
+        this.methodId = methodId;
+        this.isStatic = isStatic;
+        this.kind = kind;
+    }
+
+    public String getDeliveryClassFqName() {
+        return deliveryClassFqName;
+    }
+
+    public String getClassFqName() {
+        return classFqName;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String getMethodId() {
+        return methodId;
+    }
+
+    public boolean isStatic() {
+        return isStatic;
+    }
+
+    public int getKind() {
+        return kind;
+    }
+}
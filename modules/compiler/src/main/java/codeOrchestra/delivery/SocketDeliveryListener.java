@@ -0,0 +1,72 @@
+package codeOrchestra.delivery;
+
+import flex2.compiler.util.ThreadLocalToolkit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Sends the messages to a local socket, one frame per message: the payload length (4 bytes, big-endian)
+ * followed by the payload written by {@link DeliveryMessage#write}.
+ * <p/>
+ * The connection is kept open between the messages and reopened after a failure. A message which can't
+ * be sent is printed to stdout the old way, so that it is not lost.
+ */
+public class SocketDeliveryListener implements DeliveryListener {
+
+    private static final int CONNECT_TIMEOUT = 1000;
+
+    private final String host;
+    private final int port;
+
+    private Socket socket;
+    private DataOutputStream out;
+
+    public SocketDeliveryListener(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public synchronized void deliver(DeliveryMessage message) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            message.write(new DataOutputStream(payload));
+
+            if (socket == null) {
+                connect();
+            }
+            out.writeInt(payload.size());
+            payload.writeTo(out);
+            out.flush();
+        } catch (IOException e) {
+            ThreadLocalToolkit.logWarning("Can't deliver the livecoding update through the socket, falling back to stdout: " + e.toString());
+            close();
+            new StdoutDeliveryListener().deliver(message);
+        }
+    }
+
+    private void connect() throws IOException {
+        Socket newSocket = new Socket();
+        newSocket.setTcpNoDelay(true);
+        newSocket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+
+        socket = newSocket;
+        out = new DataOutputStream(socket.getOutputStream());
+    }
+
+    public synchronized void close() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+        socket = null;
+        out = null;
+    }
+}
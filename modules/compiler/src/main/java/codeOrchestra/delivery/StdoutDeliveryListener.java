@@ -0,0 +1,12 @@
+package codeOrchestra.delivery;
+
+/**
+ * The legacy transport, the IDE scrapes the "Delivery Message: [...]" lines of the compiler output
+ */
+public class StdoutDeliveryListener implements DeliveryListener {
+
+    @Override
+    public void deliver(DeliveryMessage message) {
+        System.out.println("Delivery Message: [" + message + "]");
+    }
+}
@@ -11,6 +11,7 @@ import codeOrchestra.util.FileUtils;
 import codeOrchestra.util.StringUtils;
 import codeOrchestra.util.XMLUtils;
 import flex2.compiler.util.QName;
+import flex2.compiler.util.ThreadLocalToolkit;
 import macromedia.asc.parser.ClassDefinitionNode;
 import macromedia.asc.parser.FunctionDefinitionNode;
 import macromedia.asc.parser.MetaDataNode;
@@ -24,10 +25,14 @@ import javax.xml.transform.TransformerException;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FilenameFilter;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
+ * Thread-safe, the livecoding modifications may query it concurrently (see ParallelModifications)
+ *
  * @author Alexander Eliseyev
  */
 public class DigestManager {
@@ -40,9 +45,9 @@ public class DigestManager {
     }
 
     // package name -> set of short names
-    private Map<String, Set<String>> compiledClasses = new HashMap<>();
+    private Map<String, Set<String>> compiledClasses = new ConcurrentHashMap<>();
 
-    private Set<String> availableFqNames = new HashSet<>();
+    private Set<String> availableFqNames = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
     // namespace name -> URI  map
     private Map<String, String> namespaceToURI = new HashMap<>();
@@ -50,44 +55,30 @@ public class DigestManager {
     private Map<String, IClassDigest> digestsMap = new HashMap<>();
     private Map<String, SourceClassDigest> unresolvedDigests = new HashMap<>();
 
+    // SWC digests which are not loaded into digestsMap yet
+    private SWCDigestCache swcDigestCache;
+    private Map<String, SWCDigestCache.Record> swcDigestRecords = new HashMap<>();
+
+    // Memoized superclass chains, see InheritanceClosure
+    private Map<String, InheritanceClosure> inheritanceClosures = new HashMap<>();
+    // fq name -> fq names of the classes whose closures were built from its digest
+    private Map<String, Set<String>> inheritanceDependents = new HashMap<>();
+    // super class fq name -> source classes extending it
+    private Map<String, List<IClassDigest>> directSourceDescendants;
+
     // full path -> list of embeds
     private Map<String, List<EmbedDigest>> embedDigests = new HashMap<>();
 
     public Set<IMember> getVisibleInstanceProtectedMembers(String classFqName) {
-        Set<IMember> result = new HashSet<>();
-
-        IClassDigest classDigest = digestsMap.get(classFqName);
-        while (classDigest != null) {
-            classDigest.getInstanceMembers().stream().filter(member -> member.getVisibility() == Visibility.PROTECTED && !result.contains(member)).forEach(result::add);
-
-            if (classDigest.getSuperClassFQName() != null) {
-                classDigest = digestsMap.get(classDigest.getSuperClassFQName());
-            } else {
-                classDigest = null;
-            }
-        }
-
-        return result;
+        return new HashSet<>(getInheritanceClosure(classFqName).getProtectedInstanceMembers());
     }
 
-    public void addNamespace(String name, String uri) {
+    public synchronized void addNamespace(String name, String uri) {
         namespaceToURI.put(name, uri);
     }
 
     public int getInheritanceLevel(String fqName) {
-        int level = 0;
-
-        IClassDigest classDigest = digestsMap.get(fqName);
-        while (classDigest != null) {
-            if (classDigest.getSuperClassFQName() != null) {
-                classDigest = digestsMap.get(classDigest.getSuperClassFQName());
-                level++;
-            } else {
-                classDigest = null;
-            }
-        }
-
-        return level;
+        return getInheritanceClosure(fqName).getInheritanceLevel();
     }
 
     public boolean isAvailable(String fqName) {
@@ -102,7 +93,7 @@ public class DigestManager {
         String functionName = functionDefinitionNode.fexpr.identifier.name;
         MemberKind memberKind = TreeNavigator.getMemberKind(functionDefinitionNode);
 
-        for (IClassDigest descendant : getDescendants(digestsMap.get(fqName))) {
+        for (IClassDigest descendant : getDescendants(getClassDigest(fqName))) {
             for (IMember member : descendant.getInstanceMembers()) {
                 if (functionName.equals(member.getName()) && member.getKind() == memberKind) {
                     if (EnumSet.of(Visibility.PROTECTED, Visibility.PUBLIC).contains(member.getVisibility()) || member.getVisibility() == Visibility.PRIVATE && descendant.canBeUsedForLiveCoding()) {
@@ -127,7 +118,7 @@ public class DigestManager {
 
             private void setRoot(IClassDigest currentRoot) {
                 directDescendants.clear();
-                directDescendants.addAll(digestsMap.values().stream().filter(classDigest -> classDigest instanceof SourceClassDigest && currentRoot.getFqName().equals(classDigest.getSuperClassFQName())).collect(Collectors.toList()));
+                directDescendants.addAll(getDirectSourceDescendants(currentRoot.getFqName()));
 
                 directDescendantsIterator = directDescendants.iterator();
             }
@@ -163,22 +154,7 @@ public class DigestManager {
      * @return FQ name of the static member owner
      */
     public String findOwnerOfStaticMember(String classFqName, String memberName) {
-        IClassDigest classDigest = digestsMap.get(classFqName);
-        while (classDigest != null) {
-            for (IMember member : classDigest.getStaticMembers()) {
-                if (member.getName().equals(memberName)) {
-                    return classDigest.getFqName();
-                }
-            }
-
-            if (classDigest.getSuperClassFQName() != null) {
-                classDigest = digestsMap.get(classDigest.getSuperClassFQName());
-            } else {
-                classDigest = null;
-            }
-        }
-
-        return null;
+        return getInheritanceClosure(classFqName).getStaticMemberOwner(memberName);
     }
 
     public IClassDigest findVisibleOwnerOfInstanceMember(String classFqName, String memberName) {
@@ -186,49 +162,71 @@ public class DigestManager {
     }
 
     public IClassDigest findVisibleOwnerOfInstanceMember(String classFqName, String memberName, boolean avoidGeneratedMembers) {
-        IClassDigest classDigest = digestsMap.get(classFqName);
-        while (classDigest != null) {
-            for (IMember member : classDigest.getInstanceMembers()) {
-                if (member.getName().equals(memberName) && !(avoidGeneratedMembers && member.isAddedDuringProcessing())) {
-                    return classDigest;
-                }
-            }
+        return getInheritanceClosure(classFqName).getInstanceMemberOwner(memberName, avoidGeneratedMembers);
+    }
 
-            if (classDigest.getSuperClassFQName() != null) {
-                classDigest = digestsMap.get(classDigest.getSuperClassFQName());
-            } else {
-                classDigest = null;
-            }
+    public boolean isInstanceMemberVisibleInsideClass(String classFqName, String memberName) {
+        return getInheritanceClosure(classFqName).getInstanceMemberOwner(memberName, false) != null;
+    }
 
+    private synchronized InheritanceClosure getInheritanceClosure(String fqName) {
+        InheritanceClosure closure = inheritanceClosures.get(fqName);
+        if (closure == null) {
+            closure = new InheritanceClosure(fqName, this);
+            inheritanceClosures.put(fqName, closure);
+
+            for (String dependency : closure.getDependencies()) {
+                Set<String> dependents = inheritanceDependents.get(dependency);
+                if (dependents == null) {
+                    dependents = new HashSet<>();
+                    inheritanceDependents.put(dependency, dependents);
+                }
+                dependents.add(fqName);
+            }
         }
-
-        return null;
+        return closure;
     }
 
-    public boolean isInstanceMemberVisibleInsideClass(String classFqName, String memberName) {
-        IClassDigest classDigest = digestsMap.get(classFqName);
-        while (classDigest != null) {
-            for (IMember member : classDigest.getInstanceMembers()) {
-                if (member.getName().equals(memberName)) {
-                    return true;
+    private synchronized List<IClassDigest> getDirectSourceDescendants(String fqName) {
+        if (directSourceDescendants == null) {
+            directSourceDescendants = new HashMap<>();
+            for (IClassDigest classDigest : digestsMap.values()) {
+                if (classDigest instanceof SourceClassDigest && classDigest.getSuperClassFQName() != null) {
+                    List<IClassDigest> descendants = directSourceDescendants.get(classDigest.getSuperClassFQName());
+                    if (descendants == null) {
+                        descendants = new ArrayList<>();
+                        directSourceDescendants.put(classDigest.getSuperClassFQName(), descendants);
+                    }
+                    descendants.add(classDigest);
                 }
             }
+        }
 
-            if (classDigest.getSuperClassFQName() != null) {
-                classDigest = digestsMap.get(classDigest.getSuperClassFQName());
-            } else {
-                classDigest = null;
-            }
+        List<IClassDigest> descendants = directSourceDescendants.get(fqName);
+        if (descendants == null) {
+            return Collections.emptyList();
         }
+        return descendants;
+    }
 
-        return false;
+    /**
+     * Must be called whenever a digest is replaced or its members or superclass are modified
+     */
+    public synchronized void classDigestChanged(String fqName) {
+        Set<String> dependents = inheritanceDependents.remove(fqName);
+        if (dependents != null) {
+            for (String dependent : dependents) {
+                inheritanceClosures.remove(dependent);
+            }
+        }
+        directSourceDescendants = null;
     }
 
     public Set<String> getShortNamesFromPackage(String pack) {
         return compiledClasses.get(pack);
     }
 
-    public void init() {
+    public synchronized void init() {
         availableFqNames.clear();
 
         // 1 - Init available fq names of source files
@@ -249,29 +247,73 @@ public class DigestManager {
         // 2 - Load digests and fq names from SWCs
         File digestsDir = getSWCDigestsFolder();
         List<File> digestFiles = FileUtils.listFileRecursively(digestsDir, file -> file.getName().endsWith(DIGEST_EXTENSION));
-        for (File digestFile : digestFiles) {
-            Document document = XMLUtils.fileToDOM(digestFile);
-            NodeList traitsList = document.getDocumentElement().getElementsByTagName("trait");
+        if (!initFromCache(digestFiles)) {
+            for (File digestFile : digestFiles) {
+                loadDigestFile(digestFile);
+            }
+        }
+    }
 
-            for (int i = 0; i < traitsList.getLength(); i++) {
-                Element traitElement = (Element) traitsList.item(i);
+    /**
+     * Only the digest files changed since the last run are parsed, class digests are loaded on demand
+     */
+    private boolean initFromCache(List<File> digestFiles) {
+        try {
+            if (swcDigestCache == null) {
+                SWCDigestCache cache = new SWCDigestCache(new File(LiveCodingCLIParameters.getDigestsCacheFolder()));
+                cache.open();
+                swcDigestCache = cache;
+            }
+            swcDigestCache.update(digestFiles);
+            swcDigestCache.flush();
+        } catch (IOException e) {
+            ThreadLocalToolkit.logWarning("Can't use the SWC digests cache: " + e.toString());
+            swcDigestCache = null;
+            swcDigestRecords.clear();
+            return false;
+        }
 
-                IClassDigest classDigest = new SWCClassDigest(traitElement);
-                String fqName = classDigest.getFqName();
-                digestsMap.put(fqName, classDigest);
+        swcDigestRecords.clear();
+        for (SWCDigestCache.SourceEntry entry : swcDigestCache.getSources()) {
+            for (Map.Entry<String, SWCDigestCache.Record> classEntry : entry.getClasses().entrySet()) {
+                String fqName = classEntry.getKey();
+                // Reloaded on demand
+                digestsMap.remove(fqName);
+                classDigestChanged(fqName);
+                swcDigestRecords.put(fqName, classEntry.getValue());
                 availableFqNames.add(fqName);
             }
+            namespaceToURI.putAll(entry.getNamespaces());
+        }
+        return true;
+    }
+
+    private void loadDigestFile(File digestFile) {
+        Document document = XMLUtils.fileToDOM(digestFile);
+        if (document == null) {
+            return;
+        }
 
-            NodeList namespacesList = document.getDocumentElement().getElementsByTagName("namespace");
-            for (int i = 0; i < namespacesList.getLength(); i++) {
-                Element namespaceElement = (Element) namespacesList.item(i);
+        NodeList traitsList = document.getDocumentElement().getElementsByTagName("trait");
+        for (int i = 0; i < traitsList.getLength(); i++) {
+            Element traitElement = (Element) traitsList.item(i);
 
-                namespaceToURI.put(namespaceElement.getAttribute("name"), namespaceElement.getAttribute("uri"));
-            }
+            IClassDigest classDigest = new SWCClassDigest(traitElement);
+            String fqName = classDigest.getFqName();
+            digestsMap.put(fqName, classDigest);
+            classDigestChanged(fqName);
+            availableFqNames.add(fqName);
+        }
+
+        NodeList namespacesList = document.getDocumentElement().getElementsByTagName("namespace");
+        for (int i = 0; i < namespacesList.getLength(); i++) {
+            Element namespaceElement = (Element) namespacesList.item(i);
+
+            namespaceToURI.put(namespaceElement.getAttribute("name"), namespaceElement.getAttribute("uri"));
         }
     }
 
-    public String getNamespaceURI(String namespace) {
+    public synchronized String getNamespaceURI(String namespace) {
         return namespaceToURI.get(namespace);
     }
 
@@ -283,7 +325,7 @@ public class DigestManager {
         return addToDigestUnresolved(classDefinitionNode, false);
     }
 
-    public SourceClassDigest addToDigestUnresolved(ClassDefinitionNode classDefinitionNode, boolean isMain) {
+    public synchronized SourceClassDigest addToDigestUnresolved(ClassDefinitionNode classDefinitionNode, boolean isMain) {
         if (classDefinitionNode == null) {
             return null;
         }
@@ -332,7 +374,7 @@ public class DigestManager {
         return result;
     }
 
-    public void dumpEmbedDigestsReport() {
+    public synchronized void dumpEmbedDigestsReport() {
         Document document = XMLUtils.createDocument();
 
         Element rootElement = document.createElement("embedsDigest");
@@ -360,15 +402,28 @@ public class DigestManager {
         }
     }
 
-    public void resolve() {
+    public synchronized void resolve() {
         for (SourceClassDigest classDigest : unresolvedDigests.values()) {
             classDigest.resolve();
             digestsMap.put(classDigest.getFqName(), classDigest);
+            classDigestChanged(classDigest.getFqName());
         }
         unresolvedDigests.clear();
     }
 
-    public IClassDigest getClassDigest(String fqName) {
-        return digestsMap.get(fqName);
+    public synchronized IClassDigest getClassDigest(String fqName) {
+        IClassDigest classDigest = digestsMap.get(fqName);
+        if (classDigest == null && swcDigestCache != null) {
+            SWCDigestCache.Record record = swcDigestRecords.get(fqName);
+            if (record != null) {
+                try {
+                    classDigest = swcDigestCache.read(record);
+                    digestsMap.put(fqName, classDigest);
+                } catch (IOException e) {
+                    ThreadLocalToolkit.logWarning("Can't read the cached digest of " + fqName + ": " + e.toString());
+                }
+            }
+        }
+        return classDigest;
     }
 }
@@ -0,0 +1,89 @@
+package codeOrchestra.digest;
+
+import java.util.*;
+
+/**
+ * Flattened superclass chain of a class with its members indexed by name, built once per class
+ * and dropped by {@link DigestManager} when a digest it was built from changes.
+ */
+class InheritanceClosure {
+
+    private final int inheritanceLevel;
+
+    // Fq names of all the digests looked up while building, including the missing ones
+    private final Set<String> dependencies;
+
+    // Member name -> first class of the chain declaring it
+    private final Map<String, IClassDigest> instanceMemberOwners = new HashMap<>();
+    private final Map<String, IClassDigest> declaredInstanceMemberOwners = new HashMap<>();
+    private final Map<String, String> staticMemberOwners = new HashMap<>();
+
+    private final Set<IMember> protectedInstanceMembers = new HashSet<>();
+
+    InheritanceClosure(String fqName, DigestManager digestManager) {
+        // The class itself first, then its ancestors up to the first one which isn't known
+        List<IClassDigest> ancestors = new ArrayList<>();
+        dependencies = new HashSet<>();
+        dependencies.add(fqName);
+
+        int level = 0;
+        IClassDigest classDigest = digestManager.getClassDigest(fqName);
+        while (classDigest != null) {
+            ancestors.add(classDigest);
+
+            String superClassFQName = classDigest.getSuperClassFQName();
+            if (superClassFQName == null) {
+                break;
+            }
+            level++;
+
+            // Don't hang on cyclic inheritance
+            if (!dependencies.add(superClassFQName)) {
+                break;
+            }
+            classDigest = digestManager.getClassDigest(superClassFQName);
+        }
+
+        inheritanceLevel = level;
+
+        for (IClassDigest ancestor : ancestors) {
+            for (IMember member : ancestor.getInstanceMembers()) {
+                String name = member.getName();
+                if (!instanceMemberOwners.containsKey(name)) {
+                    instanceMemberOwners.put(name, ancestor);
+                }
+                if (!member.isAddedDuringProcessing() && !declaredInstanceMemberOwners.containsKey(name)) {
+                    declaredInstanceMemberOwners.put(name, ancestor);
+                }
+                if (member.getVisibility() == Visibility.PROTECTED) {
+                    protectedInstanceMembers.add(member);
+                }
+            }
+            for (IMember member : ancestor.getStaticMembers()) {
+                if (!staticMemberOwners.containsKey(member.getName())) {
+                    staticMemberOwners.put(member.getName(), ancestor.getFqName());
+                }
+            }
+        }
+    }
+
+    int getInheritanceLevel() {
+        return inheritanceLevel;
+    }
+
+    Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    IClassDigest getInstanceMemberOwner(String memberName, boolean avoidGeneratedMembers) {
+        return avoidGeneratedMembers ? declaredInstanceMemberOwners.get(memberName) : instanceMemberOwners.get(memberName);
+    }
+
+    String getStaticMemberOwner(String memberName) {
+        return staticMemberOwners.get(memberName);
+    }
+
+    Set<IMember> getProtectedInstanceMembers() {
+        return protectedInstanceMembers;
+    }
+}
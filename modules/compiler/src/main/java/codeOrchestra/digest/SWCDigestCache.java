@@ -0,0 +1,329 @@
+package codeOrchestra.digest;
+
+import codeOrchestra.digest.impl.SWCClassDigest;
+import codeOrchestra.util.XMLUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * Binary cache of the SWC digests (".digest" XML files).
+ * <p/>
+ * The index file keeps, per digest file, its timestamp and size, its namespaces and the positions
+ * of its class digests in the data file. Only the digest files changed since the last run are parsed,
+ * class digests are read from the data file one by one when they are asked for.
+ */
+class SWCDigestCache {
+
+    private static final String INDEX_FILE_NAME = "swcDigests.index";
+    private static final String DATA_FILE_NAME = "swcDigests.data";
+
+    private static final int INDEX_MAGIC = 0x4C434447; // LCDG
+    private static final int INDEX_VERSION = 1;
+
+    static class Record {
+        private final long offset;
+        private final int length;
+
+        private Record(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    static class SourceEntry {
+        private final long lastModified;
+        private final long length;
+
+        // namespace name -> URI
+        private final Map<String, String> namespaces = new LinkedHashMap<>();
+        // class fq name -> record
+        private final Map<String, Record> classes = new LinkedHashMap<>();
+
+        private SourceEntry(long lastModified, long length) {
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        Map<String, String> getNamespaces() {
+            return namespaces;
+        }
+
+        Map<String, Record> getClasses() {
+            return classes;
+        }
+
+        private int getDataSize() {
+            int result = 0;
+            for (Record record : classes.values()) {
+                result += record.length;
+            }
+            return result;
+        }
+    }
+
+    private final File directory;
+
+    // digest file path -> entry, in the order of the last update
+    private final Map<String, SourceEntry> sources = new LinkedHashMap<>();
+
+    private RandomAccessFile dataFile;
+    private FileChannel dataChannel;
+
+    private long liveSize;
+    private long garbageSize;
+    private boolean dirty;
+
+    SWCDigestCache(File directory) {
+        this.directory = directory;
+    }
+
+    void open() throws IOException {
+        if (dataChannel != null) {
+            return;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Can't create digests cache directory " + directory);
+        }
+
+        File indexFile = new File(directory, INDEX_FILE_NAME);
+        if (indexFile.exists()) {
+            try {
+                readIndex(indexFile);
+            } catch (IOException e) {
+                // Broken or outdated index, start from scratch
+                sources.clear();
+                liveSize = 0;
+            }
+        }
+
+        dataFile = new RandomAccessFile(new File(directory, DATA_FILE_NAME), "rw");
+        dataChannel = dataFile.getChannel();
+
+        // The data file could have been truncated while the index survived
+        long dataSize = dataChannel.size();
+        for (SourceEntry entry : sources.values()) {
+            for (Record record : entry.classes.values()) {
+                if (record.offset + record.length > dataSize) {
+                    sources.clear();
+                    liveSize = 0;
+                    dataChannel.truncate(0);
+                    dirty = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses the digest files which are new or changed since the last update, forgets the ones which are gone
+     */
+    void update(List<File> digestFiles) throws IOException {
+        Map<String, SourceEntry> oldSources = new LinkedHashMap<>(sources);
+        sources.clear();
+
+        for (File digestFile : digestFiles) {
+            String path = digestFile.getAbsolutePath();
+            SourceEntry entry = oldSources.remove(path);
+            if (entry != null && entry.lastModified == digestFile.lastModified() && entry.length == digestFile.length()) {
+                sources.put(path, entry);
+                continue;
+            }
+
+            if (entry != null) {
+                discard(entry);
+            }
+
+            entry = parse(digestFile);
+            if (entry != null) {
+                sources.put(path, entry);
+            }
+            dirty = true;
+        }
+
+        for (SourceEntry entry : oldSources.values()) {
+            discard(entry);
+            dirty = true;
+        }
+    }
+
+    Collection<SourceEntry> getSources() {
+        return sources.values();
+    }
+
+    SWCClassDigest read(Record record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(record.length);
+        while (buffer.hasRemaining()) {
+            if (dataChannel.read(buffer, record.offset + buffer.position()) < 0) {
+                throw new IOException("Corrupted SWC digests cache");
+            }
+        }
+
+        return new SWCClassDigest(new DataInputStream(new ByteArrayInputStream(buffer.array())));
+    }
+
+    /**
+     * Writes out the index, the data file is compacted first when most of it is garbage
+     */
+    void flush() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        if (garbageSize > liveSize) {
+            compact();
+        }
+
+        dataChannel.force(false);
+        writeIndex();
+        dirty = false;
+    }
+
+    private SourceEntry parse(File digestFile) throws IOException {
+        Document document = XMLUtils.fileToDOM(digestFile);
+        if (document == null) {
+            return null;
+        }
+
+        SourceEntry entry = new SourceEntry(digestFile.lastModified(), digestFile.length());
+
+        NodeList traitsList = document.getDocumentElement().getElementsByTagName("trait");
+        for (int i = 0; i < traitsList.getLength(); i++) {
+            SWCClassDigest classDigest = new SWCClassDigest((Element) traitsList.item(i));
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                classDigest.write(out);
+            }
+
+            long offset = dataChannel.size();
+            dataChannel.write(ByteBuffer.wrap(bytes.toByteArray()), offset);
+
+            Record replaced = entry.classes.put(classDigest.getFqName(), new Record(offset, bytes.size()));
+            if (replaced != null) {
+                garbageSize += replaced.length;
+                liveSize -= replaced.length;
+            }
+            liveSize += bytes.size();
+        }
+
+        NodeList namespacesList = document.getDocumentElement().getElementsByTagName("namespace");
+        for (int i = 0; i < namespacesList.getLength(); i++) {
+            Element namespaceElement = (Element) namespacesList.item(i);
+            entry.namespaces.put(namespaceElement.getAttribute("name"), namespaceElement.getAttribute("uri"));
+        }
+
+        return entry;
+    }
+
+    private void discard(SourceEntry entry) {
+        int dataSize = entry.getDataSize();
+        garbageSize += dataSize;
+        liveSize -= dataSize;
+    }
+
+    private void compact() throws IOException {
+        File compactedFile = new File(directory, DATA_FILE_NAME + ".tmp");
+        try (RandomAccessFile compactedDataFile = new RandomAccessFile(compactedFile, "rw")) {
+            FileChannel compactedChannel = compactedDataFile.getChannel();
+            compactedChannel.truncate(0);
+
+            long offset = 0;
+            for (SourceEntry entry : sources.values()) {
+                for (Map.Entry<String, Record> classEntry : entry.classes.entrySet()) {
+                    Record record = classEntry.getValue();
+                    long transferred = 0;
+                    while (transferred < record.length) {
+                        transferred += dataChannel.transferTo(record.offset + transferred, record.length - transferred, compactedChannel);
+                    }
+                    classEntry.setValue(new Record(offset, record.length));
+                    offset += record.length;
+                }
+            }
+            compactedChannel.force(false);
+        }
+
+        dataChannel.close();
+        dataFile.close();
+
+        File file = new File(directory, DATA_FILE_NAME);
+        if (!file.delete() || !compactedFile.renameTo(file)) {
+            throw new IOException("Can't replace SWC digests cache " + file);
+        }
+
+        dataFile = new RandomAccessFile(file, "rw");
+        dataChannel = dataFile.getChannel();
+        garbageSize = 0;
+    }
+
+    private void readIndex(File indexFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                throw new IOException("Unknown SWC digests cache format");
+            }
+            garbageSize = in.readLong();
+
+            int sourcesCount = in.readInt();
+            for (int i = 0; i < sourcesCount; i++) {
+                String path = in.readUTF();
+                SourceEntry entry = new SourceEntry(in.readLong(), in.readLong());
+
+                int namespacesCount = in.readInt();
+                for (int j = 0; j < namespacesCount; j++) {
+                    entry.namespaces.put(in.readUTF(), in.readUTF());
+                }
+
+                int classesCount = in.readInt();
+                for (int j = 0; j < classesCount; j++) {
+                    entry.classes.put(in.readUTF(), new Record(in.readLong(), in.readInt()));
+                }
+
+                sources.put(path, entry);
+                liveSize += entry.getDataSize();
+            }
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        File indexFile = new File(directory, INDEX_FILE_NAME);
+        File tempFile = new File(directory, INDEX_FILE_NAME + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(garbageSize);
+
+            out.writeInt(sources.size());
+            for (Map.Entry<String, SourceEntry> sourceEntry : sources.entrySet()) {
+                SourceEntry entry = sourceEntry.getValue();
+                out.writeUTF(sourceEntry.getKey());
+                out.writeLong(entry.lastModified);
+                out.writeLong(entry.length);
+
+                out.writeInt(entry.namespaces.size());
+                for (Map.Entry<String, String> namespace : entry.namespaces.entrySet()) {
+                    out.writeUTF(namespace.getKey());
+                    out.writeUTF(namespace.getValue());
+                }
+
+                out.writeInt(entry.classes.size());
+                for (Map.Entry<String, Record> classEntry : entry.classes.entrySet()) {
+                    out.writeUTF(classEntry.getKey());
+                    out.writeLong(classEntry.getValue().offset);
+                    out.writeInt(classEntry.getValue().length);
+                }
+            }
+        }
+
+        if (indexFile.exists() && !indexFile.delete()) {
+            throw new IOException("Can't replace SWC digests cache index " + indexFile);
+        }
+        if (!tempFile.renameTo(indexFile)) {
+            throw new IOException("Can't write SWC digests cache index " + indexFile);
+        }
+    }
+}
@@ -2,11 +2,15 @@ package codeOrchestra.digest.impl;
 
 import codeOrchestra.digest.IClassDigest;
 import codeOrchestra.digest.IMember;
+import codeOrchestra.digest.IParameter;
 import codeOrchestra.digest.MemberKind;
 import codeOrchestra.digest.Visibility;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -46,12 +50,62 @@ public class SWCClassDigest implements IClassDigest {
                 member.addParameter(parameterElement.getAttribute("name"), parameterElement.getAttribute("type"));
             }
 
-            members.add(member);
-            if (member.isStatic()) {
-                staticMembers.add(member);
-            } else {
-                instanceMembers.add(member);
+            addMember(member);
+        }
+    }
+
+    /**
+     * Reads a digest written with {@link #write(DataOutput)}
+     */
+    public SWCClassDigest(DataInput in) throws IOException {
+        fqName = in.readUTF();
+        superClassFqName = in.readUTF();
+
+        int membersCount = in.readInt();
+        for (int i = 0; i < membersCount; i++) {
+            SWCMember member = new SWCMember(
+                    in.readUTF(),
+                    in.readUTF(),
+                    in.readBoolean(),
+                    MemberKind.valueOf(in.readUTF()),
+                    Visibility.valueOf(in.readUTF()),
+                    this
+            );
+            int parametersCount = in.readInt();
+            for (int j = 0; j < parametersCount; j++) {
+                member.addParameter(in.readUTF(), in.readUTF());
             }
+
+            addMember(member);
+        }
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeUTF(fqName);
+        out.writeUTF(superClassFqName);
+
+        out.writeInt(members.size());
+        for (IMember member : members) {
+            out.writeUTF(member.getName());
+            out.writeUTF(((SWCMember) member).getTypeFqName());
+            out.writeBoolean(member.isStatic());
+            out.writeUTF(member.getKind().name());
+            out.writeUTF(member.getVisibility().name());
+
+            out.writeInt(member.getParameters().size());
+            for (IParameter parameter : member.getParameters()) {
+                out.writeUTF(parameter.getName());
+                out.writeUTF(parameter.getType());
+            }
+        }
+    }
+
+    private void addMember(SWCMember member) {
+        members.add(member);
+        if (member.isStatic()) {
+            staticMembers.add(member);
+        } else {
+            instanceMembers.add(member);
         }
     }
 
@@ -28,6 +28,13 @@ public class SWCMember extends AbstractMember implements IMember {
         return typeFqName;
     }
 
+    /**
+     * @return the type as it came from the digest, {@link #getType()} hides vectors
+     */
+    String getTypeFqName() {
+        return typeFqName;
+    }
+
     @Override
     public List<IParameter> getParameters() {
         if (parameters == null) {
@@ -0,0 +1,243 @@
+package codeOrchestra.profiling;
+
+import codeOrchestra.LiveCodingCLIParameters;
+import flex2.compiler.util.ThreadLocalToolkit;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-phase timings of the livecoding pipeline: invocation count, total/max time and a histogram
+ * of the durations, both for the current compile and for the whole session.
+ * <p/>
+ * Usage: <code>long started = LiveCodingTimings.start(); ... LiveCodingTimings.stop(PHASE, started);</code>
+ * Both calls are no-ops unless the timings are enabled with <code>-DcodeOrchestra.profiling.timings=true</code>.
+ * The codegen times are taken from the As3Compiler's {@link flex2.compiler.CompilerBenchmarkHelper}, so no
+ * profiler agent is required.
+ */
+public class LiveCodingTimings {
+
+    public static final String LOAD_SYNTAX_TREES = "loadSyntaxTrees";
+    public static final String TREE_DIFF = "treeDiff";
+    public static final String DIGEST_RESOLUTION = "digestResolution";
+    public static final String LIVE_CLASS_GENERATION = "liveClassGeneration";
+    public static final String CODEGEN = "codegen";
+    public static final String SWF_LINK = "swfLink";
+
+    private static final String[] PHASES = {
+            LOAD_SYNTAX_TREES, TREE_DIFF, DIGEST_RESOLUTION, LIVE_CLASS_GENERATION, CODEGEN, SWF_LINK
+    };
+
+    private static final boolean enabled = LiveCodingCLIParameters.isTimingsEnabled();
+    private static final LiveCodingTimings instance = new LiveCodingTimings();
+
+    public static LiveCodingTimings getInstance() {
+        return instance;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the start mark to be passed to {@link #stop(String, long)}
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static void stop(String phase, long started) {
+        if (enabled) {
+            instance.record(phase, System.nanoTime() - started);
+        }
+    }
+
+    private final Map<String, PhaseTimings> compileTimings = new LinkedHashMap<>();
+    private final Map<String, PhaseTimings> sessionTimings = new LinkedHashMap<>();
+    private long compileStarted;
+
+    private LiveCodingTimings() {
+        for (String phase : PHASES) {
+            compileTimings.put(phase, new PhaseTimings());
+            sessionTimings.put(phase, new PhaseTimings());
+        }
+    }
+
+    public synchronized void record(String phase, long nanos) {
+        getOrCreate(compileTimings, phase).add(nanos);
+        getOrCreate(sessionTimings, phase).add(nanos);
+    }
+
+    private static PhaseTimings getOrCreate(Map<String, PhaseTimings> timings, String phase) {
+        PhaseTimings phaseTimings = timings.get(phase);
+        if (phaseTimings == null) {
+            phaseTimings = new PhaseTimings();
+            timings.put(phase, phaseTimings);
+        }
+        return phaseTimings;
+    }
+
+    /**
+     * Resets the per-compile timings
+     */
+    public synchronized void beginCompile() {
+        compileStarted = System.currentTimeMillis();
+        for (PhaseTimings phaseTimings : compileTimings.values()) {
+            phaseTimings.reset();
+        }
+    }
+
+    /**
+     * Dumps the timings of the compile to <code>timings/&lt;kind&gt;_&lt;date&gt;.json</code> in the profiling folder
+     *
+     * @return the JSON dump
+     */
+    public String endCompile(String kind) {
+        String json;
+        synchronized (this) {
+            json = toJSON(kind, System.currentTimeMillis() - compileStarted, compileTimings);
+        }
+
+        if (LiveCodingCLIParameters.getDigestsFolder() != null) {
+            File dir = new File(LiveCodingCLIParameters.getProfilingFolder(), "timings");
+            String date = new SimpleDateFormat("yyyy_MM_dd_HH_mm_ss_SSS").format(new Date(compileStarted));
+            dir.mkdirs();
+            try (Writer writer = new FileWriter(new File(dir, kind + "_" + date + ".json"))) {
+                writer.write(json);
+            } catch (IOException e) {
+                ThreadLocalToolkit.logWarning("Can't write the livecoding timings: " + e.toString());
+            }
+        }
+
+        return json;
+    }
+
+    public synchronized Map<String, PhaseTimings> getCompileTimings() {
+        return copy(compileTimings);
+    }
+
+    public synchronized Map<String, PhaseTimings> getSessionTimings() {
+        return copy(sessionTimings);
+    }
+
+    public synchronized String getSessionTimingsJSON() {
+        return toJSON("session", -1, sessionTimings);
+    }
+
+    private static Map<String, PhaseTimings> copy(Map<String, PhaseTimings> timings) {
+        Map<String, PhaseTimings> result = new LinkedHashMap<>();
+        for (Map.Entry<String, PhaseTimings> entry : timings.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().copy());
+        }
+        return result;
+    }
+
+    private static String toJSON(String kind, long wallTime, Map<String, PhaseTimings> timings) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"kind\": \"").append(kind).append("\",\n");
+        if (wallTime >= 0) {
+            sb.append("  \"wallTimeMs\": ").append(wallTime).append(",\n");
+        }
+        sb.append("  \"phases\": {");
+        boolean first = true;
+        for (Map.Entry<String, PhaseTimings> entry : timings.entrySet()) {
+            sb.append(first ? "\n" : ",\n");
+            sb.append("    \"").append(entry.getKey()).append("\": ");
+            entry.getValue().appendJSON(sb);
+            first = false;
+        }
+        sb.append("\n  }\n}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Timings of one phase. The histogram buckets are powers of two in milliseconds:
+     * &lt;1ms, &lt;2ms, &lt;4ms ... &lt;1024ms and the rest.
+     */
+    public static class PhaseTimings {
+
+        public static final int BUCKETS = 12;
+
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private final long[] histogram = new long[BUCKETS];
+
+        private void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            histogram[getBucket(nanos)]++;
+        }
+
+        private static int getBucket(long nanos) {
+            long millis = nanos / 1000000;
+            int bucket = 0;
+            while (bucket < BUCKETS - 1 && millis >= (1L << bucket)) {
+                bucket++;
+            }
+            return bucket;
+        }
+
+        private void reset() {
+            count = 0;
+            totalNanos = 0;
+            maxNanos = 0;
+            Arrays.fill(histogram, 0);
+        }
+
+        private PhaseTimings copy() {
+            PhaseTimings result = new PhaseTimings();
+            result.count = count;
+            result.totalNanos = totalNanos;
+            result.maxNanos = maxNanos;
+            System.arraycopy(histogram, 0, result.histogram, 0, BUCKETS);
+            return result;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long[] getHistogram() {
+            return histogram.clone();
+        }
+
+        private void appendJSON(StringBuilder sb) {
+            sb.append("{\"count\": ").append(count);
+            sb.append(", \"totalMs\": ").append(toMillis(totalNanos));
+            sb.append(", \"maxMs\": ").append(toMillis(maxNanos));
+            sb.append(", \"meanMs\": ").append(toMillis(count == 0 ? 0 : totalNanos / count));
+            sb.append(", \"histogram\": {");
+            for (int i = 0; i < BUCKETS; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                String label = i < BUCKETS - 1 ? "<" + (1L << i) + "ms" : ">=" + (1L << (BUCKETS - 2)) + "ms";
+                sb.append("\"").append(label).append("\": ").append(histogram[i]);
+            }
+            sb.append("}}");
+        }
+
+        private static String toMillis(long nanos) {
+            return String.format(Locale.ROOT, "%.3f", nanos / 1000000.0);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package codeOrchestra.tree;
+
+import codeOrchestra.tree.visitor.TreeFingerprint;
+import macromedia.asc.parser.ProgramNode;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Map;
+
+/**
+ * Syntax tree of a class as it was saved by {@link LastASTHolder}, together with its method fingerprints.
+ * A snapshot backed by the on-disk store materializes the tree on first access only.
+ */
+public class ASTSnapshot {
+
+    private final String fqName;
+    private final Map<String, TreeFingerprint> methodFingerprints;
+
+    private final ProgramNode programNode;
+
+    private final ASTSnapshotStore store;
+    private final ASTSnapshotStore.Record record;
+    private SoftReference<ProgramNode> loadedProgramNode;
+
+    ASTSnapshot(String fqName, ProgramNode programNode, Map<String, TreeFingerprint> methodFingerprints) {
+        this.fqName = fqName;
+        this.programNode = programNode;
+        this.methodFingerprints = methodFingerprints;
+        this.store = null;
+        this.record = null;
+    }
+
+    ASTSnapshot(String fqName, ASTSnapshotStore store, ASTSnapshotStore.Record record) {
+        this.fqName = fqName;
+        this.programNode = null;
+        this.methodFingerprints = record.getMethodFingerprints();
+        this.store = store;
+        this.record = record;
+    }
+
+    public String getFqName() {
+        return fqName;
+    }
+
+    public Map<String, TreeFingerprint> getMethodFingerprints() {
+        return methodFingerprints;
+    }
+
+    public synchronized ProgramNode getProgramNode() {
+        if (store == null) {
+            return programNode;
+        }
+
+        ProgramNode result = loadedProgramNode != null ? loadedProgramNode.get() : null;
+        if (result == null) {
+            try {
+                result = store.read(record);
+            } catch (IOException e) {
+                throw new RuntimeException("Can't load AST snapshot of " + fqName, e);
+            }
+            loadedProgramNode = new SoftReference<>(result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,349 @@
+package codeOrchestra.tree;
+
+import codeOrchestra.tree.visitor.TreeFingerprint;
+import macromedia.asc.parser.ProgramNode;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Append-only on-disk store of syntax tree snapshots, one record per class.
+ * <p/>
+ * A record is a deflated java-serialized ProgramNode, records are read back with positional reads
+ * of the data file. The index (fq name -> record position and method fingerprints) lives in a separate
+ * file which is rewritten on {@link #flush()}, so the snapshots survive restarts of the compiler shell.
+ * <p/>
+ * Replaced records stay in the data file until the garbage outgrows the live data, then the live
+ * records are copied to a data file of the next generation. The live records are moved in place, so
+ * the snapshots holding them keep reading the right bytes, reading a replaced record fails after that.
+ */
+public class ASTSnapshotStore {
+
+    private static final String INDEX_FILE_NAME = "ast.index";
+    private static final String DATA_FILE_PREFIX = "ast.";
+    private static final String DATA_FILE_EXTENSION = ".data";
+
+    private static final int INDEX_MAGIC = 0x4C434153; // LCAS
+    private static final int INDEX_VERSION = 2; // 2: method keys carry the namespace and the static flag
+
+    private static final long MIN_COMPACTION_GARBAGE = 4 * 1024 * 1024;
+
+    public static class Record {
+        // guarded by the store, updated when the record is moved by a compaction
+        private long offset;
+        private final int length;
+        private final Map<String, TreeFingerprint> methodFingerprints;
+
+        private Record(long offset, int length, Map<String, TreeFingerprint> methodFingerprints) {
+            this.offset = offset;
+            this.length = length;
+            this.methodFingerprints = methodFingerprints;
+        }
+
+        public Map<String, TreeFingerprint> getMethodFingerprints() {
+            return methodFingerprints;
+        }
+    }
+
+    private final File directory;
+    private final long minCompactionGarbage;
+
+    private final Map<String, Record> index = new HashMap<>();
+    // the records still in the data file which are not in the index anymore
+    private final List<Record> replacedRecords = new ArrayList<>();
+
+    private int generation;
+    private RandomAccessFile dataFile;
+    private FileChannel dataChannel;
+
+    private long liveSize;
+    private long garbageSize;
+    private boolean dirty;
+
+    public ASTSnapshotStore(File directory) {
+        this(directory, MIN_COMPACTION_GARBAGE);
+    }
+
+    ASTSnapshotStore(File directory, long minCompactionGarbage) {
+        this.directory = directory;
+        this.minCompactionGarbage = minCompactionGarbage;
+    }
+
+    public synchronized void open() throws IOException {
+        if (dataChannel != null) {
+            return;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Can't create AST snapshots directory " + directory);
+        }
+
+        File indexFile = new File(directory, INDEX_FILE_NAME);
+        if (indexFile.exists()) {
+            try {
+                readIndex(indexFile);
+            } catch (IOException e) {
+                // Broken or outdated index, start from scratch
+                index.clear();
+                liveSize = 0;
+                generation++;
+            }
+        }
+
+        openDataFile(false);
+
+        // The data file could have been truncated or replaced while the index survived
+        long dataSize = dataChannel.size();
+        for (Record record : index.values()) {
+            if (record.offset + record.length > dataSize) {
+                index.clear();
+                liveSize = 0;
+                openDataFile(true);
+                break;
+            }
+        }
+    }
+
+    public synchronized Set<String> getFqNames() {
+        return new HashSet<>(index.keySet());
+    }
+
+    public synchronized Record getRecord(String fqName) {
+        return index.get(fqName);
+    }
+
+    public synchronized Record put(String fqName, ProgramNode programNode, Map<String, TreeFingerprint> methodFingerprints) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_SPEED)))) {
+            out.writeObject(programNode);
+        }
+
+        long offset = dataChannel.size();
+        if (offset + bytes.size() > Integer.MAX_VALUE) {
+            throw new IOException("AST snapshots data file is too big");
+        }
+        dataChannel.write(ByteBuffer.wrap(bytes.toByteArray()), offset);
+
+        Record record = new Record(offset, bytes.size(), methodFingerprints);
+        Record replaced = index.put(fqName, record);
+        if (replaced != null) {
+            replacedRecords.add(replaced);
+            garbageSize += replaced.length;
+            liveSize -= replaced.length;
+        }
+        liveSize += record.length;
+        dirty = true;
+
+        return record;
+    }
+
+    public synchronized ProgramNode read(Record record) throws IOException {
+        if (record.offset < 0) {
+            throw new IOException("AST snapshot record was replaced and compacted away");
+        }
+
+        ByteBuffer bytes = ByteBuffer.allocate(record.length);
+        while (bytes.hasRemaining()) {
+            if (dataChannel.read(bytes, record.offset + bytes.position()) < 0) {
+                throw new IOException("Truncated AST snapshot record");
+            }
+        }
+        bytes.flip();
+
+        try (ObjectInputStream in = new ObjectInputStream(new InflaterInputStream(new ByteBufferInputStream(bytes)))) {
+            return (ProgramNode) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Corrupted AST snapshot record", e);
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        if (garbageSize > minCompactionGarbage && garbageSize > liveSize) {
+            compact();
+        }
+
+        dataChannel.force(false);
+        writeIndex();
+        dirty = false;
+    }
+
+    public synchronized void clear() throws IOException {
+        for (Record record : index.values()) {
+            record.offset = -1;
+        }
+        for (Record record : replacedRecords) {
+            record.offset = -1;
+        }
+        replacedRecords.clear();
+        index.clear();
+        liveSize = 0;
+        openDataFile(true);
+        writeIndex();
+        dirty = false;
+    }
+
+    private void compact() throws IOException {
+        File oldFile = getDataFile(generation);
+        RandomAccessFile newDataFile = new RandomAccessFile(getDataFile(generation + 1), "rw");
+        FileChannel newChannel = newDataFile.getChannel();
+        newChannel.truncate(0);
+
+        try {
+            for (Record record : index.values()) {
+                long transferred = 0;
+                while (transferred < record.length) {
+                    transferred += dataChannel.transferTo(record.offset + transferred, record.length - transferred, newChannel);
+                }
+            }
+        } catch (IOException e) {
+            newChannel.close();
+            newDataFile.close();
+            throw e;
+        }
+
+        // Only once the copy succeeded, the live records are moved and the replaced ones are gone
+        long offset = 0;
+        for (Record record : index.values()) {
+            record.offset = offset;
+            offset += record.length;
+        }
+        for (Record record : replacedRecords) {
+            record.offset = -1;
+        }
+        replacedRecords.clear();
+
+        dataChannel.close();
+        dataFile.close();
+        if (!oldFile.delete()) {
+            oldFile.deleteOnExit();
+        }
+
+        generation++;
+        dataFile = newDataFile;
+        dataChannel = newChannel;
+        garbageSize = 0;
+    }
+
+    private void openDataFile(boolean nextGeneration) throws IOException {
+        if (dataChannel != null) {
+            dataChannel.close();
+            dataFile.close();
+            if (nextGeneration) {
+                File oldFile = getDataFile(generation);
+                if (!oldFile.delete()) {
+                    oldFile.deleteOnExit();
+                }
+            }
+        }
+        if (nextGeneration) {
+            generation++;
+        }
+
+        dataFile = new RandomAccessFile(getDataFile(generation), "rw");
+        dataChannel = dataFile.getChannel();
+        if (nextGeneration) {
+            dataChannel.truncate(0);
+        }
+        garbageSize = 0;
+    }
+
+    private File getDataFile(int generation) {
+        return new File(directory, DATA_FILE_PREFIX + generation + DATA_FILE_EXTENSION);
+    }
+
+    private void readIndex(File indexFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                throw new IOException("Unknown AST snapshots index format");
+            }
+            generation = in.readInt();
+
+            int recordsCount = in.readInt();
+            for (int i = 0; i < recordsCount; i++) {
+                String fqName = in.readUTF();
+                long offset = in.readLong();
+                int length = in.readInt();
+
+                int fingerprintsCount = in.readInt();
+                Map<String, TreeFingerprint> methodFingerprints = new HashMap<>(fingerprintsCount * 2);
+                for (int j = 0; j < fingerprintsCount; j++) {
+                    String methodKey = in.readUTF();
+                    long hash = in.readLong();
+                    boolean exact = in.readBoolean();
+                    methodFingerprints.put(methodKey, TreeFingerprint.restore(hash, exact));
+                }
+
+                index.put(fqName, new Record(offset, length, methodFingerprints));
+                liveSize += length;
+            }
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        File indexFile = new File(directory, INDEX_FILE_NAME);
+        File tempFile = new File(directory, INDEX_FILE_NAME + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(generation);
+
+            out.writeInt(index.size());
+            for (Map.Entry<String, Record> entry : index.entrySet()) {
+                Record record = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(record.offset);
+                out.writeInt(record.length);
+
+                out.writeInt(record.methodFingerprints.size());
+                for (Map.Entry<String, TreeFingerprint> fingerprintEntry : record.methodFingerprints.entrySet()) {
+                    out.writeUTF(fingerprintEntry.getKey());
+                    out.writeLong(fingerprintEntry.getValue().getHash());
+                    out.writeBoolean(fingerprintEntry.getValue().isExact());
+                }
+            }
+        }
+
+        if (indexFile.exists() && !indexFile.delete()) {
+            throw new IOException("Can't replace AST snapshots index " + indexFile);
+        }
+        if (!tempFile.renameTo(indexFile)) {
+            throw new IOException("Can't write AST snapshots index " + indexFile);
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package codeOrchestra.tree;
 
 import codeOrchestra.FakeASVirtualFile;
+import codeOrchestra.ParallelModifications;
 import codeOrchestra.util.StringUtils;
 import flex2.compiler.CompilationUnit;
 import flex2.compiler.CompilerAPI;
@@ -51,7 +52,11 @@ public class ClassCONode extends CONode {
             throw new RuntimeException();
         }
         generateTree();
-        CompilerAPI.addedSources.add(mySource);
+        // The tree is our own, the compiler-wide state is only touched on the compiler thread
+        ParallelModifications.onCompilerThread(() -> {
+            cx.addValidImport(packageName + ":" + className);
+            CompilerAPI.addedSources.add(mySource);
+        });
         addedToProject = true;
 
         return myClass;
@@ -160,8 +165,6 @@ public class ClassCONode extends CONode {
             TreeUtil.addImport(compilationUnit, anImport.packageName, anImport.className);
         }
 
-        cx.addValidImport(packageName + ":" + className);
-
         return compilationUnit;
     }
 
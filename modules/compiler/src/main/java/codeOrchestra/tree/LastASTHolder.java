@@ -1,11 +1,18 @@
 package codeOrchestra.tree;
 
+import codeOrchestra.LiveCodingCLIParameters;
+import codeOrchestra.tree.visitor.NodeVisitor;
+import codeOrchestra.tree.visitor.NodeVisitorFactory;
+import codeOrchestra.tree.visitor.TreeFingerprint;
+import flex2.compiler.util.ThreadLocalToolkit;
+import macromedia.asc.parser.ClassDefinitionNode;
+import macromedia.asc.parser.FunctionDefinitionNode;
 import macromedia.asc.parser.ProgramNode;
-import org.apache.commons.lang3.SerializationUtils;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.*;
 
 /**
  * @author Alexander Eliseyev
@@ -20,25 +27,74 @@ public class LastASTHolder {
         return instance;
     }
 
-    private Map<String, ProgramNode> programNodes = new HashMap<>();
+    private Map<String, ASTSnapshot> snapshots = new HashMap<>();
+
+    private ASTSnapshotStore store;
+    private boolean storeInitialized;
 
     private LastASTHolder() {
     }
 
+    /**
+     * @return the on-disk store if it is enabled, snapshots left by the previous sessions are available right away
+     */
+    private ASTSnapshotStore getStore() {
+        if (!storeInitialized) {
+            storeInitialized = true;
+
+            if (LiveCodingCLIParameters.isASTSnapshotStoreEnabled()) {
+                ASTSnapshotStore newStore = new ASTSnapshotStore(new File(LiveCodingCLIParameters.getASTSnapshotsFolder()));
+                try {
+                    newStore.open();
+                    for (String fqName : newStore.getFqNames()) {
+                        snapshots.put(fqName, new ASTSnapshot(fqName, newStore, newStore.getRecord(fqName)));
+                    }
+                    store = newStore;
+                } catch (IOException e) {
+                    ThreadLocalToolkit.logWarning("Can't open the AST snapshots store: " + e.toString());
+                }
+            }
+        }
+        return store;
+    }
+
     public void add(String fqName, ProgramNode programNode) {
+        ASTSnapshotStore store = getStore();
+        if (store != null) {
+            long timeStarted = System.currentTimeMillis();
+            long allocationStarted = TRACE ? getAllocatedBytes() : 0;
+
+            // Serialization makes a deep copy by itself, no need to clone
+            Map<String, TreeFingerprint> fingerprints = computeMethodFingerprints(programNode);
+            try {
+                ASTSnapshotStore.Record record = store.put(fqName, programNode, fingerprints);
+                snapshots.put(fqName, new ASTSnapshot(fqName, store, record));
+
+                if (TRACE) {
+                    System.out.println("Storing of " + fqName + " AST took " + (System.currentTimeMillis() - timeStarted) + "ms, "
+                            + (getAllocatedBytes() - allocationStarted) / 1024 + "KB allocated");
+                }
+                return;
+            } catch (IOException | RuntimeException e) {
+                ThreadLocalToolkit.logWarning("Can't store the AST snapshot of " + fqName + ": " + e.toString());
+            }
+        }
+
         long timeStarted = System.currentTimeMillis();
+        long allocationStarted = TRACE ? getAllocatedBytes() : 0;
 
         ProgramNode clone = null;
-        try{
-            clone = programNode.clone();
-        }catch (CloneNotSupportedException ex)
-        {
-            System.out.println("[LastASTHolder#add] : " + ex.toString());
+        TreeCopier copier = new TreeCopier();
+        try {
+            clone = copier.copyTree(programNode);
+        } catch (RuntimeException ex) {
+            ThreadLocalToolkit.logWarning("Can't copy the AST of " + fqName + ": " + ex.toString());
         }
-//        ProgramNode clone = SerializationUtils.clone(programNode);
 
         if (TRACE) {
-            System.out.println("Cloning of " + fqName + " AST took " + (System.currentTimeMillis() - timeStarted) + "ms");
+            System.out.println("Cloning of " + fqName + " AST took " + (System.currentTimeMillis() - timeStarted) + "ms, "
+                    + (getAllocatedBytes() - allocationStarted) / 1024 + "KB allocated, "
+                    + copier.getNodesCopied() + " nodes copied, " + copier.getValuesCloned() + " values cloned");
         }
 
             /*
@@ -55,19 +111,110 @@ public class LastASTHolder {
             }
             */
 
-        programNodes.put(fqName, clone);
+        Map<String, TreeFingerprint> fingerprints = Collections.emptyMap();
+        if (clone != null) {
+            timeStarted = System.currentTimeMillis();
+
+            fingerprints = computeMethodFingerprints(clone);
+
+            if (TRACE) {
+                System.out.println("Fingerprinting of " + fqName + " methods took " + (System.currentTimeMillis() - timeStarted) + "ms");
+            }
+        }
 
+        snapshots.put(fqName, new ASTSnapshot(fqName, clone, fingerprints));
     }
 
-    public Map<String, ProgramNode> getProgramNodes() {
-        return programNodes;
+    /**
+     * @return bytes allocated by the current thread so far, or 0 if the JVM can't tell
+     */
+    private static long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static Map<String, TreeFingerprint> computeMethodFingerprints(ProgramNode programNode) {
+        ClassDefinitionNode classDefinition = TreeNavigator.getPackageClassDefinition(programNode);
+        if (classDefinition == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, TreeFingerprint> result = new HashMap<>();
+        NodeVisitor<FunctionDefinitionNode> visitor = NodeVisitorFactory.getVisitor(FunctionDefinitionNode.class);
+        for (FunctionDefinitionNode methodDefinition : TreeNavigator.getMethodDefinitions(classDefinition)) {
+            try {
+                result.put(getMethodKey(methodDefinition), visitor.getFingerprint(methodDefinition));
+            } catch (RuntimeException e) {
+                // No fingerprint - the method will be compared with the full tree walk
+                if (TRACE) {
+                    System.out.println("[LastASTHolder#add] : " + e.toString());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Methods are matched by name, kind (getters and setters share the name), namespace and static flag
+     * (a static and an instance method, or methods in different namespaces, share the name too)
+     */
+    public static String getMethodKey(FunctionDefinitionNode functionDefinitionNode) {
+        String namespace = TreeNavigator.getNamespaceVisibility(functionDefinitionNode);
+        if (namespace == null) {
+            namespace = TreeNavigator.getVisibility(functionDefinitionNode).name();
+        }
+        return (TreeNavigator.isStaticMethod(functionDefinitionNode) ? "static:" : "") + functionDefinitionNode.name.kind
+                + ":" + namespace + "::" + functionDefinitionNode.fexpr.identifier.name;
+    }
+
+    public Map<String, TreeFingerprint> getMethodFingerprints(String fqName) {
+        getStore();
+
+        ASTSnapshot snapshot = snapshots.get(fqName);
+        if (snapshot == null) {
+            return Collections.emptyMap();
+        }
+        return snapshot.getMethodFingerprints();
+    }
+
+    /**
+     * @return a copy of the current snapshots, it is not affected by the later {@link #add} calls
+     */
+    public Map<String, ASTSnapshot> getSnapshots() {
+        getStore();
+        return new HashMap<>(snapshots);
+    }
+
+    /**
+     * Writes out the index of the on-disk store, if there is one
+     */
+    public void flush() {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.flush();
+        } catch (IOException e) {
+            ThreadLocalToolkit.logWarning("Can't write the AST snapshots index: " + e.toString());
+        }
     }
 
     public void clearCache() {
-        programNodes.clear();
+        snapshots.clear();
+        if (getStore() != null) {
+            try {
+                store.clear();
+            } catch (IOException e) {
+                ThreadLocalToolkit.logWarning("Can't clear the AST snapshots store: " + e.toString());
+            }
+        }
     }
 
     public Set<String> getAvailableFqNames() {
-        return programNodes.keySet();
+        getStore();
+        return snapshots.keySet();
     }
 }
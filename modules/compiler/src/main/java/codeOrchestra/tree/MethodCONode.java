@@ -2,7 +2,6 @@ package codeOrchestra.tree;
 
 import macromedia.asc.parser.*;
 import macromedia.asc.util.Context;
-import org.apache.commons.lang3.SerializationUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -141,7 +140,7 @@ public class MethodCONode extends CONode {
                 }
             }
 
-            this.paramTypeNode = SerializationUtils.clone(paramTypeNode);
+            this.paramTypeNode = TreeCopier.copy(paramTypeNode);
             this.initializer = initializer;
         }
 
@@ -2,29 +2,109 @@ package codeOrchestra.tree;
 
 import codeOrchestra.LiveCodingPolicy;
 import codeOrchestra.LiveCodingUtil;
+import codeOrchestra.tree.visitor.TreeFingerprint;
 import codeOrchestra.util.Pair;
+import codeOrchestra.util.StringUtils;
 import macromedia.asc.parser.*;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
+ * Thread-safe, the livecoding modifications may query it concurrently (see ParallelModifications)
+ *
  * @author Anton.I.Neverov
  * @author Alexander Eliseyev
  */
 public class ProjectNavigator {
 
-    private final Map<String, ProgramNode> loadedSyntaxTrees = new HashMap<>();
+    private final Map<String, ASTSnapshot> loadedSyntaxTrees = new HashMap<>();
+
+    // package -> class name -> fq name, built from the fq names, so that no tree is loaded to fill it
+    private final Map<String, Map<String, String>> packageIndex = new HashMap<>();
+    // fq name -> live method classes, filled on the first lookup of the class after it was added
+    private final Map<String, ClassEntry> classEntries = new HashMap<>();
+
     public Map<String, Set<String>> modelDependencies;
 
     // package -> list of pairs (original class name, live short class name)
     private Map<String, List<Pair<String, String>>> auxLivecodingClasses = new HashMap<>();
 
-    public void add(String fqName, ProgramNode node) {
-        loadedSyntaxTrees.put(fqName, node);
+    public synchronized void add(String fqName, ProgramNode node) {
+        add(new ASTSnapshot(fqName, node, Collections.<String, TreeFingerprint>emptyMap()));
+    }
+
+    public synchronized void add(ASTSnapshot snapshot) {
+        String fqName = snapshot.getFqName();
+        loadedSyntaxTrees.put(fqName, snapshot);
+
+        classEntries.remove(fqName);
+        String packageName = StringUtils.namespaceFromLongName(fqName);
+        Map<String, String> packageClasses = packageIndex.get(packageName);
+        if (packageClasses == null) {
+            packageClasses = new HashMap<>();
+            packageIndex.put(packageName, packageClasses);
+        }
+        packageClasses.put(StringUtils.shortNameFromLongName(fqName), fqName);
+        modelDependencies = null;
+    }
+
+    /**
+     * @return class name -> fq name, for all the loaded classes of the package
+     */
+    private Map<String, String> getPackageClasses(String packageName) {
+        Map<String, String> packageClasses = packageIndex.get(packageName);
+        if (packageClasses == null) {
+            return Collections.emptyMap();
+        }
+        return packageClasses;
     }
 
-    public void addAdditionalLivecodingClass(String packageName, String originalClassName, String liveShortClassName) {
+    /**
+     * Loads the tree of the class on the first call only
+     */
+    private ClassEntry getClassEntry(String fqName) {
+        ClassEntry classEntry = classEntries.get(fqName);
+        if (classEntry == null) {
+            classEntry = createClassEntry(loadedSyntaxTrees.get(fqName));
+            classEntries.put(fqName, classEntry);
+        }
+        return classEntry;
+    }
+
+    private static ClassEntry createClassEntry(ASTSnapshot snapshot) {
+        ProgramNode programNode = snapshot.getProgramNode();
+        ClassDefinitionNode classDefinition = programNode != null ? TreeNavigator.getPackageClassDefinition(programNode) : null;
+        if (classDefinition == null) {
+            return new ClassEntry(Collections.<String>emptySet());
+        }
+
+        Set<String> liveCodingClassNames = new HashSet<>();
+        LiveCodingPolicy liveCodingPolicy = LiveCodingUtil.getLiveCodingPolicy(classDefinition);
+        if (liveCodingPolicy.isEnabled()) {
+            for (FunctionDefinitionNode functionDefinitionNode : TreeNavigator.getMethodDefinitions(classDefinition)) {
+                if (!LiveCodingUtil.canBeUsedForLiveCoding(functionDefinitionNode, liveCodingPolicy)) {
+                    continue;
+                }
+                liveCodingClassNames.add(LiveCodingUtil.constructLiveCodingClassName(functionDefinitionNode, classDefinition.name.name));
+            }
+        }
+
+        return new ClassEntry(liveCodingClassNames);
+    }
+
+    /**
+     * @return fingerprint of the method as it was when the tree was loaded, or null if unknown
+     */
+    public synchronized TreeFingerprint getMethodFingerprint(String fqName, FunctionDefinitionNode functionDefinitionNode) {
+        ASTSnapshot snapshot = loadedSyntaxTrees.get(fqName);
+        if (snapshot == null) {
+            return null;
+        }
+        return snapshot.getMethodFingerprints().get(LastASTHolder.getMethodKey(functionDefinitionNode));
+    }
+
+    public synchronized void addAdditionalLivecodingClass(String packageName, String originalClassName, String liveShortClassName) {
         List<Pair<String, String>> shortClassNames = auxLivecodingClasses.get(packageName);
         if (shortClassNames == null) {
             shortClassNames = new ArrayList<>();
@@ -37,33 +117,20 @@ public class ProjectNavigator {
         }
     }
 
-    public List<Pair<String, String>> getAdditionalLivecodingClasses(String packageName) {
+    public synchronized List<Pair<String, String>> getAdditionalLivecodingClasses(String packageName) {
         List<Pair<String, String>> shortClassNames = auxLivecodingClasses.get(packageName);
         if (shortClassNames == null) {
             return Collections.emptyList();
         }
-        return shortClassNames;
+        return new ArrayList<>(shortClassNames);
     }
 
-    public Set<String> getLiveCodingClassNames(String packageName) {
+    public synchronized Set<String> getLiveCodingClassNames(String packageName) {
         // TODO: At this step livecoding classes are not created yet, so we collect names of methods assuming that every one of them will be extracted to some class
         HashSet<String> result = new HashSet<>();
 
-        for (ProgramNode syntaxTree : loadedSyntaxTrees.values()) {
-            ClassDefinitionNode classDefinition = TreeNavigator.getPackageClassDefinition(syntaxTree);
-            if (!classDefinition.pkgdef.name.id.pkg_part.equals(packageName)) {
-                continue;
-            }
-            LiveCodingPolicy liveCodingPolicy = LiveCodingUtil.getLiveCodingPolicy(classDefinition);
-            if (!liveCodingPolicy.isEnabled()) {
-                continue;
-            }
-            for (FunctionDefinitionNode functionDefinitionNode : TreeNavigator.getMethodDefinitions(classDefinition)) {
-                if (!LiveCodingUtil.canBeUsedForLiveCoding(functionDefinitionNode, liveCodingPolicy)) {
-                    continue;
-                }
-                result.add(LiveCodingUtil.constructLiveCodingClassName(functionDefinitionNode, classDefinition.name.name));
-            }
+        for (String fqName : getPackageClasses(packageName).values()) {
+            result.addAll(getClassEntry(fqName).liveCodingClassNames);
         }
 
         result.addAll(getAdditionalLivecodingClasses(packageName).stream().map(Pair::getO2).collect(Collectors.toList()));
@@ -71,27 +138,13 @@ public class ProjectNavigator {
         return result;
     }
 
-    public Set<String> getLiveCodingClassNames(String packageName, String className) {
+    public synchronized Set<String> getLiveCodingClassNames(String packageName, String className) {
         // TODO: At this step livecoding classes are not created yet, so we collect names of methods assuming that every one of them will be extracted to some class
         HashSet<String> result = new HashSet<>();
-        for (ProgramNode syntaxTree : loadedSyntaxTrees.values()) {
-            ClassDefinitionNode classDefinition = TreeNavigator.getPackageClassDefinition(syntaxTree);
-            if (!classDefinition.pkgdef.name.id.pkg_part.equals(packageName)) {
-                continue;
-            }
-            if (!classDefinition.name.name.equals(className)) {
-                continue;
-            }
-            LiveCodingPolicy liveCodingPolicy = LiveCodingUtil.getLiveCodingPolicy(classDefinition);
-            if (!liveCodingPolicy.isEnabled()) {
-                continue;
-            }
-            for (FunctionDefinitionNode functionDefinitionNode : TreeNavigator.getMethodDefinitions(classDefinition)) {
-                if (!LiveCodingUtil.canBeUsedForLiveCoding(functionDefinitionNode, liveCodingPolicy)) {
-                    continue;
-                }
-                result.add(LiveCodingUtil.constructLiveCodingClassName(functionDefinitionNode, classDefinition.name.name));
-            }
+
+        String fqName = getPackageClasses(packageName).get(className);
+        if (fqName != null) {
+            result.addAll(getClassEntry(fqName).liveCodingClassNames);
         }
 
         for (Pair<String, String> pair : getAdditionalLivecodingClasses(packageName)) {
@@ -104,25 +157,17 @@ public class ProjectNavigator {
         return result;
     }
 
-    public Set<String> getClassNames(String packageName) {
-        HashSet<String> result = new HashSet<>();
-        for (ProgramNode syntaxTree : loadedSyntaxTrees.values()) {
-            ClassDefinitionNode classDefinition = TreeNavigator.getPackageClassDefinition(syntaxTree);
-            if (!classDefinition.pkgdef.name.id.pkg_part.equals(packageName)) {
-                continue;
-            }
-            result.add(classDefinition.name.name);
-        }
-        return result;
+    public synchronized Set<String> getClassNames(String packageName) {
+        return new HashSet<>(getPackageClasses(packageName).keySet());
     }
 
-    public Set<String> getModelDependencies(String packageName) {
+    public synchronized Set<String> getModelDependencies(String packageName) {
         if (modelDependencies == null) {
             modelDependencies = new HashMap<>();
 
             // Fill user packages
-            for (ProgramNode programNode : loadedSyntaxTrees.values()) {
-                ClassDefinitionNode classDefinition = TreeNavigator.getPackageClassDefinition(programNode);
+            for (ASTSnapshot snapshot : loadedSyntaxTrees.values()) {
+                ClassDefinitionNode classDefinition = TreeNavigator.getPackageClassDefinition(snapshot.getProgramNode());
                 String name = classDefinition.pkgdef.name.id.pkg_part;
                 modelDependencies.put(name, new HashSet<String>() {
                     @Override
@@ -133,8 +178,8 @@ public class ProjectNavigator {
             }
 
             // Fill filtered dependencies
-            for (ProgramNode programNode : loadedSyntaxTrees.values()) {
-                ClassDefinitionNode classDefinition = TreeNavigator.getPackageClassDefinition(programNode);
+            for (ASTSnapshot snapshot : loadedSyntaxTrees.values()) {
+                ClassDefinitionNode classDefinition = TreeNavigator.getPackageClassDefinition(snapshot.getProgramNode());
                 PackageDefinitionNode pkgdef = classDefinition.pkgdef;
                 String name = pkgdef.name.id.pkg_part;
 
@@ -147,14 +192,27 @@ public class ProjectNavigator {
         return modelDependencies.get(packageName);
     }
 
-    public ProgramNode getSyntaxTree(String packageName, String className) {
-        for (ProgramNode programNode : loadedSyntaxTrees.values()) {
-            ClassDefinitionNode classDefinition = TreeNavigator.getPackageClassDefinition(programNode);
-            if (classDefinition.pkgdef.name.id.pkg_part.equals(packageName) && classDefinition.name.name.equals(className)) {
-                return programNode;
-            }
+    public synchronized ProgramNode getSyntaxTree(String packageName, String className) {
+        // Snapshots are keyed by fq name, only the requested tree gets materialized
+        ASTSnapshot snapshot = loadedSyntaxTrees.get(StringUtils.longNameFromNamespaceAndShortName(packageName, className));
+        if (snapshot == null) {
+            return null;
+        }
+
+        ProgramNode programNode = snapshot.getProgramNode();
+        ClassDefinitionNode classDefinition = programNode != null ? TreeNavigator.getPackageClassDefinition(programNode) : null;
+        if (classDefinition != null && classDefinition.pkgdef.name.id.pkg_part.equals(packageName) && classDefinition.name.name.equals(className)) {
+            return programNode;
         }
         return null;
     }
 
+    private static class ClassEntry {
+        private final Set<String> liveCodingClassNames;
+
+        private ClassEntry(Set<String> liveCodingClassNames) {
+            this.liveCodingClassNames = liveCodingClassNames;
+        }
+    }
+
 }
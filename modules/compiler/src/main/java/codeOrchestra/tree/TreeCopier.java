@@ -0,0 +1,205 @@
+package codeOrchestra.tree;
+
+import macromedia.asc.parser.Node;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deep copy of a syntax (sub)tree, a replacement for Node.clone() and SerializationUtils.clone().
+ * <p/>
+ * Nodes are copied field by field using cached per-class field tables. Unlike the hand-written clone()
+ * methods, shared references are preserved: a node reachable through several paths (pkgdef, def, ...) is
+ * copied once. Immutable leaves are shared with the source tree, transient fields (the contexts) are
+ * dropped just like serialization does, other cloneable values are copied with their own clone().
+ */
+public final class TreeCopier {
+
+    private static final Map<Class<?>, Field[]> referenceFields = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Method> cloneMethods = new ConcurrentHashMap<>();
+    private static final Method NO_CLONE_METHOD;
+
+    static {
+        try {
+            NO_CLONE_METHOD = Object.class.getMethod("toString");
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private final IdentityHashMap<Object, Object> copies = new IdentityHashMap<>();
+
+    private int nodesCopied;
+    private int valuesCloned;
+
+    public static <T extends Node> T copy(T root) {
+        return new TreeCopier().copyTree(root);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Node> T copyTree(T root) {
+        return (T) copyObject(root);
+    }
+
+    public int getNodesCopied() {
+        return nodesCopied;
+    }
+
+    public int getValuesCloned() {
+        return valuesCloned;
+    }
+
+    private Object copyObject(Object object) {
+        if (object == null || isImmutable(object)) {
+            return object;
+        }
+
+        Object copy = copies.get(object);
+        if (copy != null) {
+            return copy;
+        }
+
+        try {
+            if (object instanceof Node) {
+                return copyNode((Node) object);
+            }
+            if (object instanceof ArrayList) {
+                return copyList((ArrayList<?>) object);
+            }
+            if (object.getClass().isArray()) {
+                return copyArray(object);
+            }
+            return cloneValue(object);
+        } catch (CloneNotSupportedException | IllegalAccessException | InvocationTargetException e) {
+            throw new RuntimeException("Can't copy " + object.getClass().getName(), e);
+        }
+    }
+
+    private Node copyNode(Node node) throws CloneNotSupportedException, IllegalAccessException {
+        Node copy = node.shallowClone();
+        // Register before descending, so that back references (def, pkgdef) point to the copy
+        copies.put(node, copy);
+        nodesCopied++;
+
+        for (Field field : getReferenceFields(node.getClass())) {
+            if (Modifier.isTransient(field.getModifiers())) {
+                field.set(copy, null);
+            } else {
+                Object value = field.get(node);
+                if (value != null) {
+                    field.set(copy, copyObject(value));
+                }
+            }
+        }
+
+        return copy;
+    }
+
+    private ArrayList<Object> copyList(ArrayList<?> list) {
+        // Keeps the runtime class (ObjectList and friends)
+        @SuppressWarnings("unchecked")
+        ArrayList<Object> copy = (ArrayList<Object>) list.clone();
+        copies.put(list, copy);
+
+        for (int i = 0; i < copy.size(); i++) {
+            copy.set(i, copyObject(copy.get(i)));
+        }
+        return copy;
+    }
+
+    private Object copyArray(Object array) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+        copies.put(array, copy);
+
+        if (array.getClass().getComponentType().isPrimitive()) {
+            System.arraycopy(array, 0, copy, 0, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                Array.set(copy, i, copyObject(Array.get(array, i)));
+            }
+        }
+        return copy;
+    }
+
+    private Object cloneValue(Object value) throws IllegalAccessException, InvocationTargetException {
+        Method cloneMethod = getCloneMethod(value.getClass());
+        if (cloneMethod == NO_CLONE_METHOD) {
+            // Not cloneable, shared just like Node.clone() does
+            copies.put(value, value);
+            return value;
+        }
+
+        Object copy = cloneMethod.invoke(value);
+        copies.put(value, copy);
+        valuesCloned++;
+
+        // Collections clone shallowly, their elements still belong to the source tree
+        if (copy instanceof Collection) {
+            @SuppressWarnings("unchecked")
+            Collection<Object> collection = (Collection<Object>) copy;
+            List<Object> elements = new ArrayList<>(collection);
+            collection.clear();
+            for (Object element : elements) {
+                collection.add(copyObject(element));
+            }
+        } else if (copy instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<Object, Object> map = (Map<Object, Object>) copy;
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                entry.setValue(copyObject(entry.getValue()));
+            }
+        }
+        return copy;
+    }
+
+    private static boolean isImmutable(Object object) {
+        return object instanceof String || object instanceof Boolean || object instanceof Character
+                || (object instanceof Number && object.getClass().getName().startsWith("java.lang."))
+                || object instanceof Enum || object instanceof Class;
+    }
+
+    private static Field[] getReferenceFields(Class<?> nodeClass) {
+        Field[] fields = referenceFields.get(nodeClass);
+        if (fields == null) {
+            List<Field> result = new ArrayList<>();
+            for (Class<?> c = nodeClass; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    result.add(field);
+                }
+            }
+            fields = result.toArray(new Field[result.size()]);
+            referenceFields.put(nodeClass, fields);
+        }
+        return fields;
+    }
+
+    private static Method getCloneMethod(Class<?> valueClass) {
+        Method method = cloneMethods.get(valueClass);
+        if (method == null) {
+            method = NO_CLONE_METHOD;
+            if (Cloneable.class.isAssignableFrom(valueClass) && Modifier.isPublic(valueClass.getModifiers())) {
+                try {
+                    method = valueClass.getMethod("clone");
+                    method.setAccessible(true);
+                } catch (NoSuchMethodException e) {
+                    // Object.clone() is protected
+                } catch (RuntimeException e) {
+                    // Declared in an inaccessible class, share the value
+                    method = NO_CLONE_METHOD;
+                }
+            }
+            cloneMethods.put(valueClass, method);
+        }
+        return method;
+    }
+}
@@ -19,7 +19,8 @@ import java.util.stream.Collectors;
  */
 public abstract class NodeVisitor<N extends Node> {
 
-    private static Map<Node, Integer> visitedNodes = new HashMap<>();
+    // Per thread, trees may be walked concurrently
+    private static final ThreadLocal<Map<Node, Integer>> visitedNodes = ThreadLocal.withInitial(HashMap::new);
     private static boolean testMode = true;
     protected static final LinkedHashMap<Node, String> emptyMap = new LinkedHashMap<>();
 
@@ -76,12 +77,55 @@ public abstract class NodeVisitor<N extends Node> {
         }
 
         if (testMode) {
-            visitedNodes.clear();
+            visitedNodes.get().clear();
         }
 
         return true;
     }
 
+    /**
+     * Structural hash of the tree, see {@link TreeFingerprint}
+     */
+    public TreeFingerprint getFingerprint(N node) {
+        TreeFingerprint.Builder builder = new TreeFingerprint.Builder();
+        appendFingerprint(node, builder);
+
+        if (testMode) {
+            visitedNodes.get().clear();
+        }
+
+        return builder.build();
+    }
+
+    private void appendFingerprint(N node, TreeFingerprint.Builder builder) {
+        if (testMode) {
+            checkInfiniteRecursion(node);
+        }
+
+        // Same children and leaves as in compareTrees, so equal trees always produce equal hashes
+        List<Node> children = new ArrayList<>(getChildren(node).keySet());
+        List<Object> leaves = getLeaves(node);
+
+        if (leaves == null) {
+            throw new RuntimeException();
+        }
+
+        builder.append(leaves.size());
+        for (Object leaf : leaves) {
+            builder.appendLeaf(leaf);
+        }
+        builder.append(children.size());
+        for (Node child : children) {
+            if (child == null) {
+                builder.appendNull();
+                continue;
+            }
+            builder.append(child.getClass().getName());
+            NodeVisitor childVisitor = NodeVisitorFactory.getVisitor(child.getClass());
+            childVisitor.appendFingerprint(child, builder);
+        }
+    }
+
     private void reportDifference(Object left, Object right, int code) {
         if (!testMode) {
             return;
@@ -116,11 +160,12 @@ public abstract class NodeVisitor<N extends Node> {
         }
 
         if (testMode) {
-            visitedNodes.clear();
+            visitedNodes.get().clear();
         }
     }
 
     private static void checkInfiniteRecursion(Node node) {
+        Map<Node, Integer> visitedNodes = NodeVisitor.visitedNodes.get();
         if (visitedNodes.containsKey(node)) {
             visitedNodes.put(node, visitedNodes.get(node) + 1);
         } else {
@@ -0,0 +1,196 @@
+package codeOrchestra.tree.visitor;
+
+import macromedia.asc.parser.MetaDataEvaluator;
+import macromedia.asc.parser.Node;
+import macromedia.asc.semantics.*;
+import macromedia.asc.util.ByteList;
+import macromedia.asc.util.IntList;
+import macromedia.asc.util.NumberConstant;
+import macromedia.asc.util.NumberUsage;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * 64-bit structural hash of a syntax tree, consistent with {@link NodeVisitor#compareTrees}:
+ * trees that compare equal always have equal fingerprints.
+ * <p/>
+ * Leaves which can't be hashed by value (their equals() has no matching hashCode()) only contribute
+ * their class, such fingerprint is marked as not exact and can't prove equality on its own.
+ */
+public final class TreeFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final long NULL_TAG = 0x9e3779b97f4a7c15L;
+
+    private final long hash;
+    private final boolean exact;
+
+    private TreeFingerprint(long hash, boolean exact) {
+        this.hash = hash;
+        this.exact = exact;
+    }
+
+    /**
+     * Restores a fingerprint previously obtained with {@link #getHash()} and {@link #isExact()}
+     */
+    public static TreeFingerprint restore(long hash, boolean exact) {
+        return new TreeFingerprint(hash, exact);
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Different fingerprints guarantee that the trees differ
+     */
+    public boolean isDifferentFrom(TreeFingerprint other) {
+        return hash != other.hash;
+    }
+
+    /**
+     * Equal exact fingerprints are trusted to mean equal trees, collisions of the 64-bit hash are ignored
+     */
+    public boolean isSameAs(TreeFingerprint other) {
+        return exact && other.exact && hash == other.hash;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toHexString(hash) + (exact ? "" : "?");
+    }
+
+    static class Builder {
+
+        private long hash = FNV_OFFSET;
+        private boolean exact = true;
+
+        void append(long value) {
+            for (int i = 0; i < 8; i++) {
+                hash ^= (value & 0xff);
+                hash *= FNV_PRIME;
+                value >>>= 8;
+            }
+        }
+
+        void append(String value) {
+            if (value == null) {
+                append(NULL_TAG);
+                return;
+            }
+            append(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= FNV_PRIME;
+            }
+        }
+
+        void appendNull() {
+            append(NULL_TAG);
+        }
+
+        /**
+         * Mirrors NodeVisitor#compareObjects
+         */
+        void appendLeaf(Object leaf) {
+            if (leaf == null) {
+                appendNull();
+                return;
+            }
+            if (leaf instanceof Node) {
+                throw new RuntimeException();
+            }
+            append(leaf.getClass().getName());
+
+            if (leaf instanceof NumberUsage) {
+                NumberUsage numberUsage = (NumberUsage) leaf;
+                append(numberUsage.get_usage());
+                append(numberUsage.get_rounding());
+                append(numberUsage.get_precision());
+                append(numberUsage.get_floating_usage());
+            } else if (leaf instanceof NumberConstant) {
+                double value = ((NumberConstant) leaf).doubleValue();
+                // -0.0 == 0.0 for compareTrees
+                append(Double.doubleToLongBits(value == 0.0 ? 0.0 : value));
+            } else if (leaf instanceof TypeInfo) {
+                TypeInfo typeInfo = (TypeInfo) leaf;
+                append(typeInfo.isNullable() ? 1 : 0);
+                appendLeaf(typeInfo.getTypeValue());
+                appendLeaf(typeInfo.getPrototype());
+                appendLeaf(typeInfo.getName());
+            } else if (leaf instanceof ObjectValue) {
+                append(((ObjectValue) leaf).name);
+            } else if (leaf instanceof QName) {
+                QName qName = (QName) leaf;
+                appendLeaf(qName.ns);
+                appendLeaf(qName.name);
+            } else if (leaf instanceof ReferenceValue) {
+                ReferenceValue referenceValue = (ReferenceValue) leaf;
+                appendLeaf(referenceValue.getBase());
+                appendLeaf(referenceValue.getType());
+                appendLeaf(referenceValue.name);
+            } else if (leaf instanceof MetaData) {
+                MetaData metaData = (MetaData) leaf;
+                appendLeaf(metaData.id);
+                if (metaData.values == null) {
+                    appendNull();
+                } else {
+                    append(metaData.values.length);
+                    for (Value value : metaData.values) {
+                        appendLeaf(value);
+                    }
+                }
+            } else if (leaf instanceof MetaDataEvaluator.KeyValuePair) {
+                MetaDataEvaluator.KeyValuePair keyValuePair = (MetaDataEvaluator.KeyValuePair) leaf;
+                append(keyValuePair.key);
+                append(keyValuePair.obj);
+            } else if (leaf instanceof ByteList) {
+                // Contents only, the backing array may be larger than the list
+                ByteList byteList = (ByteList) leaf;
+                append(byteList.size());
+                for (int i = 0; i < byteList.size(); i++) {
+                    append(byteList.get(i));
+                }
+            } else if (leaf instanceof IntList) {
+                IntList intList = (IntList) leaf;
+                append(intList.size());
+                for (int i = 0; i < intList.size(); i++) {
+                    append(intList.get(i));
+                }
+            } else if (leaf instanceof String) {
+                append((String) leaf);
+            } else if (leaf instanceof Enum) {
+                append(((Enum) leaf).name());
+            } else if (leaf instanceof Boolean || leaf instanceof Character || leaf instanceof Number || leaf instanceof BitSet) {
+                // Boxed primitives from java.lang and BitSet have consistent equals() and hashCode()
+                if (leaf instanceof Number && !leaf.getClass().getName().startsWith("java.lang.")) {
+                    exact = false;
+                } else {
+                    append(leaf.hashCode());
+                }
+            } else if (leaf instanceof Collection && ((Collection) leaf).isEmpty()) {
+                append(0);
+            } else {
+                exact = false;
+            }
+        }
+
+        TreeFingerprint build() {
+            // Final avalanche (MurmurHash3 fmix64)
+            long h = hash;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return new TreeFingerprint(h, exact);
+        }
+    }
+}
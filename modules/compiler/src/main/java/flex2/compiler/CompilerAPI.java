@@ -19,6 +19,7 @@
 
 package flex2.compiler;
 
+import codeOrchestra.ParallelModifications;
 import flash.fonts.FontManager;
 import flash.localization.LocalizationManager;
 import flash.localization.ResourceBundleLocalizer;
@@ -433,6 +434,10 @@ public final class CompilerAPI
         {
             int postprocessCount = 0;
 
+            // CodeOrchestra: added, the targets waiting for parse1 are parsed on the worker pool while
+            // the loop below works through the targets in the source order
+            parseAhead(sources, targets, compilers, symbolTable, 0, targets.size());
+
             // 1. targets.size() == sources.size()
             // 2. targets.get(i) == sources.get(i) or targets.get(i) == null
             for (int i = 0, size = targets.size(); i < size; i++)
@@ -1263,6 +1268,8 @@ public final class CompilerAPI
             {
                 batch2(sources, units, igraph, dgraph, symbolTable, compilers, sourceList, sourcePath, resources, swcContext, configuration);
             }
+            // CodeOrchestra: added
+            discardParsedAhead(compilers);
 			symbolTable.perCompileData.reuse();
 
             if (swcContext.errorLocations().size() > 0)
@@ -1280,6 +1287,19 @@ public final class CompilerAPI
             if (forcedToStop()) break;
         }
         while (unitsReset(units) > 0);
+
+        // CodeOrchestra: added, the hashes are taken right after compiling, so that the next validation
+        // of the same sources (fcsh, oem, watch or the incremental cache) can check them
+        ContentHash.updateAll(sources);
+
+        // CodeOrchestra: added, shows which symbol tables the compiler threads contend for
+        if (ThreadLocalToolkit.getBenchmark() != null && configuration != null && configuration.getBenchmarkCompilerDetails() > 4)
+        {
+            for (StripedMap<?, ?> map : symbolTable.getStripedMaps())
+            {
+                ThreadLocalToolkit.logInfo(map.toString());
+            }
+        }
     }
 
     public static List<CompilationUnit>
@@ -1864,6 +1884,10 @@ public final class CompilerAPI
                 sources.addAll(includedClasses.values());
         }
 
+        // CodeOrchestra: added, the touched but unchanged files are taken as they are
+        ContentHash.checkAll(sources);
+        ContentHash.checkAll(resources.sources().values());
+
         // build a dependency graph
         for (Source source : sources)
         {
@@ -2745,6 +2769,10 @@ public final class CompilerAPI
     {
         boolean result = true;
 
+        // CodeOrchestra: added, the .as sources are parsed on the worker pool, the units are still
+        // processed below one by one in the source order
+        parseAhead(sources, null, compilers, symbolTable, start, end);
+
         for (int i = start; i < end; i++)
         {
             Source s = sources.get(i);
@@ -2780,9 +2808,64 @@ public final class CompilerAPI
             }
         }
 
+        // CodeOrchestra: added, the livecoding modifications may add generated sources
+        ParallelModifications.await();
+
         return result;
     }
 
+    /**
+     * CodeOrchestra: added
+     * <p/>
+     * Hands the fresh .as sources in [start, end) to the worker pool, see As3Compiler.parseAhead().
+     * With targets, only the sources selected by nextSource() are considered.
+     */
+    private static void parseAhead(List<Source> sources, List<Source> targets, flex2.compiler.SubCompiler[] compilers,
+                                   SymbolTable symbolTable, int start, int end)
+    {
+        if (!WorkerPool.isEnabled())
+        {
+            return;
+        }
+
+        for (int i = start; i < end; i++)
+        {
+            if (targets != null && targets.get(i) == null)
+            {
+                continue;
+            }
+
+            Source s = sources.get(i);
+            if (s == null || s.isCompiled() || !s.isPreprocessed() || s.getCompilationUnit() != null)
+            {
+                continue;
+            }
+
+            flex2.compiler.SubCompiler c = getCompiler(s, compilers);
+            if (c instanceof As3Compiler)
+            {
+                ((As3Compiler) c).parseAhead(s, symbolTable);
+            }
+        }
+    }
+
+    // CodeOrchestra: added, drops the syntax trees parse1() didn't pick up, e.g. after too many errors
+    private static void discardParsedAhead(flex2.compiler.SubCompiler[] compilers)
+    {
+        if (!WorkerPool.isEnabled())
+        {
+            return;
+        }
+
+        for (flex2.compiler.SubCompiler c : compilers)
+        {
+            if (c instanceof As3Compiler)
+            {
+                ((As3Compiler) c).discardParsedAhead();
+            }
+        }
+    }
+
     private static CompilationUnit parse1(Source s, flex2.compiler.SubCompiler[] compilers, SymbolTable symbolTable)
     {
         if (s.isCompiled())
@@ -19,6 +19,7 @@
 
 package flex2.compiler;
 
+import codeOrchestra.profiling.LiveCodingTimings;
 import flex2.compiler.util.PerformanceData;
 import flash.util.Trace;
 
@@ -134,8 +135,15 @@ public class CompilerBenchmarkHelper
     {
         if (compileTimes != null && phase >= PREPROCESS && phase <= POSTPROCESS)
         {
+            long time = System.currentTimeMillis() - startTime;
             compileTimes[phase].invocationCount++;
-            compileTimes[phase].totalTime += System.currentTimeMillis() - startTime;
+            compileTimes[phase].totalTime += time;
+
+            // CodeOrchestra: added (the embedded compilers report to the helper of their mxml compiler, not "as3")
+            if (phase == GENERATE && LiveCodingTimings.isEnabled() && "as3".equals(compilerName))
+            {
+                LiveCodingTimings.getInstance().record(LiveCodingTimings.CODEGEN, time * 1000000);
+            }
         }
     }
 
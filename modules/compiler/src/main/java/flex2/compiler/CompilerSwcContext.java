@@ -487,6 +487,16 @@ public class CompilerSwcContext
     	return (swcGroup != null) ? swcGroup.getSwc(name) : null;
     }
 
+    /**
+     * CodeOrchestra: added
+     *
+     * @return the SWCs of the library path, the external library path, the include libraries and the themes
+     */
+    public SwcGroup getSwcGroup()
+    {
+        return swcGroup;
+    }
+
     private boolean locked = false;
 
     private SwcGroup swcGroup;
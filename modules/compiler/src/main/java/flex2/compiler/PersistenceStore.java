@@ -25,6 +25,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -71,12 +74,18 @@ import flex2.compiler.util.LocalLogger.Warning;
  * need, so we don't duplicate it in the cache.  The cache is stored
  * as a single monolithic file.  Assets for each CompilationUnit are
  * encoded as a SWF and included in the cache file.
+ *
+ * CodeOrchestra: the file is read into a heap ByteBuffer in one go, it is
+ * not mapped: a mapping outlives the read and keeps the file locked on
+ * Windows, where the caller reopens it to rewrite it. The records of the
+ * Source and CompilationUnit objects are located through an index (source
+ * name, offset) written after them.
  */
 final class PersistenceStore
 {
 	// C: If you update the encoding/decoding algorithm, please increment the minor version by 1. Thanks.
 	private static final int major_version = 4;
-	private static final int minor_version = 7;
+	private static final int minor_version = 10;
 
 	PersistenceStore(Configuration configuration, RandomAccessFile file)
 	{
@@ -99,6 +108,9 @@ final class PersistenceStore
 	private final ArrayKey key;
     private final FontManager fontManager;
 
+    // CodeOrchestra: added, the contents of the cache file during read()
+    private ByteBuffer buffer;
+
     /**
      * An input stream that reads from another input stream, but sets a
      * limit on how much data it will read.
@@ -176,29 +188,51 @@ final class PersistenceStore
     }
 
     /**
-     * An InputStream that reads from a RandomAccessFile.  Calls to close()
-     * do not close the parent RandomAccessFile.
+     * CodeOrchestra: added
+     * <p/>
+     * An InputStream that reads from a ByteBuffer, starting at the
+     * buffer's position.  Reads advance the position of the buffer.
      */
-    private static class RandomAccessFileInputStream extends InputStream {
-		private RandomAccessFile raf;
+    private static class ByteBufferInputStream extends InputStream {
+		private ByteBuffer buffer;
 
-    	public RandomAccessFileInputStream(RandomAccessFile raf) {
-    		this.raf = raf;
+    	public ByteBufferInputStream(ByteBuffer buffer) {
+    		this.buffer = buffer;
     	}
 
 		@Override
 		public int read() throws IOException {
-			return raf.read();
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
 		}
 
     	@Override
 		public int read(byte[] b, int off, int len) throws IOException {
-    		return raf.read(b, off, len);
+    		if (len == 0) {
+    			return 0;
+    		}
+    		if (!buffer.hasRemaining()) {
+    			return -1;
+    		}
+    		len = Math.min(len, buffer.remaining());
+    		buffer.get(b, off, len);
+    		return len;
 		}
 
 		@Override
 		public int read(byte[] b) throws IOException {
-			return raf.read(b);
+			return read(b, 0, b.length);
+		}
+
+		@Override
+		public int available() throws IOException {
+			return buffer.remaining();
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + skipped);
+			return skipped;
 		}
     }
 
@@ -234,8 +268,8 @@ final class PersistenceStore
 			  SourcePath sourcePath,
 			  ResourceContainer resources,
 	          ResourceBundlePath bundlePath,
-	          List sources,
-	          List units,
+	          List<?> sources,
+	          List<?> units,
 	          int checksum,
 	          int cmd_checksum,
 	          int linker_checksum,
@@ -254,6 +288,7 @@ final class PersistenceStore
 		out.flush();
 		long offsetOfPointerToConstantPool = file.getFilePointer();
 		file.writeLong(0); // a dummy value for the pointer to the constant pool; will be replaced later
+		file.writeLong(0); // a dummy value for the pointer to the index; will be replaced later
 
 		writeFileSpec(fileSpec, pool, out);
 
@@ -302,18 +337,24 @@ final class PersistenceStore
 
 		int totalCount = c1.size() + c2.size() + c3.size() + c4.size() + c5.size();
 
-		writeU32(out, totalCount);
-		writeCompilationUnits(c1,          pool, out);
-		writeCompilationUnits(c2,          pool, out);
-		writeCompilationUnits(c3.values(), pool, out);
-		writeCompilationUnits(c5.values(), pool, out);
-		writeCompilationUnits(c4,          pool, out);
+		List<Long> index = new ArrayList<>(totalCount);
+
+		writeCompilationUnits(c1,          pool, out, index);
+		writeCompilationUnits(c2,          pool, out, index);
+		writeCompilationUnits(c3.values(), pool, out, index);
+		writeCompilationUnits(c5.values(), pool, out, index);
+		writeCompilationUnits(c4,          pool, out, index);
 
-		// go back to near the beginning, and write out the location of the constant pool
+		out.flush();
+		long offsetOfIndex = file.getFilePointer();
+		writeIndex(index, out);
+
+		// go back to near the beginning, and write out the location of the constant pool and the index
 		out.flush();
 		long offsetOfConstantPool = file.getFilePointer();
 		file.seek(offsetOfPointerToConstantPool);
 		file.writeLong(offsetOfConstantPool);
+		file.writeLong(offsetOfIndex);
 		file.seek(offsetOfConstantPool);
 
 		writeConstantPool(pool, out);
@@ -444,7 +485,7 @@ final class PersistenceStore
 		}
 	}
 
-	private void writeSourceNames(List sources, Map<Object, Integer> pool, OutputStream out) throws IOException
+	private void writeSourceNames(List<?> sources, Map<Object, Integer> pool, OutputStream out) throws IOException
 	{
 		for (Object source : sources) {
 			Source s = (Source) source;
@@ -609,10 +650,14 @@ final class PersistenceStore
 		}
 	}
 
-	private void writeCompilationUnits(Collection<Source> sources, Map<Object, Integer> pool, OutputStream out) throws IOException
+	private void writeCompilationUnits(Collection<Source> sources, Map<Object, Integer> pool, OutputStream out,
+	                                   List<Long> index) throws IOException
 	{
 		for (Source s : sources)
         {
+			out.flush();
+			index.add(file.getFilePointer());
+
 			writeSource(s, pool, out);
 
 			CompilationUnit u = s.getCompilationUnit();
@@ -623,6 +668,16 @@ final class PersistenceStore
 		}
 	}
 
+	// CodeOrchestra: added, the offsets of the Source records, in the order they are written
+	private void writeIndex(List<Long> index, OutputStream out) throws IOException
+	{
+		writeU32(out, index.size());
+		for (long offset : index)
+		{
+			writeLong(out, offset);
+		}
+	}
+
 	private void writeSource(Source s, Map<Object, Integer> pool, OutputStream out) throws IOException
 	{
 	    final CompilationUnit unit = s.getCompilationUnit();
@@ -669,6 +724,7 @@ final class PersistenceStore
 		writeU8(out, s.isDebuggable() ? 1 : 0);
         writeU8(out, hasUnit ? 1 : 0);
 		writeLong(out, s.getFileTime());
+		writeLong(out, s.getFileHash());
 
         // signatures
         {
@@ -894,17 +950,71 @@ final class PersistenceStore
 	//FIXME all codepaths to here are List<Source>; this code expects List<String>, which is consumed by
     //      readCompilationUnits() which expects strings too, then converts them back to List<Source>.
     //      this is abusive; we should create a temporary list for this purpose.
+	@SuppressWarnings("unchecked")
 	int read(FileSpec fileSpec,
 			 SourceList sourceList,
 			 SourcePath sourcePath,
 			 ResourceContainer resources,
 	         ResourceBundlePath bundlePath,
-	         List sources,
+	         List<?> sources,
 	         List<CompilationUnit> units,
 	         int[] checksums,
 	         Map<QName, Long> swcDefSignatureChecksums,
 	         Map<String, Long> swcFileChecksums,
 	         Map<String, Long> archiveFileChecksums) throws IOException
+	{
+		// CodeOrchestra: the file is read into the buffer
+		buffer = readFully(file.getChannel());
+		buffer.position((int) file.getFilePointer());
+		try
+		{
+			// the source names are replaced by their Source in the list, see readCompilationUnits()
+			return readBuffer(fileSpec, sourceList, sourcePath, resources, bundlePath, (List<Object>) sources, units, checksums,
+			                  swcDefSignatureChecksums, swcFileChecksums, archiveFileChecksums);
+		}
+		catch (BufferUnderflowException | IllegalArgumentException e)
+		{
+			// a truncated or corrupt file, reported like the EOFException of the RandomAccessFile
+			throw new IOException(e.toString());
+		}
+		finally
+		{
+			buffer = null;
+		}
+	}
+
+	// CodeOrchestra: added
+	private static ByteBuffer readFully(FileChannel channel) throws IOException
+	{
+		long size = channel.size();
+		if (size > Integer.MAX_VALUE)
+		{
+			throw new IOException("the cache file is too large: " + size);
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate((int) size);
+		while (buffer.hasRemaining())
+		{
+			if (channel.read(buffer, buffer.position()) < 0)
+			{
+				throw new IOException("unexpected end of the cache file");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private int readBuffer(FileSpec fileSpec,
+	                       SourceList sourceList,
+	                       SourcePath sourcePath,
+	                       ResourceContainer resources,
+	                       ResourceBundlePath bundlePath,
+	                       List<Object> sources,
+	                       List<CompilationUnit> units,
+	                       int[] checksums,
+	                       Map<QName, Long> swcDefSignatureChecksums,
+	                       Map<String, Long> swcFileChecksums,
+	                       Map<String, Long> archiveFileChecksums) throws IOException
 	{
 		if (!readVersion())
 		{
@@ -918,6 +1028,7 @@ final class PersistenceStore
 		}
 
 		Object[] pool = readConstantPool();
+		List<Long> index = readIndex();
 
 		if (!readFileSpec(pool, fileSpec))
 		{
@@ -960,7 +1071,7 @@ final class PersistenceStore
             return -9;
         }
 
-		int count = readCompilationUnits(pool, fileSpec, sourceList, sourcePath, resources, bundlePath,
+		int count = readCompilationUnits(pool, index, fileSpec, sourceList, sourcePath, resources, bundlePath,
 										 sources, units, owners);
 		resources.refresh();
 
@@ -996,9 +1107,9 @@ final class PersistenceStore
 	private Object[] readConstantPool() throws IOException
 	{
 		// Read the offset of the constant pool and seek there
-		long constantPoolOffset = file.readLong();
-		long startingOffset = file.getFilePointer();
-		file.seek(constantPoolOffset);
+		long constantPoolOffset = buffer.getLong();
+		int startingOffset = buffer.position();
+		buffer.position((int) constantPoolOffset);
 
 		Object[] pool = new Object[readU32()];
 
@@ -1049,11 +1160,31 @@ final class PersistenceStore
 
 		// Now that we've read the constant pool from near the end of the file,
 		// seek back to where everything else is
-		file.seek(startingOffset);
+		buffer.position(startingOffset);
 
 		return pool;
 	}
 
+	// CodeOrchestra: added, the offsets of the records in the order they were written. Every record is
+	// still decoded by readCompilationUnits(), the offsets let it skip the ones that can't be restored.
+	private List<Long> readIndex() throws IOException
+	{
+		long indexOffset = buffer.getLong();
+		int startingOffset = buffer.position();
+		buffer.position((int) indexOffset);
+
+		int size = readU32();
+		List<Long> index = new ArrayList<>(size);
+		for (int i = 0; i < size; i++)
+		{
+			index.add(readLong());
+		}
+
+		buffer.position(startingOffset);
+
+		return index;
+	}
+
 	private boolean readSourceNames(Object[] pool, List<Object> sources, List<CompilationUnit> units, Map<String, Object> owners) throws IOException
 	{
 		int size = readU32();
@@ -1506,13 +1637,11 @@ final class PersistenceStore
 	}
 
     //FIXME Sources is a List<String> when it enters the function, and a List<Source> when it leaves...
-	private int readCompilationUnits(Object[] pool, FileSpec fileSpec, SourceList sourceList, SourcePath sourcePath,
+	private int readCompilationUnits(Object[] pool, List<Long> index, FileSpec fileSpec, SourceList sourceList, SourcePath sourcePath,
 	                                 ResourceContainer resources, ResourceBundlePath bundlePath,
 	                                 List<Object> sources, List<CompilationUnit> units, Map<String, Object> owners) throws IOException
 	{
-		int src_count = readU32();
-
-		RandomAccessFileInputStream in = new RandomAccessFileInputStream(file);
+		ByteBufferInputStream in = new ByteBufferInputStream(buffer);
 
 		Map m = sourcePath.sources();
         Map<String, String> mappings = new HashMap<>();
@@ -1540,8 +1669,10 @@ final class PersistenceStore
 
 		m.clear();
 
-		for (int i = 0; i < src_count; i++)
+		// C: each record is read from its offset, so the records that can't be restored are just skipped
+		for (long offset : index)
 		{
+			buffer.position((int) offset);
 			readCompilationUnit(pool, mappings, rbMappings, in, fileSpec, sourceList, sourcePath, resources, bundlePath, owners);
 		}
 
@@ -1557,7 +1688,7 @@ final class PersistenceStore
 			}
 		}
 
-		return src_count;
+		return index.size();
 	}
 
 	private void readMap(InputStream in, Object[] pool, Map<String, Object> map) throws IOException
@@ -1601,6 +1732,7 @@ final class PersistenceStore
 		boolean isDebuggable = (readU8(in) == 1);
 		boolean hasUnit = (readU8(in) == 1);
 		long fileTime = readLong(in);
+		long fileHash = readLong(in);
         
         final boolean hasSignatureChecksum = (readU8(in) == 1);
         Long signatureChecksum = null;
@@ -1779,11 +1911,20 @@ final class PersistenceStore
             assert false : "owner = " + owner;
         }
 
+		// CodeOrchestra: added, the rest of the record is skipped, see readCompilationUnits()
+		if (s == null)
+		{
+			return;
+		}
+
 		if (logger != null)
 		{
 			logger.setSource(s);
 		}
 
+		// CodeOrchestra: added
+		s.setFileHash(fileHash);
+
 		if (hasUnit)
 		{
 			CompilationUnit u = s.newCompilationUnit(null, new CompilerContext());
@@ -2117,18 +2258,18 @@ final class PersistenceStore
 	private byte[] readBytes(int length) throws IOException
 	{
 		byte[] b = new byte[length];
-		file.readFully(b);
+		buffer.get(b);
 		return b;
 	}
 
 	private int readU32() throws IOException
 	{
-		return file.readInt();
+		return buffer.getInt();
 	}
 
 	private int readU8() throws IOException
 	{
-		return file.read();
+		return buffer.get() & 0xFF;
 	}
 
 	private byte[] readBytes(InputStream in, int length) throws IOException
@@ -2146,7 +2287,7 @@ final class PersistenceStore
 
 	private long readLong() throws IOException
 	{
-		return ((long) (readU32()) << 32) + (readU32() & 0xFFFFFFFFL);
+		return buffer.getLong();
 	}
 	
 	private long readLong(InputStream in) throws IOException
@@ -23,8 +23,10 @@ import flex2.compiler.common.MxmlConfiguration;
 import flex2.compiler.common.PathResolver;
 import flex2.compiler.common.SinglePathResolver;
 import flex2.compiler.io.InMemoryFile;
+import flex2.compiler.io.LocalFile;
 import flex2.compiler.io.VirtualFile;
 import flex2.compiler.swc.SwcScript;
+import flex2.compiler.util.ContentHash;
 import flex2.compiler.util.LineNumberMap;
 import flex2.compiler.util.LocalLogger;
 import flex2.compiler.util.MimeMappings;
@@ -119,6 +121,11 @@ public final class Source implements Comparable<Source>
 	private long fileTime;
 	private Map<VirtualFile, Long> fileIncludeTimes;
 
+	// CodeOrchestra: added, the content hash of the file as of fileTime, 0 if unknown, see ContentHash
+	private volatile long fileHash;
+	// CodeOrchestra: added, the last modification time whose content hash didn't match
+	private volatile long mismatchedFileTime;
+
 	// 1. path resolution
 	// 2. backing file
 	// 3. source fragments
@@ -174,6 +181,8 @@ public final class Source implements Comparable<Source>
         }
 
 		fileTime = file.getLastModified();
+		fileHash = 0;
+		mismatchedFileTime = 0;
 		logger = null;
 		isPreprocessed = false;
 
@@ -305,6 +314,13 @@ public final class Source implements Comparable<Source>
 
 	public boolean isUpdated()
 	{
+        // CodeOrchestra: added
+        if (isUnchangedByWatcher())
+        {
+            return false;
+        }
+        checkContentHash();
+
         long lastModified = file.getLastModified();
 
 		if (lastModified != fileTime)
@@ -617,6 +633,93 @@ public final class Source implements Comparable<Source>
 		this.fileTime = fileTime;
     }
 
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * While the compilation has a set of changed files (see ThreadLocalToolkit.setChangedFiles()), the local files
+	 * which aren't in it (by name) are not updated, no modification times are checked for them.
+	 */
+	private boolean isUnchangedByWatcher()
+	{
+		Set<String> changed = ThreadLocalToolkit.getChangedFiles();
+		if (changed == null || !(file instanceof LocalFile) || changed.contains(file.getName()))
+		{
+			return false;
+		}
+
+		for (VirtualFile f : fileIncludeTimes.keySet())
+		{
+			if (!(f instanceof LocalFile) || changed.contains(f.getName()))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * CodeOrchestra: added
+	 */
+	public long getFileHash()
+	{
+		return fileHash;
+	}
+
+	void setFileHash(long fileHash)
+	{
+		this.fileHash = fileHash;
+	}
+
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * Computes the content hash of the file if it's unknown and the file hasn't been modified since fileTime.
+	 */
+	public void updateContentHash()
+	{
+		if (fileHash == 0 && ContentHash.isEnabled() && ContentHash.isHashable(file))
+		{
+			long lastModified = file.getLastModified();
+			if (lastModified == fileTime)
+			{
+				long hash = ContentHash.hash(file);
+				if (file.getLastModified() == lastModified)
+				{
+					fileHash = hash;
+				}
+			}
+		}
+	}
+
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * If the file has been touched but its content hash is still the one as of fileTime, the new
+	 * modification time is taken, so the file is no longer reported as updated.
+	 */
+	public void checkContentHash()
+	{
+		if (fileHash == 0 || !ContentHash.isEnabled())
+		{
+			return;
+		}
+
+		long lastModified = file.getLastModified();
+		if (lastModified != fileTime && lastModified > 0 && lastModified != mismatchedFileTime)
+		{
+			long hash = ContentHash.hash(file);
+			if (hash == fileHash && file.getLastModified() == lastModified)
+			{
+				fileTime = lastModified;
+			}
+			else
+			{
+				mismatchedFileTime = lastModified;
+			}
+		}
+	}
+
 	public void addSourceFragment(String n, Object f, LineNumberMap m)
 	{
 		if (fragments == null)
@@ -20,6 +20,7 @@
 package flex2.compiler;
 
 import flex2.compiler.common.SinglePathResolver;
+import flex2.compiler.io.DirectorySnapshots;
 import flex2.compiler.io.FileUtil;
 import flex2.compiler.io.LocalFile;
 import flex2.compiler.io.VirtualFile;
@@ -212,7 +213,7 @@ public class SourcePath extends SourcePathBase
 			return false;
 		}
 
-		boolean result = new File(dir, relativePath).isDirectory();
+		boolean result = snapshots.isDirectory(new File(dir, relativePath));
 		dirs.put(fullPath, result ? fullPath : NO_DIR);
 
 		return result;
@@ -333,6 +334,7 @@ abstract class SourcePathBase
 		misses = new HashSet<>(1024);
 		dirs = new HashMap<>();
 		warnings = new ArrayList<>(5);
+		snapshots = new DirectorySnapshots();
 	}
 
 	protected final String[] mimeTypes;
@@ -342,6 +344,8 @@ abstract class SourcePathBase
 	protected final Set<String> hits, misses;
 	protected final HashMap<String, String> dirs;
 	protected final List<ClasspathOverlap> warnings;
+	// CodeOrchestra: added, the listings of the probed directories
+	protected final DirectorySnapshots snapshots;
 
 	public Source findSource(String namespaceURI, String localPart) throws CompilerException
 	{
@@ -460,6 +464,16 @@ abstract class SourcePathBase
 		String path = relativePath + MimeMappings.getExtension(mimeType);
 		File f = FileUtil.openFile(directory, path);
 
+		// CodeOrchestra: added, no file system calls for the files which aren't in the directory listing
+		if (f != null && !snapshots.mayContain(f.getParentFile(), f.getName()))
+		{
+			if (dir != null && !dirs.containsKey(dir))
+			{
+				dirs.put(dir, snapshots.isDirectory(f.getParentFile()) ? dir : NO_DIR);
+			}
+			return null;
+		}
+
 		if ((f != null) && f.isFile() && FileUtil.getCanonicalPath(f).endsWith(path))
 		{
 			return f;
@@ -550,6 +564,13 @@ abstract class SourcePathBase
 		hits.clear();
 		misses.clear();
 		dirs.clear();
+		snapshots.clear();
+	}
+
+	// CodeOrchestra: added, releases the watched directories of the listings, see DirectorySnapshots
+	public void close()
+	{
+		snapshots.close();
 	}
 
 	String[] getMimeTypes()
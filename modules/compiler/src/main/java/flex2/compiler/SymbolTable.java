@@ -218,7 +218,7 @@ public final class SymbolTable
      */
 	public SymbolTable(Configuration configuration, ContextStatics contextStatics)
 	{
-		classTable = new HashMap<>(300);
+		classTable = new StripedMap<>("classTable", 300);
 		styles = new Styles();
         perCompileData = contextStatics;
 
@@ -237,15 +237,15 @@ public final class SymbolTable
 
 		ContextStatics.useVerboseErrors = false;
 		
-		qNameTable = new QNameMap<>(300);
-		multiNames = new HashMap<>(1024);
+		qNameTable = new StripedMap<>("qNameTable", 300);
+		multiNames = new StripedMap<>("multiNames", 1024);
 		Context cx = new Context(perCompileData);
 		emitter = new BytecodeEmitter(cx, null, false, false);
 		cx.setEmitter(emitter);
 		typeAnalyzer = new TypeAnalyzer(this);
 		
-		rbNames = new HashMap<>();
-		rbNameTable = new HashMap<>();
+		rbNames = new StripedMap<>("rbNames", 16);
+		rbNameTable = new StripedMap<>("rbNameTable", 16);
 	}
 
     /**
@@ -259,7 +259,8 @@ public final class SymbolTable
         this(configuration, new ContextStatics());
 	}
 
-	private final Map<String, AbcClass> classTable;
+	// CodeOrchestra: the tables are StripedMaps, so that they may be shared by the compiler threads
+	private final StripedMap<String, AbcClass> classTable;
 
 	// C: if possible, move styles out of SymbolTable...
 	private final Styles styles;
@@ -267,8 +268,11 @@ public final class SymbolTable
 	// C: ContextStatics stays here because it holds namespace and type info...
 	public final ContextStatics perCompileData;
 
-	private final QNameMap<Source> qNameTable;
-	private final Map<MultiName, QName> multiNames;
+	private final StripedMap<QName, Source> qNameTable;
+	private final StripedMap<MultiName, QName> multiNames;
+
+	// CodeOrchestra: added, replaces the shared lookup key of QNameMap
+	private static final ThreadLocal<QName> lookupKey = ThreadLocal.withInitial(() -> new QName("", ""));
 
 	// C: This single instance is for ConstantEvaluator to calculate doubles only.
 	public final BytecodeEmitter emitter;
@@ -280,8 +284,8 @@ public final class SymbolTable
 	// See CompilerConfiguration.cfgDebug().
     private boolean debug;
 	
-	private final Map<String, QName[]> rbNames;
-	private final Map<String, Source> rbNameTable;
+	private final StripedMap<String, QName[]> rbNames;
+	private final StripedMap<String, Source> rbNameTable;
 	
 	public int tick = 0;
 	public int currentPercentage = 0;
@@ -375,9 +379,10 @@ public final class SymbolTable
 		Source old = qNameTable.get(qName);
 		if (old == null)
 		{
-			qNameTable.put(new QName(qName), source);
+			old = qNameTable.putIfAbsent(new QName(qName), source);
 		}
-		else if (!old.getName().equals(source.getName()))
+
+		if (old != null && !old.getName().equals(source.getName()))
 		{
 			assert false : qName + " defined in " + old + " and " + source.getName();
 		}
@@ -410,7 +415,10 @@ public final class SymbolTable
 	 */
 	public Source findSourceByQName(String namespaceURI, String localPart)
 	{
-		return qNameTable.get(namespaceURI, localPart);
+		QName key = lookupKey.get();
+		key.setNamespace(namespaceURI);
+		key.setLocalPart(localPart);
+		return qNameTable.get(key);
 	}
 	
 	public Source findSourceByResourceBundleName(String rbName)
@@ -448,7 +456,7 @@ public final class SymbolTable
 	/**
 	 * placeholder for transient data
 	 */
-	public CompilerContext getContext()
+	public synchronized CompilerContext getContext()
 	{
 		if (context == null)
 		{
@@ -464,12 +472,21 @@ public final class SymbolTable
 	 */
 	public void cleanClassTable()
 	{
-		for (String s : classTable.keySet()) {
-			AbcClass c = classTable.get(s);
+		for (AbcClass c : classTable.values()) {
 			c.setTypeTable(null);
 		}
 	}
 
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * The write and contended write counters of the tables, see StripedMap
+	 */
+	public List<StripedMap<?, ?>> getStripedMaps()
+	{
+		return Arrays.asList(classTable, qNameTable, multiNames, rbNames, rbNameTable);
+	}
+
 	// The following is for TypeAnalyzer only... please do not expand the usage to the other classes...
 
 	private TypeAnalyzer typeAnalyzer;
@@ -40,6 +40,9 @@ import macromedia.asc.util.*;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 
@@ -201,6 +204,9 @@ public class As3Compiler extends AbstractSubCompiler implements flex2.compiler.S
 	private As3Configuration as3Configuration;
     private boolean coachWarningsAsErrors = false;
 
+    // CodeOrchestra: added, the sources being parsed on the worker pool, see parseAhead()
+    private final Map<Source, Future<ParsedSource>> parsedAhead = new ConcurrentHashMap<>();
+
     /**
      * The name of this compiler as a simple String identifier.
      * 
@@ -245,7 +251,6 @@ public class As3Compiler extends AbstractSubCompiler implements flex2.compiler.S
             return unit;
         }
 
-		String path = source.getName();
 		ProgramNode node = null;
         CompilerContext context = null;
         Context cx;
@@ -257,87 +262,15 @@ public class As3Compiler extends AbstractSubCompiler implements flex2.compiler.S
         }
         else
         {
-            context = new CompilerContext();
-            cx = new Context(symbolTable.perCompileData);
-            cx.setScriptName(source.getName());
-            cx.setPath(source.getParent());
-
-            cx.setEmitter(symbolTable.emitter);
-            cx.setHandler(new CompilerHandler(source));
-            symbolTable.perCompileData.handler = cx.getHandler();
-
-            context.setAscContext(cx);
-
-            // conditional compilation: add config settings from the compiler configuration
-            // this must be done BEFORE parsing
-            final ObjectList<ConfigVar> arr = as3Configuration.getDefine();
-            if (arr != null)
+            // CodeOrchestra: added, the source may have been parsed ahead on the worker pool
+            ParsedSource parsed = takeParsedAhead(source, symbolTable);
+            if (parsed == null)
             {
-                cx.config_vars.addAll(arr);
-            }
-
-            assert cx.getNodeFactory().compound_names.size() == 0 : "cleanNodeFactory() should have been called";
-
-            if (source.isTextBased())
-            {
-                Parser parser = new Parser(cx, source.getInputText(), path, as3Configuration.doc(), false);
-                node = parser.parseProgram();
-
-                source.close();
-                cleanNodeFactory(cx.getNodeFactory());
-            }
-            else
-            {
-                BufferedInputStream in = null;
-
-                try
-                {
-                    in = new BufferedInputStream(source.getInputStream());
-                    Parser parser;
-                    if (as3Configuration.doc())
-                    {
-                        if (as3Configuration.getEncoding() == null)
-                        {
-                            parser = new Parser(cx, in, path, true, false);
-                        }
-                        else
-                        {
-                            parser = new Parser(cx, in, path, as3Configuration.getEncoding(), true, false);
-                        }
-                    }
-                    else
-                    {
-                        if (as3Configuration.getEncoding() == null)
-                        {
-                            parser = new Parser(cx, in, path);
-                        }
-                        else
-                        {
-                            parser = new Parser(cx, in, path, as3Configuration.getEncoding());
-                        }
-                    }
-                    node = parser.parseProgram();
-
-                    cleanNodeFactory(cx.getNodeFactory());
-                }
-                catch (IOException ex)
-                {
-                    ThreadLocalToolkit.logError(source.getNameForReporting(), ex.getLocalizedMessage());
-                }
-                finally
-                {
-                    if (in != null)
-                    {
-                        try
-                        {
-                            in.close();
-                        }
-                        catch (IOException ignored)
-                        {
-                        }
-                    }
-                }
+                parsed = parse(source, symbolTable, false);
             }
+            context = parsed.context;
+            cx = parsed.cx;
+            node = parsed.node;
 
             if (ThreadLocalToolkit.errorCount() > 0)
             {
@@ -421,6 +354,205 @@ public class As3Compiler extends AbstractSubCompiler implements flex2.compiler.S
 		return unit;
 	}
 
+    /**
+     * CodeOrchestra: extracted from parse1()
+     *
+     * @param detached true if parsing on a worker thread, see DetachedParse
+     */
+    private ParsedSource parse(Source source, SymbolTable symbolTable, boolean detached)
+    {
+        String path = source.getName();
+        CompilerContext context = new CompilerContext();
+        Context cx = new Context(symbolTable.perCompileData);
+        ProgramNode node = null;
+        cx.setScriptName(source.getName());
+        cx.setPath(source.getParent());
+
+        cx.setHandler(new CompilerHandler(source));
+        if (!detached)
+        {
+            cx.setEmitter(symbolTable.emitter);
+            symbolTable.perCompileData.handler = cx.getHandler();
+        }
+
+        context.setAscContext(cx);
+
+        // conditional compilation: add config settings from the compiler configuration
+        // this must be done BEFORE parsing
+        final ObjectList<ConfigVar> arr = as3Configuration.getDefine();
+        if (arr != null)
+        {
+            cx.config_vars.addAll(arr);
+        }
+
+        assert cx.getNodeFactory().compound_names.size() == 0 : "cleanNodeFactory() should have been called";
+
+        if (source.isTextBased())
+        {
+            Parser parser = new Parser(cx, source.getInputText(), path, as3Configuration.doc(), false);
+            node = parser.parseProgram();
+
+            source.close();
+            cleanNodeFactory(cx.getNodeFactory());
+        }
+        else
+        {
+            BufferedInputStream in = null;
+
+            try
+            {
+                in = new BufferedInputStream(source.getInputStream());
+                Parser parser;
+                if (as3Configuration.doc())
+                {
+                    if (as3Configuration.getEncoding() == null)
+                    {
+                        parser = new Parser(cx, in, path, true, false);
+                    }
+                    else
+                    {
+                        parser = new Parser(cx, in, path, as3Configuration.getEncoding(), true, false);
+                    }
+                }
+                else
+                {
+                    if (as3Configuration.getEncoding() == null)
+                    {
+                        parser = new Parser(cx, in, path);
+                    }
+                    else
+                    {
+                        parser = new Parser(cx, in, path, as3Configuration.getEncoding());
+                    }
+                }
+                node = parser.parseProgram();
+
+                cleanNodeFactory(cx.getNodeFactory());
+            }
+            catch (IOException ex)
+            {
+                ThreadLocalToolkit.logError(source.getNameForReporting(), ex.getLocalizedMessage());
+            }
+            finally
+            {
+                if (in != null)
+                {
+                    try
+                    {
+                        in.close();
+                    }
+                    catch (IOException ignored)
+                    {
+                    }
+                }
+            }
+        }
+
+        ParsedSource parsed = new ParsedSource();
+        parsed.context = context;
+        parsed.cx = cx;
+        parsed.node = node;
+        return parsed;
+    }
+
+    /**
+     * CodeOrchestra: added
+     * <p/>
+     * Starts parsing a fresh source on the worker pool. parse1() picks the syntax tree up and replays the
+     * parser messages into the source's logger, so the diagnostics come out in the source order, and
+     * everything after the parsing itself still runs on the compiler thread.
+     */
+    public void parseAhead(final Source source, final SymbolTable symbolTable)
+    {
+        if (source.getCompilationUnit() != null || parsedAhead.containsKey(source))
+        {
+            return;
+        }
+
+        if (parsedAhead.isEmpty())
+        {
+            DetachedParse.prepare(new Context(symbolTable.perCompileData));
+        }
+
+        parsedAhead.put(source, WorkerPool.submit(() ->
+        {
+            RecordingLogger logger = new RecordingLogger();
+            ThreadLocalToolkit.setLogger(logger);
+
+            DetachedParse detachedParse = DetachedParse.begin();
+            try
+            {
+                ParsedSource parsed = parse(source, symbolTable, true);
+                parsed.detachedParse = detachedParse;
+                parsed.logger = logger;
+                return parsed;
+            }
+            finally
+            {
+                DetachedParse.end();
+            }
+        }));
+    }
+
+    /**
+     * CodeOrchestra: added, forgets the sources parsed ahead which parse1() didn't get to
+     */
+    public void discardParsedAhead()
+    {
+        for (Future<ParsedSource> future : parsedAhead.values())
+        {
+            future.cancel(false);
+        }
+        parsedAhead.clear();
+    }
+
+    private ParsedSource takeParsedAhead(Source source, SymbolTable symbolTable)
+    {
+        Future<ParsedSource> future = parsedAhead.remove(source);
+        if (future == null)
+        {
+            return null;
+        }
+
+        ParsedSource parsed;
+        try
+        {
+            parsed = future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch (ExecutionException e)
+        {
+            // parsed again on this thread, the messages of the failed attempt are dropped
+            return null;
+        }
+
+        Context cx = parsed.cx;
+        parsed.detachedParse.attach(symbolTable.perCompileData);
+        cx.setScriptName(source.getName());
+        cx.setPath(source.getParent());
+        cx.setEmitter(symbolTable.emitter);
+        symbolTable.perCompileData.handler = cx.getHandler();
+
+        parsed.logger.replay(ThreadLocalToolkit.getLogger());
+
+        return parsed;
+    }
+
+    private static class ParsedSource
+    {
+        CompilerContext context;
+        Context cx;
+        ProgramNode node;
+
+        // set if parsed ahead
+        DetachedParse detachedParse;
+        RecordingLogger logger;
+    }
+
 	public void parse2(CompilationUnit unit, SymbolTable symbolTable)
 	{
         if (benchmarkHelper != null)
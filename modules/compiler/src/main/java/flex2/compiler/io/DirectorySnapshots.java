@@ -0,0 +1,182 @@
+package flex2.compiler.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CodeOrchestra: added
+ * <p/>
+ * The listings of the directories probed for definitions, each directory is listed once until
+ * {@link #clear()}. A probe of a file which isn't in the listing of its directory then needs no file system call.
+ * <p/>
+ * With <code>-Dflex2.compiler.watchSourcePath=true</code> the listed directories are watched by a WatchService
+ * and {@link #clear()} only drops the listings of the directories which changed, so that the listings survive
+ * the compilations of a fcsh or oem session. A directory which can't be watched is listed again after every
+ * {@link #clear()}. The owner calls {@link #close()} to release the WatchService.
+ */
+public class DirectorySnapshots
+{
+	private static final boolean watchEnabled = Boolean.getBoolean("flex2.compiler.watchSourcePath");
+
+	private static final Set<String> NOT_A_DIRECTORY = Collections.unmodifiableSet(new HashSet<String>());
+
+	private final Map<String, Set<String>> snapshots = new ConcurrentHashMap<>();
+	private final Map<WatchKey, String> watchedDirectories = new ConcurrentHashMap<>();
+	private final Set<String> unwatchedDirectories = ConcurrentHashMap.newKeySet();
+	// created by the first directory watched, the probing threads may race for it
+	private volatile WatchService watchService;
+
+	public boolean isDirectory(File dir)
+	{
+		// a directory which can't be listed is still a directory
+		return getSnapshot(dir) != NOT_A_DIRECTORY || dir.isDirectory();
+	}
+
+	/**
+	 * @return false if the listing of the directory doesn't have the name, true if it has it or the directory
+	 * can't be listed
+	 */
+	public boolean mayContain(File dir, String name)
+	{
+		if (dir == null)
+		{
+			return true;
+		}
+
+		Set<String> snapshot = getSnapshot(dir);
+		return snapshot == NOT_A_DIRECTORY || snapshot.contains(name);
+	}
+
+	private Set<String> getSnapshot(File dir)
+	{
+		String path = dir.getPath();
+		Set<String> snapshot = snapshots.get(path);
+		if (snapshot == null)
+		{
+			String[] names = dir.list();
+			if (names == null)
+			{
+				snapshot = NOT_A_DIRECTORY;
+			}
+			else
+			{
+				snapshot = new HashSet<>(names.length * 2);
+				Collections.addAll(snapshot, names);
+				watch(dir);
+			}
+			snapshots.put(path, snapshot);
+		}
+		return snapshot;
+	}
+
+	private void watch(File dir)
+	{
+		if (!watchEnabled)
+		{
+			return;
+		}
+
+		try
+		{
+			WatchKey key = dir.toPath().register(getWatchService(dir), StandardWatchEventKinds.ENTRY_CREATE,
+			                                     StandardWatchEventKinds.ENTRY_DELETE);
+			watchedDirectories.put(key, dir.getPath());
+		}
+		catch (IOException | UnsupportedOperationException e)
+		{
+			// no events for this directory, its listing is dropped by every clear()
+			unwatchedDirectories.add(dir.getPath());
+		}
+	}
+
+	private synchronized WatchService getWatchService(File dir) throws IOException
+	{
+		if (watchService == null)
+		{
+			watchService = dir.toPath().getFileSystem().newWatchService();
+		}
+		return watchService;
+	}
+
+	/**
+	 * Drops the listings, only those of the changed directories if the directories are watched
+	 */
+	public void clear()
+	{
+		WatchService service = watchService;
+		if (service == null)
+		{
+			snapshots.clear();
+			return;
+		}
+
+		// the probes of missing directories are not watched
+		snapshots.values().removeIf(snapshot -> snapshot == NOT_A_DIRECTORY);
+		snapshots.keySet().removeAll(unwatchedDirectories);
+		unwatchedDirectories.clear();
+
+		for (WatchKey key; (key = service.poll()) != null;)
+		{
+			String path = watchedDirectories.get(key);
+			for (WatchEvent<?> event : key.pollEvents())
+			{
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW || path == null)
+				{
+					snapshots.clear();
+				}
+				else
+				{
+					snapshots.remove(path);
+					snapshots.remove(new File(path, ((Path) event.context()).toString()).getPath());
+				}
+			}
+
+			if (!key.reset())
+			{
+				watchedDirectories.remove(key);
+				if (path != null)
+				{
+					snapshots.remove(path);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops watching the directories and drops the listings
+	 */
+	public void close()
+	{
+		WatchService service;
+		synchronized (this)
+		{
+			service = watchService;
+			watchService = null;
+		}
+		watchedDirectories.clear();
+		unwatchedDirectories.clear();
+		snapshots.clear();
+
+		if (service != null)
+		{
+			try
+			{
+				service.close();
+			}
+			catch (IOException e)
+			{
+				// nothing to release then
+			}
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package flex2.compiler.swc;
+
+import flash.util.FileUtils;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * CodeOrchestra: added
+ * <p/>
+ * The SwcCache shared by the targets of a fcsh session. A SWC on the library path of several targets
+ * (playerglobal, the framework, the RSLs, ...) is then loaded once, and so is the type information of its
+ * scripts, which the Swc keeps for the following compilations (see CompilerSwcContext#getSource()).
+ * A SWC is cached by its canonical path and reloaded when its modification time or its length changes.
+ * <p/>
+ * The classes of a cached SWC are shared too, and a compilation binds them to its own type table
+ * (AbcCompiler.analyze4 sets it, SymbolTable.cleanClassTable() resets it). So only one compilation
+ * can use the cache at a time; fcsh runs its compilations exclusively, see Fcsh.processLocked().
+ * <p/>
+ * The targets retain the SWCs they use until they're cleared. The SWCs no target retains are evicted,
+ * least recently used first, while the total length of the cached SWC files exceeds the budget,
+ * <code>-Dflex2.compiler.swcCacheBudget=MB</code> (256 by default). The budget is about the files on
+ * disk, it doesn't bound the heap: a loaded SWC (its catalog, the bytecode, the type information of the
+ * scripts compiled against it) takes a multiple of its file length, and the retained SWCs are never evicted.
+ */
+public class SharedSwcCache extends SwcCache
+{
+    private static final long budget = Long.getLong("flex2.compiler.swcCacheBudget", 256) << 20;
+    private static final SharedSwcCache instance = new SharedSwcCache();
+
+    // in access order, the least recently used first
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Object, Set<String>> owners = new HashMap<>();
+    // the total length of the cached SWC files
+    private long size;
+
+    private SharedSwcCache()
+    {
+        // the budget bounds the cache, not the count of SWCs
+        swcLRUCache = new SwcLRUCache(CACHE_INITIAL_SIZE, Integer.MAX_VALUE);
+    }
+
+    public static SharedSwcCache getInstance()
+    {
+        return instance;
+    }
+
+    protected synchronized Swc getSwc(File file)
+    {
+        String location = FileUtils.canonicalPath(file);
+        long length = file.isDirectory() ? 0 : file.length();
+
+        Entry entry = entries.get(location);
+        if (entry != null && entry.length != length)
+        {
+            // rewritten within the resolution of the modification time
+            super.remove(location);
+        }
+
+        Swc swc = super.getSwc(file);
+        if (swc != null)
+        {
+            if (entry == null)
+            {
+                entry = new Entry(location);
+                entries.put(location, entry);
+            }
+            size += length - entry.length;
+            entry.length = length;
+            evict();
+        }
+        return swc;
+    }
+
+    /**
+     * Retains the SWCs of the group for the owner, in place of the SWCs it retained so far
+     */
+    public synchronized void retain(Object owner, SwcGroup group)
+    {
+        Set<String> locations = group == null ? new HashSet<>() : new HashSet<>(group.getSwcs().keySet());
+        for (String location : locations)
+        {
+            Entry entry = entries.get(location);
+            if (entry != null)
+            {
+                entry.references++;
+            }
+        }
+
+        release(owner);
+        owners.put(owner, locations);
+    }
+
+    public synchronized void release(Object owner)
+    {
+        Set<String> locations = owners.remove(owner);
+        if (locations == null)
+        {
+            return;
+        }
+
+        for (String location : locations)
+        {
+            Entry entry = entries.get(location);
+            if (entry != null && entry.references > 0)
+            {
+                entry.references--;
+            }
+        }
+        evict();
+    }
+
+    /**
+     * @return the total length of the cached SWC files, in bytes
+     */
+    public synchronized long size()
+    {
+        return size;
+    }
+
+    private void evict()
+    {
+        for (Iterator<Entry> i = entries.values().iterator(); size > budget && i.hasNext();)
+        {
+            Entry entry = i.next();
+            if (entry.references == 0)
+            {
+                i.remove();
+                size -= entry.length;
+                swcLRUCache.remove(entry.location);
+            }
+        }
+    }
+
+    public synchronized void remove(String swcLocation)
+    {
+        Entry entry = entries.remove(swcLocation);
+        if (entry != null)
+        {
+            size -= entry.length;
+        }
+        super.remove(swcLocation);
+    }
+
+    private static class Entry
+    {
+        private final String location;
+        private long length;
+        private int references;
+
+        Entry(String location)
+        {
+            this.location = location;
+        }
+    }
+}
@@ -247,7 +247,8 @@ public class SwcCache
 
                 SwcArchive archive = file.isDirectory()?
                         new SwcDirectoryArchive( location ) :
-                        lazyRead ? new SwcLazyReadArchive( location ) : new SwcDynamicArchive( location );
+                        !lazyRead ? new SwcDynamicArchive( location ) :
+                        SwcMappedArchive.isEnabled() ? new SwcMappedArchive( location ) : new SwcLazyReadArchive( location );
 
                 swc = new Swc( archive, true );
                 swc.setLastModified(fileLastModified);
@@ -308,6 +309,11 @@ public class SwcCache
             super(CACHE_INITIAL_SIZE, CACHE_MAX_SIZE);
         }
 
+        SwcLRUCache(int initialSize, int maxSize)
+        {
+            super(initialSize, maxSize);
+        }
+
         protected Object fetch(Object key)
         {
             return null;
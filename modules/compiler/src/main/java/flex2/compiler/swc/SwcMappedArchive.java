@@ -0,0 +1,222 @@
+package flex2.compiler.swc;
+
+import flash.util.FileUtils;
+import flash.util.Trace;
+import flex2.compiler.io.VirtualFile;
+import flex2.compiler.swc.zip.MappedZipFile;
+import flex2.compiler.swc.zip.ZipEntry;
+import flex2.compiler.util.MimeMappings;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Enumeration;
+import java.util.HashMap;
+
+/**
+ * CodeOrchestra: added
+ * <p/>
+ * A SwcArchive which works like SwcLazyReadArchive but reads the SWC through a memory mapping, see
+ * {@link MappedZipFile}. The files of the archive are streamed out of the mapping whenever they're read
+ * (catalog.xml into the catalog reader, library.swf into the tag decoder) instead of being copied into a byte
+ * array first. Enabled with <code>-Dflex2.compiler.mappedSwc=true</code>.
+ * <p/>
+ * The mapping is dropped on {@link #close()} and recreated on the next read.
+ */
+public class SwcMappedArchive extends SwcDynamicArchive
+{
+    private static final boolean enabled = Boolean.getBoolean("flex2.compiler.mappedSwc");
+
+    private MappedZipFile zipFile;
+
+    public SwcMappedArchive(String path)
+    {
+        super(path);
+    }
+
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Fills in "files" with a MappedFile for each zip file entry.
+     */
+    public void load()
+    {
+        assert files == null;
+        files = new HashMap<>();
+
+        try
+        {
+            Enumeration<ZipEntry> e = getZipFile().getEntries();
+            while (e.hasMoreElements())
+            {
+                String name = e.nextElement().getName();
+                files.put(name, new MappedFile(name));
+            }
+        }
+        catch (SwcException.UnknownZipFormat e)
+        {
+            throw new SwcException.NotASwcFile(path);
+        }
+        catch (SwcException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            if (Trace.error)
+            {
+                e.printStackTrace();
+            }
+            throw new SwcException.FilesNotRead(e.getMessage());
+        }
+    }
+
+    private synchronized MappedZipFile getZipFile() throws IOException
+    {
+        if (zipFile == null)
+        {
+            zipFile = new MappedZipFile(new File(path));
+        }
+        return zipFile;
+    }
+
+    public synchronized void close()
+    {
+        zipFile = null;
+    }
+
+    /**
+     * A file of the archive
+     */
+    private class MappedFile implements VirtualFile
+    {
+        private final String nameInZip;
+        private final String name;
+
+        MappedFile(String nameInZip)
+        {
+            this.nameInZip = nameInZip;
+            name = path + "$" + nameInZip;
+        }
+
+        private ZipEntry getEntry() throws IOException
+        {
+            ZipEntry zipEntry = getZipFile().getEntry(nameInZip);
+            if (zipEntry == null)
+            {
+                throw new IOException(nameInZip + " not found in " + path);
+            }
+            return zipEntry;
+        }
+
+        public InputStream getInputStream() throws IOException
+        {
+            MappedZipFile zip = getZipFile();
+            return zip.getInputStream(getEntry());
+        }
+
+        public byte[] toByteArray() throws IOException
+        {
+            ZipEntry zipEntry = getEntry();
+            if (zipEntry.getMethod() == ZipEntry.STORED)
+            {
+                ByteBuffer data = getZipFile().getData(zipEntry);
+                byte[] bytes = new byte[data.remaining()];
+                data.get(bytes);
+                return bytes;
+            }
+
+            try (InputStream in = getInputStream())
+            {
+                return FileUtils.toByteArray(in);
+            }
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public String getNameForReporting()
+        {
+            return name;
+        }
+
+        public String getURL()
+        {
+            return "jar:file://" + name.replaceAll("\\$", "!/");
+        }
+
+        public String getParent()
+        {
+            return path;
+        }
+
+        public boolean isDirectory()
+        {
+            return false;
+        }
+
+        public long size()
+        {
+            try
+            {
+                return getEntry().getSize();
+            }
+            catch (IOException e)
+            {
+                return 0;
+            }
+        }
+
+        public String getMimeType()
+        {
+            return MimeMappings.getMimeType(nameInZip);
+        }
+
+        public boolean isTextBased()
+        {
+            return false;
+        }
+
+        public long getLastModified()
+        {
+            try
+            {
+                return getEntry().getTime();
+            }
+            catch (IOException e)
+            {
+                return 0;
+            }
+        }
+
+        public VirtualFile resolve(String relative)
+        {
+            int separator = nameInZip.lastIndexOf("/");
+            if (separator != -1)
+            {
+                relative = FileUtils.addPathComponents(nameInZip.substring(0, separator), relative, '/');
+            }
+            return getFile(relative);
+        }
+
+        public void close()
+        {
+        }
+
+        public boolean equals(Object obj)
+        {
+            return obj == this;
+        }
+
+        public int hashCode()
+        {
+            return name.hashCode();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package flex2.compiler.swc.zip;
+
+import flex2.compiler.swc.SwcException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * CodeOrchestra: added
+ * <p/>
+ * A read-only ZipFile backed by a memory mapping of the archive. Only the central directory is parsed
+ * up front. The local file header of an entry is looked up on the first read of the entry, and the entry
+ * is read straight out of the mapping: a stored entry is a slice of the mapping, a deflated one is inflated
+ * from it.
+ */
+public class MappedZipFile {
+
+    private static final int EOCD_LEN = 22;
+    private static final int CFH_LEN = 46;
+    private static final int LFH_LEN = 30;
+
+    private final ByteBuffer buffer;
+    private final Map<String, ZipEntry> nameMap = new LinkedHashMap<>();
+    private final Map<ZipEntry, Integer> headerOffsets = new HashMap<>();
+    private final Map<ZipEntry, Integer> dataOffsets = new HashMap<>();
+
+    public MappedZipFile(File f) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(f, "r"); FileChannel channel = file.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new SwcException.UnknownZipFormat("0");
+            }
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer = mapping.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        try {
+            populateFromCentralDirectory();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new SwcException.UnknownZipFormat("0");
+        }
+    }
+
+    public Enumeration<ZipEntry> getEntries() {
+        return Collections.enumeration(nameMap.values());
+    }
+
+    public ZipEntry getEntry(String name) {
+        return nameMap.get(name);
+    }
+
+    /**
+     * @return the raw (possibly compressed) data of the entry, a view of the mapping
+     */
+    public synchronized ByteBuffer getData(ZipEntry ze) throws IOException {
+        Integer start = dataOffsets.get(ze);
+        if (start == null) {
+            Integer header = headerOffsets.get(ze);
+            if (header == null) {
+                return null;
+            }
+            if (buffer.getInt(header) != (int) ZipOutputStream.LFH_SIG.getValue()) {
+                throw new IOException("invalid local file header of " + ze.getName());
+            }
+            start = header + LFH_LEN + (buffer.getShort(header + 26) & 0xFFFF) + (buffer.getShort(header + 28) & 0xFFFF);
+            dataOffsets.put(ze, start);
+        }
+
+        ByteBuffer data = buffer.duplicate();
+        data.position(start);
+        data.limit(start + (int) ze.getCompressedSize());
+        return data.slice();
+    }
+
+    public InputStream getInputStream(ZipEntry ze) throws IOException, SwcException {
+        ByteBuffer data = getData(ze);
+        if (data == null) {
+            return null;
+        }
+        switch (ze.getMethod()) {
+            case ZipEntry.STORED:
+                return new ByteBufferInputStream(data, false);
+            case ZipEntry.DEFLATED:
+                return new InflaterInputStream(new ByteBufferInputStream(data, true), new Inflater(true), 8192);
+            default:
+                throw new SwcException.UnsupportedZipCompression(ze.getMethod() + "");
+        }
+    }
+
+    private void populateFromCentralDirectory() {
+        int eocd = findEndOfCentralDirectory();
+        int count = buffer.getShort(eocd + 10) & 0xFFFF;
+        int off = buffer.getInt(eocd + 16);
+
+        for (int i = 0; i < count && buffer.getInt(off) == (int) ZipOutputStream.CFH_SIG.getValue(); i++) {
+            ZipEntry ze = new ZipEntry();
+            ze.setPlatform(((buffer.getShort(off + 4) & 0xFFFF) >> 8) & 0x0F);
+            ze.setMethod(buffer.getShort(off + 10) & 0xFFFF);
+            ze.setTime(ZipFile.fromDosTime(new ZipLong(buffer.getInt(off + 12) & 0xFFFFFFFFL)).getTime());
+            ze.setCrc(buffer.getInt(off + 16) & 0xFFFFFFFFL);
+            ze.setCompressedSize(buffer.getInt(off + 20) & 0xFFFFFFFFL);
+            ze.setSize(buffer.getInt(off + 24) & 0xFFFFFFFFL);
+            int fileNameLen = buffer.getShort(off + 28) & 0xFFFF;
+            int extraLen = buffer.getShort(off + 30) & 0xFFFF;
+            int commentLen = buffer.getShort(off + 32) & 0xFFFF;
+            ze.setInternalAttributes(buffer.getShort(off + 36) & 0xFFFF);
+            ze.setExternalAttributes(buffer.getInt(off + 38) & 0xFFFFFFFFL);
+
+            byte[] fileName = new byte[fileNameLen];
+            ByteBuffer name = buffer.duplicate();
+            name.position(off + CFH_LEN);
+            name.get(fileName);
+            ze.setName(new String(fileName));
+
+            headerOffsets.put(ze, buffer.getInt(off + 42));
+            nameMap.put(ze.getName(), ze);
+
+            off += CFH_LEN + fileNameLen + extraLen + commentLen;
+        }
+    }
+
+    private int findEndOfCentralDirectory() {
+        int sig = (int) ZipOutputStream.EOCD_SIG.getValue();
+        // the record is followed by a comment of at most 64k
+        for (int off = buffer.limit() - EOCD_LEN, min = Math.max(0, off - 0xFFFF); off >= min; off--) {
+            if (buffer.getInt(off) == sig) {
+                return off;
+            }
+        }
+        throw new SwcException.UnknownZipFormat("0");
+    }
+
+    /**
+     * Reads a view of the mapping. The Inflater needs a dummy byte after the deflated data, see ZipFile.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+        private boolean addDummyByte;
+
+        ByteBufferInputStream(ByteBuffer buffer, boolean addDummyByte) {
+            this.buffer = buffer;
+            this.addDummyByte = addDummyByte;
+        }
+
+        public int read() {
+            if (buffer.hasRemaining()) {
+                return buffer.get() & 0xFF;
+            }
+            if (addDummyByte) {
+                addDummyByte = false;
+                return 0;
+            }
+            return -1;
+        }
+
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                if (addDummyByte) {
+                    addDummyByte = false;
+                    b[off] = 0;
+                    return 1;
+                }
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        public int available() {
+            return buffer.remaining() + (addDummyByte ? 1 : 0);
+        }
+
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package flex2.compiler.util;
+
+import flex2.compiler.Source;
+import flex2.compiler.io.LocalFile;
+import flex2.compiler.io.VirtualFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+
+/**
+ * CodeOrchestra: added
+ * <p/>
+ * Content hashes (xxHash64) of the source files. Enabled with <code>-Dflex2.compiler.contentHash=true</code>,
+ * a source whose modification time changed but whose content hash didn't is not considered updated,
+ * see {@link Source#checkContentHash()}. The hashes are taken when the sources have been compiled, and
+ * are persisted in the incremental compilation cache.
+ */
+public final class ContentHash
+{
+	private static final boolean enabled = Boolean.getBoolean("flex2.compiler.contentHash");
+
+	private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+	private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long PRIME64_3 = 0x165667B19E3779F9L;
+	private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+	private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+	private ContentHash()
+	{
+	}
+
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public static boolean isHashable(VirtualFile f)
+	{
+		return f instanceof LocalFile;
+	}
+
+	/**
+	 * Computes the missing hashes of the sources in parallel, see {@link Source#updateContentHash()}
+	 */
+	public static void updateAll(Collection<Source> sources)
+	{
+		if (enabled)
+		{
+			sources.parallelStream().forEach(Source::updateContentHash);
+		}
+	}
+
+	/**
+	 * Checks the touched sources in parallel, see {@link Source#checkContentHash()}
+	 */
+	public static void checkAll(Collection<Source> sources)
+	{
+		if (enabled)
+		{
+			sources.parallelStream().forEach(Source::checkContentHash);
+		}
+	}
+
+	/**
+	 * @return the hash of the file's content, 0 if it can't be read
+	 */
+	public static long hash(VirtualFile f)
+	{
+		try (InputStream in = f.getInputStream())
+		{
+			if (in == null)
+			{
+				return 0;
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.max(0, Math.min(f.size(), 1 << 24)));
+			byte[] buffer = new byte[8192];
+			for (int n; (n = in.read(buffer)) != -1;)
+			{
+				out.write(buffer, 0, n);
+			}
+			return hash(out.toByteArray());
+		}
+		catch (IOException e)
+		{
+			return 0;
+		}
+	}
+
+	public static long hash(byte[] b)
+	{
+		int length = b.length, i = 0;
+		long h;
+
+		if (length >= 32)
+		{
+			long v1 = PRIME64_1 + PRIME64_2, v2 = PRIME64_2, v3 = 0, v4 = -PRIME64_1;
+			for (int limit = length - 32; i <= limit; i += 32)
+			{
+				v1 = round(v1, getLong(b, i));
+				v2 = round(v2, getLong(b, i + 8));
+				v3 = round(v3, getLong(b, i + 16));
+				v4 = round(v4, getLong(b, i + 24));
+			}
+			h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+			h = mergeRound(h, v1);
+			h = mergeRound(h, v2);
+			h = mergeRound(h, v3);
+			h = mergeRound(h, v4);
+		}
+		else
+		{
+			h = PRIME64_5;
+		}
+
+		h += length;
+
+		for (; i + 8 <= length; i += 8)
+		{
+			h ^= round(0, getLong(b, i));
+			h = Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+		}
+		if (i + 4 <= length)
+		{
+			h ^= (getInt(b, i) & 0xFFFFFFFFL) * PRIME64_1;
+			h = Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+			i += 4;
+		}
+		for (; i < length; i++)
+		{
+			h ^= (b[i] & 0xFF) * PRIME64_5;
+			h = Long.rotateLeft(h, 11) * PRIME64_1;
+		}
+
+		h ^= h >>> 33;
+		h *= PRIME64_2;
+		h ^= h >>> 29;
+		h *= PRIME64_3;
+		h ^= h >>> 32;
+		return h;
+	}
+
+	private static long round(long acc, long input)
+	{
+		acc += input * PRIME64_2;
+		acc = Long.rotateLeft(acc, 31);
+		return acc * PRIME64_1;
+	}
+
+	private static long mergeRound(long acc, long val)
+	{
+		acc ^= round(0, val);
+		return acc * PRIME64_1 + PRIME64_4;
+	}
+
+	private static long getLong(byte[] b, int i)
+	{
+		return (b[i] & 0xFFL) | (b[i + 1] & 0xFFL) << 8 | (b[i + 2] & 0xFFL) << 16 | (b[i + 3] & 0xFFL) << 24 |
+		       (b[i + 4] & 0xFFL) << 32 | (b[i + 5] & 0xFFL) << 40 | (b[i + 6] & 0xFFL) << 48 | (b[i + 7] & 0xFFL) << 56;
+	}
+
+	private static int getInt(byte[] b, int i)
+	{
+		return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24;
+	}
+}
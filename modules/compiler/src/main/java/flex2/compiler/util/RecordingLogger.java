@@ -0,0 +1,219 @@
+package flex2.compiler.util;
+
+import flash.localization.LocalizationManager;
+import flex2.compiler.ILocalizableMessage;
+import flex2.compiler.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * CodeOrchestra: added
+ * <p/>
+ * Records everything logged by the work done on a worker thread, so that the compiler thread can
+ * {@link #replay(Logger)} it into the source's logger in the source order.
+ */
+public class RecordingLogger implements Logger
+{
+	private final List<Consumer<Logger>> records = new ArrayList<>();
+	private int errorCount, warningCount;
+
+	public void replay(Logger logger)
+	{
+		for (Consumer<Logger> record : records)
+		{
+			record.accept(logger);
+		}
+		records.clear();
+	}
+
+	public int errorCount()
+	{
+		return errorCount;
+	}
+
+	public int warningCount()
+	{
+		return warningCount;
+	}
+
+	public void logInfo(String info)
+	{
+		records.add(l -> l.logInfo(info));
+	}
+
+	public void logDebug(String debug)
+	{
+		records.add(l -> l.logDebug(debug));
+	}
+
+	public void logWarning(String warning)
+	{
+		warningCount++;
+		records.add(l -> l.logWarning(warning));
+	}
+
+	public void logError(String error)
+	{
+		errorCount++;
+		records.add(l -> l.logError(error));
+	}
+
+	public void logInfo(String path, String info)
+	{
+		records.add(l -> l.logInfo(path, info));
+	}
+
+	public void logDebug(String path, String debug)
+	{
+		records.add(l -> l.logDebug(path, debug));
+	}
+
+	public void logWarning(String path, String warning)
+	{
+		warningCount++;
+		records.add(l -> l.logWarning(path, warning));
+	}
+
+	public void logWarning(String path, String warning, int errorCode)
+	{
+		warningCount++;
+		records.add(l -> l.logWarning(path, warning, errorCode));
+	}
+
+	public void logError(String path, String error)
+	{
+		errorCount++;
+		records.add(l -> l.logError(path, error));
+	}
+
+	public void logError(String path, String error, int errorCode)
+	{
+		errorCount++;
+		records.add(l -> l.logError(path, error, errorCode));
+	}
+
+	public void logInfo(String path, int line, String info)
+	{
+		records.add(l -> l.logInfo(path, line, info));
+	}
+
+	public void logDebug(String path, int line, String debug)
+	{
+		records.add(l -> l.logDebug(path, line, debug));
+	}
+
+	public void logWarning(String path, int line, String warning)
+	{
+		warningCount++;
+		records.add(l -> l.logWarning(path, line, warning));
+	}
+
+	public void logWarning(String path, int line, String warning, int errorCode)
+	{
+		warningCount++;
+		records.add(l -> l.logWarning(path, line, warning, errorCode));
+	}
+
+	public void logError(String path, int line, String error)
+	{
+		errorCount++;
+		records.add(l -> l.logError(path, line, error));
+	}
+
+	public void logError(String path, int line, String error, int errorCode)
+	{
+		errorCount++;
+		records.add(l -> l.logError(path, line, error, errorCode));
+	}
+
+	public void logInfo(String path, int line, int col, String info)
+	{
+		records.add(l -> l.logInfo(path, line, col, info));
+	}
+
+	public void logDebug(String path, int line, int col, String debug)
+	{
+		records.add(l -> l.logDebug(path, line, col, debug));
+	}
+
+	public void logWarning(String path, int line, int col, String warning)
+	{
+		warningCount++;
+		records.add(l -> l.logWarning(path, line, col, warning));
+	}
+
+	public void logError(String path, int line, int col, String error)
+	{
+		errorCount++;
+		records.add(l -> l.logError(path, line, col, error));
+	}
+
+	public void logWarning(String path, int line, int col, String warning, String source)
+	{
+		warningCount++;
+		records.add(l -> l.logWarning(path, line, col, warning, source));
+	}
+
+	public void logWarning(String path, int line, int col, String warning, String source, int errorCode)
+	{
+		warningCount++;
+		records.add(l -> l.logWarning(path, line, col, warning, source, errorCode));
+	}
+
+	public void logError(String path, int line, int col, String error, String source)
+	{
+		errorCount++;
+		records.add(l -> l.logError(path, line, col, error, source));
+	}
+
+	public void logError(String path, int line, int col, String error, String source, int errorCode)
+	{
+		errorCount++;
+		records.add(l -> l.logError(path, line, col, error, source, errorCode));
+	}
+
+	public void log(ILocalizableMessage m)
+	{
+		count(m);
+		records.add(l -> l.log(m));
+	}
+
+	public void log(ILocalizableMessage m, String source)
+	{
+		count(m);
+		records.add(l -> l.log(m, source));
+	}
+
+	private void count(ILocalizableMessage m)
+	{
+		if (m.getLevel() == ILocalizableMessage.ERROR)
+		{
+			errorCount++;
+		}
+		else if (m.getLevel() == ILocalizableMessage.WARNING)
+		{
+			warningCount++;
+		}
+	}
+
+	public void needsCompilation(String path, String reason)
+	{
+		records.add(l -> l.needsCompilation(path, reason));
+	}
+
+	public void includedFileUpdated(String path)
+	{
+		records.add(l -> l.includedFileUpdated(path));
+	}
+
+	public void includedFileAffected(String path)
+	{
+		records.add(l -> l.includedFileAffected(path));
+	}
+
+	public void setLocalizationManager(LocalizationManager mgr)
+	{
+	}
+}
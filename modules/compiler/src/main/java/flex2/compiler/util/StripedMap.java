@@ -0,0 +1,142 @@
+package flex2.compiler.util;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CodeOrchestra: added
+ * <p/>
+ * A map which may be shared by the compiler threads. Lookups don't lock. Writes are serialized per
+ * stripe of keys, so a check-then-put such as {@link #putIfAbsent(Object, Object)} has a single writer.
+ * The writes which had to wait for another writer of the stripe are counted, see {@link #getContendedWriteCount()}.
+ * <p/>
+ * Null values are not stored, putting null removes the key.
+ */
+public class StripedMap<K, V>
+{
+	private static final int STRIPES = 16;
+
+	private final String name;
+	private final ConcurrentHashMap<K, V> map;
+	private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+	private final AtomicLong writeCount = new AtomicLong();
+	private final AtomicLong contendedWriteCount = new AtomicLong();
+
+	public StripedMap(String name, int initialCapacity)
+	{
+		this.name = name;
+		map = new ConcurrentHashMap<>(initialCapacity);
+		for (int i = 0; i < STRIPES; i++)
+		{
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public V get(Object key)
+	{
+		return key == null ? null : map.get(key);
+	}
+
+	public boolean containsKey(Object key)
+	{
+		return key != null && map.containsKey(key);
+	}
+
+	public V put(K key, V value)
+	{
+		ReentrantLock lock = lock(key);
+		try
+		{
+			return value == null ? map.remove(key) : map.put(key, value);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the value already mapped to the key, null if the given value has been stored
+	 */
+	public V putIfAbsent(K key, V value)
+	{
+		ReentrantLock lock = lock(key);
+		try
+		{
+			V old = map.get(key);
+			if (old == null && value != null)
+			{
+				map.put(key, value);
+			}
+			return old;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	public int size()
+	{
+		return map.size();
+	}
+
+	public Set<K> keySet()
+	{
+		return map.keySet();
+	}
+
+	public Collection<V> values()
+	{
+		return map.values();
+	}
+
+	public Set<Map.Entry<K, V>> entrySet()
+	{
+		return map.entrySet();
+	}
+
+	public long getWriteCount()
+	{
+		return writeCount.get();
+	}
+
+	public long getContendedWriteCount()
+	{
+		return contendedWriteCount.get();
+	}
+
+	public void resetCounters()
+	{
+		writeCount.set(0);
+		contendedWriteCount.set(0);
+	}
+
+	private ReentrantLock lock(Object key)
+	{
+		int h = key.hashCode();
+		ReentrantLock lock = locks[(h ^ (h >>> 16)) & (STRIPES - 1)];
+		if (!lock.tryLock())
+		{
+			contendedWriteCount.incrementAndGet();
+			lock.lock();
+		}
+		writeCount.incrementAndGet();
+		return lock;
+	}
+
+	public String toString()
+	{
+		return name + ": " + map.size() + " entries, " + writeCount.get() + " writes, " + contendedWriteCount.get() + " contended";
+	}
+}
@@ -30,6 +30,7 @@ import flex2.tools.oem.ProgressMeter;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A utility class that contains all the thread local variables used
@@ -52,6 +53,7 @@ public final class ThreadLocalToolkit
     private static ThreadLocal<CompilerControl> compilerControl = new ThreadLocal<>();
     private static ThreadLocal<StandardDefs> standardDefs = new ThreadLocal<>();
     private static ThreadLocal<Integer> compatibilityVersion = new ThreadLocal<>();
+    private static ThreadLocal<Set<String>> changedFiles = new ThreadLocal<>(); // CodeOrchestra: added
 
     //----------------------
     // LocalizationManager
@@ -223,6 +225,96 @@ public final class ThreadLocalToolkit
         return compatibilityVersion.get();
     }
 
+    //---------
+    // ChangedFiles (CodeOrchestra: added)
+    //---------
+
+    /**
+     * The files reported changed by a file watcher, for the compilation running on this thread. While a set
+     * is given, the local sources with none of their files in it are taken as up to date, see Source.isUpdated().
+     * Null restores the checks.
+     */
+    public static void setChangedFiles(Set<String> names)
+    {
+        changedFiles.set(names);
+    }
+
+    public static Set<String> getChangedFiles()
+    {
+        return changedFiles.get();
+    }
+
+    //--------------------------------------------------------------------------
+    //
+    // Thread hand-off (CodeOrchestra: added)
+    //
+    //--------------------------------------------------------------------------
+
+    /**
+     * The thread local variables of the current thread, to be installed on a worker
+     * thread which does a part of the compilation.
+     */
+    public static State getState()
+    {
+        return new State();
+    }
+
+    public static final class State
+    {
+        private final Logger logger = ThreadLocalToolkit.logger.get();
+        private final PathResolver resolver = ThreadLocalToolkit.resolver.get();
+        private final Map<String, VirtualFile> resolved = ThreadLocalToolkit.resolved.get();
+        private final Benchmark stopWatch = ThreadLocalToolkit.stopWatch.get();
+        private final LocalizationManager localization = ThreadLocalToolkit.localization.get();
+        private final MimeMappings mimeMappings = ThreadLocalToolkit.mimeMappings.get();
+        private final ProgressMeter progressMeter = ThreadLocalToolkit.progressMeter.get();
+        private final CompilerControl compilerControl = ThreadLocalToolkit.compilerControl.get();
+        private final StandardDefs standardDefs = ThreadLocalToolkit.standardDefs.get();
+        private final Integer compatibilityVersion = ThreadLocalToolkit.compatibilityVersion.get();
+        private final Set<String> changedFiles = ThreadLocalToolkit.changedFiles.get();
+
+        private State()
+        {
+        }
+
+        /**
+         * Installs the variables on the current thread. The resolved paths are copied,
+         * the paths resolved by the worker are not seen by the other threads.
+         */
+        public void install()
+        {
+            ThreadLocalToolkit.logger.set(logger);
+            ThreadLocalToolkit.resolver.set(resolver);
+            ThreadLocalToolkit.resolved.set(resolved != null ? new HashMap<>(resolved) : null);
+            ThreadLocalToolkit.stopWatch.set(stopWatch);
+            ThreadLocalToolkit.localization.set(localization);
+            ThreadLocalToolkit.mimeMappings.set(mimeMappings);
+            ThreadLocalToolkit.progressMeter.set(progressMeter);
+            ThreadLocalToolkit.compilerControl.set(compilerControl);
+            ThreadLocalToolkit.standardDefs.set(standardDefs);
+            ThreadLocalToolkit.compatibilityVersion.set(compatibilityVersion);
+            ThreadLocalToolkit.changedFiles.set(changedFiles);
+        }
+
+        /**
+         * Clears the variables installed on the current thread, so that a pooled thread doesn't leak them
+         */
+        public void uninstall()
+        {
+            ThreadLocalToolkit.logger.remove();
+            ThreadLocalToolkit.resolver.remove();
+            ThreadLocalToolkit.resolved.remove();
+            ThreadLocalToolkit.stopWatch.remove();
+            ThreadLocalToolkit.localization.remove();
+            ThreadLocalToolkit.mimeMappings.remove();
+            ThreadLocalToolkit.progressMeter.remove();
+            ThreadLocalToolkit.compilerControl.remove();
+            ThreadLocalToolkit.standardDefs.remove();
+            ThreadLocalToolkit.compatibilityVersion.remove();
+            ThreadLocalToolkit.changedFiles.remove();
+        }
+    }
+
     //--------------------------------------------------------------------------
     //
     // Logging Methods
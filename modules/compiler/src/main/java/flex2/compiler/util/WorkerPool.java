@@ -0,0 +1,56 @@
+package flex2.compiler.util;
+
+import macromedia.asc.util.WorkerThreads;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * CodeOrchestra: added
+ * <p/>
+ * The bounded pool of threads the compiler hands a part of its work to. Enabled with
+ * <code>-Dflex2.compiler.threads=N</code>, N &gt; 1. The tasks run with the ThreadLocalToolkit
+ * variables of the submitting thread installed. The threads are those of asc's WorkerThreads,
+ * shared with the abc optimizer.
+ */
+public final class WorkerPool
+{
+    private WorkerPool()
+    {
+    }
+
+    public static boolean isEnabled()
+    {
+        return WorkerThreads.isEnabled();
+    }
+
+    public static int getThreadCount()
+    {
+        return WorkerThreads.getThreadCount();
+    }
+
+    /**
+     * @see WorkerThreads#setThreadCount(int)
+     */
+    public static void setThreadCount(int count)
+    {
+        WorkerThreads.setThreadCount(count);
+    }
+
+    public static <T> Future<T> submit(final Callable<T> task)
+    {
+        final ThreadLocalToolkit.State state = ThreadLocalToolkit.getState();
+        return WorkerThreads.getExecutor().submit(() ->
+        {
+            state.install();
+            try
+            {
+                return task.call();
+            }
+            finally
+            {
+                state.uninstall();
+            }
+        });
+    }
+}
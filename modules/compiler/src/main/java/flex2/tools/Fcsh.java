@@ -21,7 +21,9 @@ package flex2.tools;
 
 import codeOrchestra.LCBaseExtension;
 import codeOrchestra.LCIncrementalExtension;
+import codeOrchestra.delivery.DeliveryChannel;
 import codeOrchestra.digest.DigestManager;
+import codeOrchestra.profiling.LiveCodingTimings;
 import codeOrchestra.profiling.YourKitController;
 import codeOrchestra.tree.LastASTHolder;
 import codeOrchestra.util.StringUtils;
@@ -38,9 +40,9 @@ import flex2.compiler.config.ConfigurationException;
 import flex2.compiler.i18n.I18nUtils;
 import flex2.compiler.io.FileUtil;
 import flex2.compiler.io.VirtualFile;
+import flex2.compiler.swc.SharedSwcCache;
 import flex2.compiler.swc.Swc;
 import flex2.compiler.swc.SwcAPI;
-import flex2.compiler.swc.SwcCache;
 import flex2.compiler.swc.SwcException;
 import flex2.compiler.util.Benchmark;
 import flex2.compiler.util.CompilerMessage;
@@ -54,6 +56,9 @@ import macromedia.asc.util.Context;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * fcsh (Flex Compiler SHell)
@@ -67,9 +72,9 @@ public class Fcsh extends Tool {
 
     public static void main(String[] args) throws IOException {
         exit = false;
-        counter = 1;
-        targets = new HashMap<>();
-        processes = new HashMap<>();
+        counter.set(1);
+        targets = new ConcurrentHashMap<>();
+        processes = new ConcurrentHashMap<>();
 
         String s;
         BufferedReader r = new BufferedReader(new InputStreamReader(System.in));
@@ -93,7 +98,7 @@ public class Fcsh extends Tool {
             }
 
             try {
-                process(s);
+                processLocked(s);
             } catch (Throwable t) {
                 t.printStackTrace();
             } finally {
@@ -112,11 +117,53 @@ public class Fcsh extends Tool {
         }
     }
 
-    private static int counter;
-    private static boolean exit;
+    private static final AtomicInteger counter = new AtomicInteger(1);
+    private static volatile boolean exit;
     private static Map<String, Target> targets;
     private static Map<String, Process> processes;
 
+    // CodeOrchestra: added, see processLocked()
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static final Map<String, FcshWatcher> watchers = new HashMap<>();
+    private static FcshServer server;
+    private static final ThreadLocal<Integer> assignedTargetId = new ThreadLocal<>();
+
+    /**
+     * CodeOrchestra: added
+     * <p/>
+     * Runs a command of the console or of a server client, in the ThreadLocalToolkit context of the calling
+     * thread. The commands run one at a time, even those of independent targets: all the targets share the
+     * SWC cache, whose classes get the type table of the target being compiled, as well as the static state
+     * of CompilerAPI and of the livecoding. The server clients queue up for the compiler, each with its own
+     * messages.
+     */
+    static void processLocked(String s) {
+        lock.lock();
+        try {
+            process(s);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int assignTargetId() {
+        int id = counter.getAndIncrement();
+        assignedTargetId.set(id);
+        ThreadLocalToolkit.logInfo(ThreadLocalToolkit.getLocalizationManager().getLocalizedTextString(new AssignTargetID(id)));
+        return id;
+    }
+
+    /**
+     * CodeOrchestra: added
+     *
+     * @return the id assigned to a new target by the last command of the calling thread, null if none
+     */
+    static Integer takeAssignedTargetId() {
+        Integer id = assignedTargetId.get();
+        assignedTargetId.remove();
+        return id;
+    }
+
     private static void process(String s) {
         LocalizationManager l10n = ThreadLocalToolkit.getLocalizationManager();
 
@@ -137,12 +184,12 @@ public class Fcsh extends Tool {
                         mxmlc(target.args, id);
                     }
                 } catch (NumberFormatException ex) {
-                    ThreadLocalToolkit.logInfo(l10n.getLocalizedTextString(new AssignTargetID(counter)));
-                    mxmlc(args, counter++);
+                    int id = assignTargetId();
+                    mxmlc(args, id);
                 }
             } else {
-                ThreadLocalToolkit.logInfo(l10n.getLocalizedTextString(new AssignTargetID(counter)));
-                mxmlc(args, counter++);
+                int id = assignTargetId();
+                mxmlc(args, id);
             }
         } else if (s.startsWith("compc")) {
             StringTokenizer t = new StringTokenizer(s.substring("compc".length()).trim(), " ");
@@ -161,12 +208,12 @@ public class Fcsh extends Tool {
                         compc(target.args, id);
                     }
                 } catch (NumberFormatException ex) {
-                    ThreadLocalToolkit.logInfo(l10n.getLocalizedTextString(new AssignTargetID(counter)));
-                    compc(args, counter++);
+                    int id = assignTargetId();
+                    compc(args, id);
                 }
             } else {
-                ThreadLocalToolkit.logInfo(l10n.getLocalizedTextString(new AssignTargetID(counter)));
-                compc(args, counter++);
+                int id = assignTargetId();
+                compc(args, id);
             }
         } else if (s.startsWith("compile")) {
             String id = s.substring("compile".length()).trim();
@@ -248,6 +295,7 @@ public class Fcsh extends Tool {
             for (String name : names) {
                 process("clear " + name);
             }
+            stopServer();
 
             exit = true;
         } else if (s.equals("livecoding.caches.delete")) {
@@ -273,6 +321,31 @@ public class Fcsh extends Tool {
             } else {
                 System.out.println("Profiling not available");
             }
+        } else if (s.equals("profiling.timings")) {
+            if (LiveCodingTimings.isEnabled()) {
+                System.out.println(LiveCodingTimings.getInstance().getSessionTimingsJSON());
+            } else {
+                System.out.println("Timings not enabled");
+            }
+        } else if (s.startsWith("watch")) {
+            String args = s.substring("watch".length()).trim();
+            int space = args.indexOf(' ');
+            String id = space == -1 ? args : args.substring(0, space);
+            String command = space == -1 ? "compile " + id : args.substring(space + 1).trim();
+            if (targets.containsKey(id)) {
+                watch(id, command);
+            } else {
+                ThreadLocalToolkit.logInfo(l10n.getLocalizedTextString(new TargetNotFound(id)));
+            }
+        } else if (s.startsWith("unwatch")) {
+            unwatch(s.substring("unwatch".length()).trim());
+        } else if (s.startsWith("server")) {
+            String args = s.substring("server".length()).trim();
+            if (args.equals("stop")) {
+                stopServer();
+            } else {
+                startServer(args.length() == 0 ? 0 : Integer.parseInt(args));
+            }
         } else if (s.equals("livecoding.start")) {
             livecodingSession = true;
             Context.livecodingSession = true;
@@ -287,6 +360,10 @@ public class Fcsh extends Tool {
         else if (s.startsWith("lccompc") || s.startsWith("lcmxmlc") || s.startsWith("lcicompc")) {
             boolean isCompc = s.startsWith("lccompc") || s.startsWith("lcicompc");
 
+            if (LiveCodingTimings.isEnabled()) {
+                LiveCodingTimings.getInstance().beginCompile();
+            }
+
             if (s.startsWith("lcicompc")) {
                 livecodingIncrementalMode = true;
                 LCIncrementalExtension.lastCompilationStartTime = System.currentTimeMillis();
@@ -318,8 +395,10 @@ public class Fcsh extends Tool {
                 }
 
                 if (livecodingBaseModeSecondPass) {
+                    long started = LiveCodingTimings.start();
                     DigestManager.getInstance().init();
                     DigestManager.getInstance().resolve();
+                    LiveCodingTimings.stop(LiveCodingTimings.DIGEST_RESOLUTION, started);
                     DigestManager.getInstance().dumpEmbedDigestsReport();
                 }
 
@@ -339,8 +418,7 @@ public class Fcsh extends Tool {
                             targetsInvolved.add(id);
                         }
                     } catch (NumberFormatException ex) {
-                        ThreadLocalToolkit.logInfo(l10n.getLocalizedTextString(new AssignTargetID(counter)));
-                        int id = counter++;
+                        int id = assignTargetId();
                         if (isCompc) {
                             compc(args, id);
                         } else {
@@ -350,8 +428,7 @@ public class Fcsh extends Tool {
                         targetsInvolved.add(id);
                     }
                 } else {
-                    ThreadLocalToolkit.logInfo(l10n.getLocalizedTextString(new AssignTargetID(counter)));
-                    int id = counter++;
+                    int id = assignTargetId();
                     if (isCompc) {
                         compc(args, id);
                     } else {
@@ -363,6 +440,13 @@ public class Fcsh extends Tool {
                 livecodingBaseModeSecondPass = false;
             }
 
+            LastASTHolder.getInstance().flush();
+
+            // All the classes of the burst are delivered together
+            if (livecodingIncrementalMode) {
+                DeliveryChannel.getInstance().flush(LCIncrementalExtension.lastCompilationStartTime);
+            }
+
             // COLT-244
             if (livecodingIncrementalMode) {
                 System.out.println("Clearing incremental compiler target(s) " + StringUtils.joinCollection(targetsInvolved, ", "));
@@ -371,6 +455,10 @@ public class Fcsh extends Tool {
                 }
             }
 
+            if (LiveCodingTimings.isEnabled()) {
+                LiveCodingTimings.getInstance().endCompile(s.substring(0, l));
+            }
+
             livecodingBaseMode = false;
             livecodingIncrementalMode = false;
         } else {
@@ -379,13 +467,140 @@ public class Fcsh extends Tool {
     }
 
     private static void clear(String target) {
+        unwatch(target);
+        SharedSwcCache.getInstance().release(target);
+
         Process p = processes.remove(target);
 
         if (p != null) {
             p.destroy();
         }
 
-        targets.remove(target);
+        Target t = targets.remove(target);
+        if (t != null) {
+            // CodeOrchestra: added
+            if (t.sourcePath != null) {
+                t.sourcePath.close();
+            }
+            if (t.bundlePath != null) {
+                t.bundlePath.close();
+            }
+        }
+    }
+
+    /**
+     * CodeOrchestra: added
+     * <p/>
+     * Runs the command whenever files in the source path or library path of the target change, but not
+     * when only the target's output changes. The changed files are checked, the other sources of the target
+     * are taken as up to date: the validation still visits every source, it only skips their file system
+     * checks, see Source.isUpdated().
+     */
+    private static void watch(String id, String command) {
+        LocalizationManager l10n = ThreadLocalToolkit.getLocalizationManager();
+        Target target = targets.get(id);
+        if (target.configuration == null) {
+            ThreadLocalToolkit.logInfo(l10n.getLocalizedTextString(new WatchTargetNotCompiled(id)));
+            return;
+        }
+
+        Set<File> roots = new HashSet<>();
+        if (target.sourcePath != null) {
+            roots.addAll(target.sourcePath.getPaths());
+        }
+        if (target.sourceList != null) {
+            for (Source source : target.sourceList.sources().values()) {
+                addWatchRoot(roots, source.getBackingFile().getParent());
+            }
+        }
+        VirtualFile[] libraryPath = target.configuration.getCompilerConfiguration().getLibraryPath();
+        for (int i = 0, length = libraryPath == null ? 0 : libraryPath.length; i < length; i++) {
+            File f = FileUtil.openFile(libraryPath[i].getName());
+            addWatchRoot(roots, f.isDirectory() ? f.getPath() : f.getParent());
+        }
+
+        unwatch(id);
+        try {
+            File output = target.outputName == null ? null : FileUtil.openFile(target.outputName);
+            FcshWatcher watcher = new FcshWatcher(id, command, roots, output);
+            watchers.put(id, watcher);
+            watcher.start();
+            ThreadLocalToolkit.logInfo(l10n.getLocalizedTextString(new WatchStarted(id, roots.size(), command)));
+        } catch (IOException e) {
+            ThreadLocalToolkit.log(new WatchFailed(id, e.toString()));
+        }
+    }
+
+    private static void addWatchRoot(Set<File> roots, String path) {
+        if (path != null) {
+            roots.add(new File(path));
+        }
+    }
+
+    private static void unwatch(String id) {
+        FcshWatcher watcher = watchers.remove(id);
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * CodeOrchestra: added
+     * <p/>
+     * Called by a watcher. With the changed files given, the validation of the compilation units only checks
+     * those files (and their dependents), without them (e.g. after a lost watch event) everything is validated.
+     * Runs exclusively, the changed files are a hint for this compilation only (see ThreadLocalToolkit.setChangedFiles()).
+     */
+    static void runWatched(String command, Set<String> changedFiles) {
+        lock.lock();
+        try {
+            long started = System.currentTimeMillis();
+            if (ThreadLocalToolkit.getLocalizationManager() == null) {
+                LocalizationManager localizationManager = new LocalizationManager();
+                localizationManager.addLocalizer(new ResourceBundleLocalizer());
+                ThreadLocalToolkit.setLocalizationManager(localizationManager);
+            }
+            CompilerAPI.useConsoleLogger();
+
+            System.out.println();
+            LocalizationManager l10n = ThreadLocalToolkit.getLocalizationManager();
+            if (changedFiles == null) {
+                ThreadLocalToolkit.logInfo(l10n.getLocalizedTextString(new WatchFilesChanged(command)));
+            } else {
+                ThreadLocalToolkit.logInfo(l10n.getLocalizedTextString(new WatchChangedFiles(changedFiles.size(), command)));
+            }
+            ThreadLocalToolkit.setChangedFiles(changedFiles);
+            try {
+                process(command);
+            } catch (Throwable t) {
+                t.printStackTrace();
+            } finally {
+                ThreadLocalToolkit.setChangedFiles(null);
+                System.out.println((System.currentTimeMillis() - started) + "ms");
+                prompt();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void startServer(int port) {
+        stopServer();
+        try {
+            server = new FcshServer(port);
+            server.start();
+            LocalizationManager l10n = ThreadLocalToolkit.getLocalizationManager();
+            ThreadLocalToolkit.logInfo(l10n.getLocalizedTextString(new ServerStarted(server.getPort())));
+        } catch (IOException e) {
+            ThreadLocalToolkit.log(new ServerFailed(port, e.toString()));
+        }
+    }
+
+    private static void stopServer() {
+        if (server != null) {
+            server.close();
+            server = null;
+        }
     }
 
     private static void info(String target) {
@@ -465,6 +680,7 @@ public class Fcsh extends Tool {
                     mappings,
                     I18nUtils.getTranslationFormat(compilerConfig),
                     s.swcCache);
+            SharedSwcCache.getInstance().retain("" + s.id, swcContext.getSwcGroup());
             configuration.addExterns(swcContext.getExterns());
 
             // recompile or incrementally compile...
@@ -592,6 +808,7 @@ public class Fcsh extends Tool {
                     mappings,
                     I18nUtils.getTranslationFormat(compilerConfig),
                     s.swcCache);
+            SharedSwcCache.getInstance().retain("" + s.id, swcContext.getSwcGroup());
             configuration.addExterns(swcContext.getExterns());
             configuration.addIncludes(swcContext.getIncludes());
             configuration.getCompilerConfiguration().addThemeCssFiles(swcContext.getThemeStyleSheets());
@@ -833,6 +1050,11 @@ public class Fcsh extends Tool {
                 ((As3Compiler) compilers[0]).addCompilerExtension(new LCBaseExtension(compilerConfig));
             }
 
+            // CodeOrchestra: added if (codegen timings come from the compiler's benchmark helper)
+            if (LiveCodingTimings.isEnabled()) {
+                compilers[0].initBenchmarks();
+            }
+
             // construct the SWF file name...
             VirtualFile projector = configuration.getProjector();
 
@@ -879,7 +1101,7 @@ public class Fcsh extends Tool {
             }
 
             // load SWCs
-            s.swcCache = new SwcCache();
+            s.swcCache = SharedSwcCache.getInstance();
 
             CompilerSwcContext swcContext = new CompilerSwcContext(true);
             swcContext.load(compilerConfig.getLibraryPath(),
@@ -889,6 +1111,7 @@ public class Fcsh extends Tool {
                     mappings,
                     I18nUtils.getTranslationFormat(compilerConfig),
                     s.swcCache);
+            SharedSwcCache.getInstance().retain("" + s.id, swcContext.getSwcGroup());
             configuration.addExterns(swcContext.getExterns());
             configuration.addIncludes(swcContext.getIncludes());
             configuration.getCompilerConfiguration().addThemeCssFiles(swcContext.getThemeStyleSheets());
@@ -924,16 +1147,22 @@ public class Fcsh extends Tool {
                 s.resources.refresh();
 
                 // link
-                s.app = LinkerAPI.linkConsole(units, postLink, configuration);
+                long linkStarted = LiveCodingTimings.start();
+                File file;
+                try {
+                    s.app = LinkerAPI.linkConsole(units, postLink, configuration);
 
-                // output .exe
-                File file = FileUtil.openFile(s.outputName, true);
-                swfOut = new BufferedOutputStream(new FileOutputStream(file));
+                    // output .exe
+                    file = FileUtil.openFile(s.outputName, true);
+                    swfOut = new BufferedOutputStream(new FileOutputStream(file));
 
-                Mxmlc.createProjector(configuration, projector, s.app, swfOut);
+                    Mxmlc.createProjector(configuration, projector, s.app, swfOut);
 
-                swfOut.flush();
-                swfOut.close();
+                    swfOut.flush();
+                    swfOut.close();
+                } finally {
+                    LiveCodingTimings.stop(LiveCodingTimings.SWF_LINK, linkStarted);
+                }
 
                 ThreadLocalToolkit.log(new OutputMessage(s.outputName, Long.toString(file.length())));
             } else {
@@ -955,20 +1184,26 @@ public class Fcsh extends Tool {
                 s.resources.refresh();
 
                 // link
-                s.movie = LinkerAPI.link(units, postLink, configuration);
+                long linkStarted = LiveCodingTimings.start();
+                File file;
+                try {
+                    s.movie = LinkerAPI.link(units, postLink, configuration);
 
-                // output SWF
-                File file = FileUtil.openFile(s.outputName, true);
-                swfOut = new BufferedOutputStream(new FileOutputStream(file));
+                    // output SWF
+                    file = FileUtil.openFile(s.outputName, true);
+                    swfOut = new BufferedOutputStream(new FileOutputStream(file));
 
-                if (projector != null) {
-                    Mxmlc.createProjector(configuration, projector, s.movie, swfOut);
-                } else {
-                    CompilerAPI.encode(configuration, s.movie, swfOut);
-                }
+                    if (projector != null) {
+                        Mxmlc.createProjector(configuration, projector, s.movie, swfOut);
+                    } else {
+                        CompilerAPI.encode(configuration, s.movie, swfOut);
+                    }
 
-                swfOut.flush();
-                swfOut.close();
+                    swfOut.flush();
+                    swfOut.close();
+                } finally {
+                    LiveCodingTimings.stop(LiveCodingTimings.SWF_LINK, linkStarted);
+                }
 
                 ThreadLocalToolkit.log(new OutputMessage(s.outputName, Long.toString(file.length())));
             }
@@ -1056,8 +1291,13 @@ public class Fcsh extends Tool {
 
             // CodeOrchestra: added if
             if (livecodingIncrementalMode) {
-                String fqClassName = configuration.getClasses().get(0); // Assume that only one class is provided in incremental phase
-                ((As3Compiler) compilers[0]).addCompilerExtension(new LCIncrementalExtension(fqClassName));
+                // All the classes changed since the previous compile are transformed in one go
+                ((As3Compiler) compilers[0]).addCompilerExtension(new LCIncrementalExtension(configuration.getClasses()));
+            }
+
+            // CodeOrchestra: added if (codegen timings come from the compiler's benchmark helper)
+            if (LiveCodingTimings.isEnabled()) {
+                compilers[0].initBenchmarks();
             }
 
             // construct the SWC file name...
@@ -1081,7 +1321,7 @@ public class Fcsh extends Tool {
             }
 
             // load SWCs
-            s.swcCache = new SwcCache();
+            s.swcCache = SharedSwcCache.getInstance();
 
             CompilerSwcContext swcContext = new CompilerSwcContext(true);
             // for compc the theme and include-libraries values have been purposely not passed in below.
@@ -1096,6 +1336,7 @@ public class Fcsh extends Tool {
                     mappings,
                     I18nUtils.getTranslationFormat(compilerConfig),
                     s.swcCache);
+            SharedSwcCache.getInstance().retain("" + s.id, swcContext.getSwcGroup());
             configuration.addExterns(swcContext.getExterns());
 
             s.checksum = cfgbuf.checksum_ts() + swcContext.checksum();
@@ -1133,7 +1374,12 @@ public class Fcsh extends Tool {
             s.resources.refresh();
 
             // export SWC
-            SwcAPI.exportSwc(configuration, units, s.nsComponents, s.swcCache, s.rbFiles);
+            long linkStarted = LiveCodingTimings.start();
+            try {
+                SwcAPI.exportSwc(configuration, units, s.nsComponents, s.swcCache, s.rbFiles);
+            } finally {
+                LiveCodingTimings.stop(LiveCodingTimings.SWF_LINK, linkStarted);
+            }
 
             if (s.outputName != null && ThreadLocalToolkit.errorCount() == 0) {
                 File file = FileUtil.openFile(s.outputName);
@@ -1239,4 +1485,134 @@ public class Fcsh extends Tool {
             super();
         }
     }
+
+    // CodeOrchestra: added
+    public static class ServerStarted extends CompilerMessage.CompilerInfo {
+        private static final long serialVersionUID = -5203617294413960372L;
+
+        public ServerStarted(int port) {
+            super();
+            this.port = port;
+        }
+
+        public final int port;
+    }
+
+    // CodeOrchestra: added
+    public static class ServerFailed extends CompilerMessage.CompilerError {
+        private static final long serialVersionUID = 2284470352180117617L;
+
+        public ServerFailed(int port, String message) {
+            super();
+            this.port = port;
+            this.message = message;
+        }
+
+        public final int port;
+        public final String message;
+    }
+
+    // CodeOrchestra: added
+    public static class ServerCloseFailed extends CompilerMessage.CompilerWarning {
+        private static final long serialVersionUID = 6719085531920452262L;
+
+        public ServerCloseFailed(String message) {
+            super();
+            this.message = message;
+        }
+
+        public final String message;
+    }
+
+    // CodeOrchestra: added
+    public static class ServerClientFailed extends CompilerMessage.CompilerWarning {
+        private static final long serialVersionUID = -1150726208316417845L;
+
+        public ServerClientFailed(String client, String message) {
+            super();
+            this.client = client;
+            this.message = message;
+        }
+
+        public final String client, message;
+    }
+
+    // CodeOrchestra: added
+    public static class WatchTargetNotCompiled extends CompilerMessage.CompilerInfo {
+        private static final long serialVersionUID = 4170236914305286123L;
+
+        public WatchTargetNotCompiled(String id) {
+            super();
+            this.id = id;
+        }
+
+        public final String id;
+    }
+
+    // CodeOrchestra: added
+    public static class WatchStarted extends CompilerMessage.CompilerInfo {
+        private static final long serialVersionUID = -2304807619317207581L;
+
+        public WatchStarted(String id, int roots, String command) {
+            super();
+            this.id = id;
+            this.roots = roots;
+            this.command = command;
+        }
+
+        public final String id, command;
+        public final int roots;
+    }
+
+    // CodeOrchestra: added
+    public static class WatchFailed extends CompilerMessage.CompilerError {
+        private static final long serialVersionUID = 7769146021835140358L;
+
+        public WatchFailed(String id, String message) {
+            super();
+            this.id = id;
+            this.message = message;
+        }
+
+        public final String id, message;
+    }
+
+    // CodeOrchestra: added
+    public static class UnwatchFailed extends CompilerMessage.CompilerWarning {
+        private static final long serialVersionUID = 1503779362584521730L;
+
+        public UnwatchFailed(String id, String message) {
+            super();
+            this.id = id;
+            this.message = message;
+        }
+
+        public final String id, message;
+    }
+
+    // CodeOrchestra: added
+    public static class WatchChangedFiles extends CompilerMessage.CompilerInfo {
+        private static final long serialVersionUID = -6627191542337060497L;
+
+        public WatchChangedFiles(int count, String command) {
+            super();
+            this.count = count;
+            this.command = command;
+        }
+
+        public final int count;
+        public final String command;
+    }
+
+    // CodeOrchestra: added
+    public static class WatchFilesChanged extends CompilerMessage.CompilerInfo {
+        private static final long serialVersionUID = 3338291061744951570L;
+
+        public WatchFilesChanged(String command) {
+            super();
+            this.command = command;
+        }
+
+        public final String command;
+    }
 }
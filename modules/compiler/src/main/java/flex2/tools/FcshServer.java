@@ -0,0 +1,260 @@
+package flex2.tools;
+
+import flash.localization.LocalizationManager;
+import flash.localization.ResourceBundleLocalizer;
+import flex2.compiler.util.ThreadLocalToolkit;
+import flex2.tools.oem.Logger;
+import flex2.tools.oem.Message;
+import flex2.tools.oem.internal.OEMLogAdapter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CodeOrchestra: added
+ * <p/>
+ * Fcsh compile server: serves the mxmlc, compc, compile, clear and info commands to the clients of a local port.
+ * A request is a fcsh command line, a response is a JSON object with the status, the target id, the errors,
+ * warnings and infos and the time of the command. Both are framed as a 4 bytes big-endian length followed by
+ * as many bytes of UTF-8.
+ * <p/>
+ * Each client is served by its own thread with its own ThreadLocalToolkit context, so that the messages of a request
+ * go to its own response. The compiles of the clients run one at a time, see {@link Fcsh#processLocked(String)}.
+ */
+class FcshServer implements Runnable {
+
+    private static final int MAX_FRAME_LENGTH = 1 << 20;
+    private static final String[] commands = {"mxmlc", "compc", "compile", "clear", "info"};
+
+    private final ServerSocket serverSocket;
+    private final Thread thread;
+
+    FcshServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        thread = new Thread(this, "fcsh-server-" + serverSocket.getLocalPort());
+        thread.setDaemon(true);
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            ThreadLocalToolkit.log(new Fcsh.ServerCloseFailed(e.toString()));
+        }
+    }
+
+    public void run() {
+        try {
+            while (true) {
+                final Socket socket = serverSocket.accept();
+                Thread client = new Thread(() -> serve(socket), "fcsh-server-client-" + socket.getPort());
+                client.setDaemon(true);
+                client.start();
+            }
+        } catch (IOException e) {
+            // closed
+        }
+    }
+
+    private void serve(Socket socket) {
+        LocalizationManager localizationManager = new LocalizationManager();
+        localizationManager.addLocalizer(new ResourceBundleLocalizer());
+        ThreadLocalToolkit.setLocalizationManager(localizationManager);
+
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            while (!serverSocket.isClosed()) {
+                String request;
+                try {
+                    request = readFrame(in);
+                } catch (EOFException e) {
+                    return;
+                }
+
+                writeFrame(out, execute(request.trim()));
+            }
+        } catch (IOException e) {
+            // no request logger here, reported on the console
+            ThreadLocalToolkit.logWarning(localizationManager.getLocalizedTextString(
+                    new Fcsh.ServerClientFailed(String.valueOf(socket.getRemoteSocketAddress()), e.toString())));
+        } finally {
+            ThreadLocalToolkit.setLogger(null);
+            ThreadLocalToolkit.setLocalizationManager(null);
+        }
+    }
+
+    private String execute(String command) {
+        long started = System.currentTimeMillis();
+        Result result = new Result();
+
+        String status;
+        if (!isServed(command)) {
+            status = "rejected";
+        } else {
+            ThreadLocalToolkit.setLogger(new OEMLogAdapter(result));
+            try {
+                Fcsh.processLocked(command);
+                result.target = Fcsh.takeAssignedTargetId();
+                status = result.errors.isEmpty() ? "ok" : "error";
+            } catch (Throwable t) {
+                result.target = Fcsh.takeAssignedTargetId();
+                result.errors.add(new Entry(null, -1, -1, t.toString()));
+                status = "error";
+            } finally {
+                ThreadLocalToolkit.setLogger(null);
+            }
+        }
+
+        return result.toJSON(command, status, System.currentTimeMillis() - started);
+    }
+
+    private static boolean isServed(String command) {
+        for (String c : commands) {
+            if (command.equals(c) || command.startsWith(c + " ")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("invalid request length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFrame(DataOutputStream out, String response) throws IOException {
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.flush();
+    }
+
+    /**
+     * Collects the messages of a request
+     */
+    private static class Result implements Logger {
+        private final List<Entry> errors = new ArrayList<>();
+        private final List<Entry> warnings = new ArrayList<>();
+        private final List<Entry> infos = new ArrayList<>();
+        private Integer target;
+
+        public void log(Message message, int errorCode, String source) {
+            Entry entry = new Entry(message.getPath(), message.getLine(), message.getColumn(), message.toString());
+            if (Message.ERROR.equals(message.getLevel())) {
+                errors.add(entry);
+            } else if (Message.WARNING.equals(message.getLevel())) {
+                warnings.add(entry);
+            } else {
+                infos.add(entry);
+            }
+        }
+
+        String toJSON(String command, String status, long time) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"command\": ").append(quote(command));
+            sb.append(", \"status\": ").append(quote(status));
+            if (target != null) {
+                sb.append(", \"target\": ").append(target);
+            }
+            sb.append(", \"timeMs\": ").append(time);
+            appendEntries(sb, "errors", errors);
+            appendEntries(sb, "warnings", warnings);
+            appendEntries(sb, "infos", infos);
+            sb.append("}");
+            return sb.toString();
+        }
+
+        private static void appendEntries(StringBuilder sb, String name, List<Entry> entries) {
+            sb.append(", \"").append(name).append("\": [");
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                sb.append(i == 0 ? "" : ", ").append("{");
+                if (entry.path != null) {
+                    sb.append("\"path\": ").append(quote(entry.path)).append(", ");
+                }
+                if (entry.line != -1) {
+                    sb.append("\"line\": ").append(entry.line).append(", ");
+                }
+                if (entry.column != -1) {
+                    sb.append("\"column\": ").append(entry.column).append(", ");
+                }
+                sb.append("\"message\": ").append(quote(entry.message)).append("}");
+            }
+            sb.append("]");
+        }
+
+        private static String quote(String s) {
+            StringBuilder sb = new StringBuilder(s == null ? 4 : s.length() + 2);
+            if (s == null) {
+                return sb.append("null").toString();
+            }
+
+            sb.append('"');
+            for (int i = 0, length = s.length(); i < length; i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"':
+                        sb.append("\\\"");
+                        break;
+                    case '\\':
+                        sb.append("\\\\");
+                        break;
+                    case '\n':
+                        sb.append("\\n");
+                        break;
+                    case '\r':
+                        sb.append("\\r");
+                        break;
+                    case '\t':
+                        sb.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            sb.append(c);
+                        }
+                }
+            }
+            return sb.append('"').toString();
+        }
+    }
+
+    private static class Entry {
+        private final String path;
+        private final int line;
+        private final int column;
+        private final String message;
+
+        Entry(String path, int line, int column, String message) {
+            this.path = path;
+            this.line = line;
+            this.column = column;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package flex2.tools;
+
+import flex2.compiler.io.FileUtil;
+import flex2.compiler.util.ThreadLocalToolkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CodeOrchestra: added
+ * <p/>
+ * Fcsh watch mode: watches the source path and library path directories of a target and, once the changes
+ * settle down, runs the target's command with the set of the changed files, see {@link Fcsh#runWatched(String, Set)}.
+ * The target's output file is not watched, nor is its directory unless it's a root, so that writing the output
+ * doesn't trigger another run.
+ */
+class FcshWatcher implements Runnable {
+
+    private static final long QUIET_PERIOD_MS = 100;
+
+    private final String targetId;
+    private final String command;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Thread thread;
+    private final String outputFile;
+    private final String outputDirectory;
+
+    private final Set<String> changedFiles = new HashSet<>();
+    private boolean overflow;
+
+    FcshWatcher(String targetId, String command, Collection<File> roots, File output) throws IOException {
+        this.targetId = targetId;
+        this.command = command;
+        outputFile = output == null ? null : FileUtil.getCanonicalPath(output);
+        outputDirectory = output == null || output.getParentFile() == null ? null
+                : FileUtil.getCanonicalPath(output.getParentFile());
+        watchService = FileSystems.getDefault().newWatchService();
+        for (File root : roots) {
+            registerAll(root.toPath());
+        }
+
+        thread = new Thread(this, "fcsh-watcher-" + targetId);
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            ThreadLocalToolkit.log(new Fcsh.UnwatchFailed(targetId, e.toString()));
+        }
+    }
+
+    public void run() {
+        try {
+            while (true) {
+                // wait for the first change, then until no change comes in for the quiet period
+                WatchKey key = watchService.take();
+                do {
+                    collect(key);
+                } while ((key = watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)) != null);
+
+                if (!overflow && changedFiles.isEmpty()) {
+                    // only the output changed
+                    continue;
+                }
+
+                Set<String> changed = overflow ? null : new HashSet<>(changedFiles);
+                changedFiles.clear();
+                overflow = false;
+
+                Fcsh.runWatched(command, changed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // unwatched
+        }
+    }
+
+    private void collect(WatchKey key) {
+        Path dir = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                overflow = true;
+                continue;
+            }
+
+            Path path = dir.resolve((Path) event.context());
+            String name = FileUtil.getCanonicalPath(path.toFile());
+            if (name.equals(outputFile) || name.equals(outputDirectory)) {
+                continue;
+            }
+
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerAll(path);
+                } catch (IOException e) {
+                    overflow = true;
+                }
+            }
+
+            changedFiles.add(name);
+            if (name.endsWith(".swc")) {
+                // the libraries are validated through their checksums, the sources need the full validation
+                overflow = true;
+            }
+        }
+
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    private void registerAll(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(root) && isOutputDirectory(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                directories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private boolean isOutputDirectory(Path dir) {
+        return outputDirectory != null && outputDirectory.equals(FileUtil.getCanonicalPath(dir.toFile()));
+    }
+}
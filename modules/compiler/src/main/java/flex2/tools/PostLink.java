@@ -22,7 +22,10 @@ package flex2.tools;
 import flash.swf.Frame;
 import flash.swf.Movie;
 import flash.swf.tags.DoABC;
+import flash.util.Trace;
 import flex2.compiler.mxml.lang.StandardDefs;
+import flex2.compiler.util.ContentHash;
+import flex2.compiler.util.WorkerPool;
 import flex2.linker.LinkerConfiguration;
 import flex2.linker.ConsoleApplication;
 import flex2.linker.FlexMovie;
@@ -36,8 +39,14 @@ import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Implementation of flex2.linker.PostLink which merges ABC blocks and
@@ -64,6 +73,9 @@ public class PostLink implements flex2.linker.PostLink
     private boolean optimize;
     private String[] as3metadata;
     LinkerConfiguration linkerConfiguration;
+
+    // CodeOrchestra: added
+    private static final MergeCache mergeCache = new MergeCache(Long.getLong("flex2.compiler.abcMergeCache", 0) << 20);
     
 	public void run(ConsoleApplication app)
 	{
@@ -157,6 +169,21 @@ public class PostLink implements flex2.linker.PostLink
 			flag = 1;
 		}
 
+		MergeKey key = null;
+		if (mergeCache.isEnabled())
+		{
+			key = new MergeKey(doABCs, debug, runPeephole, as3metadata);
+			byte[] abc = mergeCache.get(key);
+			if (abc != null)
+			{
+				DoABC doABC = new DoABC(name, flag);
+				doABC.abc = abc;
+				doABCs.clear();
+				doABCs.add(doABC);
+				return;
+			}
+		}
+
 		Decoder[] decoders = new Decoder[abcSize];
 		ConstantPool[] pools = new ConstantPool[abcSize];
 
@@ -375,8 +402,21 @@ public class PostLink implements flex2.linker.PostLink
 			return;
 		}
 
-		// decode method bodies...
-		for (int j = 0; j < abcSize; j++)
+		// decode method bodies... CodeOrchestra: on the worker pool when enabled
+		boolean encoded;
+		try
+		{
+			encoded = encodeMethodBodiesConcurrently(encoder, decoders);
+		}
+		catch (Throwable ex)
+		{
+			StringWriter stringWriter = new StringWriter();
+			ex.printStackTrace(new PrintWriter(stringWriter));
+			assert false : stringWriter.toString();
+			return;
+		}
+
+		for (int j = 0; !encoded && j < abcSize; j++)
 		{
 			decoder = decoders[j];
 			encoder.useConstantPool(j);
@@ -414,6 +454,11 @@ public class PostLink implements flex2.linker.PostLink
 		{
 			doABCs.clear();
 			doABCs.add(doABC);
+
+			if (key != null)
+			{
+				mergeCache.put(key, doABC.abc);
+			}
 		}
 	}
 
@@ -652,8 +697,21 @@ public class PostLink implements flex2.linker.PostLink
 			return;
 		}
 
-		// decode method bodies...
-		for (int j = 0; j < abcSize; j++)
+		// decode method bodies... CodeOrchestra: on the worker pool when enabled
+		boolean encoded;
+		try
+		{
+			encoded = encodeMethodBodiesConcurrently(encoder, decoders);
+		}
+		catch (Throwable ex)
+		{
+			StringWriter stringWriter = new StringWriter();
+			ex.printStackTrace(new PrintWriter(stringWriter));
+			assert false : stringWriter.toString();
+			return;
+		}
+
+		for (int j = 0; !encoded && j < abcSize; j++)
 		{
 			decoder = decoders[j];
 			encoder.useConstantPool(j);
@@ -690,4 +748,171 @@ public class PostLink implements flex2.linker.PostLink
 			abcList.add(abc);
 		}
 	}
+
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * Encodes the method bodies on the worker pool, those of each decoder by a task into a buffer of its own.
+	 * The constants the bodies refer to are merged first, serially and in the order the serial encoding
+	 * would merge them, so the merged ABC is the same either way.
+	 *
+	 * @return false if the bodies are left to encode serially
+	 */
+	private static boolean encodeMethodBodiesConcurrently(Encoder encoder, Decoder[] decoders) throws Throwable
+	{
+		if (!WorkerPool.isEnabled() || decoders.length < 2)
+		{
+			return false;
+		}
+
+		for (int j = 0; j < decoders.length; j++)
+		{
+			encoder.useConstantPool(j);
+			encoder.resolveMethodBodies(decoders[j].methodBodies);
+		}
+
+		List<Future<Encoder>> futures = new ArrayList<>(decoders.length);
+		encoder.freezeConstantPool(true);
+		for (int j = 0; j < decoders.length; j++)
+		{
+			final Encoder bodyEncoder = encoder.newMethodBodyEncoder(decoders, j);
+			final Decoder.MethodBodies methodBodies = decoders[j].methodBodies;
+			futures.add(WorkerPool.submit(() ->
+			{
+				for (int k = 0, bodySize = methodBodies.size(); k < bodySize; k++)
+				{
+					methodBodies.decode(k, 2, bodyEncoder);
+				}
+				return bodyEncoder;
+			}));
+		}
+
+		// the tasks share the merged constant pool, wait for all of them before it changes again
+		List<Encoder> bodyEncoders = new ArrayList<>(decoders.length);
+		Throwable failure = null;
+		for (Future<Encoder> future : futures)
+		{
+			try
+			{
+				bodyEncoders.add(future.get());
+			}
+			catch (ExecutionException e)
+			{
+				failure = failure == null ? e.getCause() : failure;
+			}
+		}
+		encoder.freezeConstantPool(false);
+
+		if (failure instanceof IllegalStateException)
+		{
+			// a constant the resolution missed, encode serially
+			if (Trace.phaseabc)
+			{
+				Trace.trace("PostLink: encoding the method bodies serially, " + failure);
+			}
+			return false;
+		}
+		else if (failure != null)
+		{
+			throw failure;
+		}
+
+		for (Encoder bodyEncoder : bodyEncoders)
+		{
+			encoder.appendMethodBodies(bodyEncoder);
+		}
+		return true;
+	}
+
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * Identifies a merge by the content hashes of the merged DoABC tags and the merge options.
+	 */
+	private static class MergeKey
+	{
+		private final long[] hashes;
+		private final int[] lengths;
+		private final String options;
+		private final int hashCode;
+
+		MergeKey(List<DoABC> doABCs, boolean debug, boolean runPeephole, String[] as3metadata)
+		{
+			int size = doABCs.size();
+			hashes = new long[size];
+			lengths = new int[size];
+			for (int i = 0; i < size; i++)
+			{
+				byte[] abc = doABCs.get(i).abc;
+				hashes[i] = ContentHash.hash(abc);
+				lengths[i] = abc.length;
+			}
+
+			Set<String> metadata = new TreeSet<>();
+			if (as3metadata != null)
+			{
+				metadata.addAll(Arrays.asList(as3metadata));
+			}
+			options = debug + ":" + runPeephole + ":" + metadata;
+			hashCode = 31 * Arrays.hashCode(hashes) + options.hashCode();
+		}
+
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof MergeKey))
+			{
+				return false;
+			}
+			MergeKey key = (MergeKey) o;
+			return hashCode == key.hashCode && Arrays.equals(hashes, key.hashes) &&
+			       Arrays.equals(lengths, key.lengths) && options.equals(key.options);
+		}
+
+		public int hashCode()
+		{
+			return hashCode;
+		}
+	}
+
+	/**
+	 * CodeOrchestra: added
+	 * <p/>
+	 * The results of the previous merges, so that the recompilations of a fcsh session only merge and
+	 * re-encode the DoABC tags which changed: without optimization every tag is merged on its own, and with
+	 * it every frame is. The least recently used results are dropped once they exceed the budget,
+	 * <code>-Dflex2.compiler.abcMergeCache=MB</code> (disabled by default).
+	 */
+	private static class MergeCache
+	{
+		private final long budget;
+		private final Map<MergeKey, byte[]> results = new LinkedHashMap<>(64, 0.75f, true);
+		private long size;
+
+		MergeCache(long budget)
+		{
+			this.budget = budget;
+		}
+
+		boolean isEnabled()
+		{
+			return budget > 0;
+		}
+
+		synchronized byte[] get(MergeKey key)
+		{
+			return results.get(key);
+		}
+
+		synchronized void put(MergeKey key, byte[] abc)
+		{
+			byte[] old = results.put(key, abc);
+			size += abc.length - (old == null ? 0 : old.length);
+
+			for (Iterator<byte[]> i = results.values().iterator(); size > budget && i.hasNext();)
+			{
+				size -= i.next().length;
+				i.remove();
+			}
+		}
+	}
 }
@@ -0,0 +1,120 @@
+package codeOrchestra.tree;
+
+import codeOrchestra.tree.visitor.NodeVisitor;
+import codeOrchestra.tree.visitor.NodeVisitorFactory;
+import codeOrchestra.tree.visitor.TreeFingerprint;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import macromedia.asc.parser.ClassDefinitionNode;
+import macromedia.asc.parser.Parser;
+import macromedia.asc.parser.ProgramNode;
+import macromedia.asc.util.Context;
+import macromedia.asc.util.ContextStatics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ASTSnapshotStoreTest extends TestCase {
+
+    private File directory;
+
+    public ASTSnapshotStoreTest(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ASTSnapshotStoreTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("ast-snapshots").toFile();
+    }
+
+    protected void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    public void testPutAndRead() throws IOException {
+        ASTSnapshotStore store = new ASTSnapshotStore(directory);
+        store.open();
+
+        ProgramNode programNode = parse("C", "foo");
+        Map<String, TreeFingerprint> fingerprints = new HashMap<>();
+        fingerprints.put("static:1:PUBLIC::foo", TreeFingerprint.restore(42, true));
+        ASTSnapshotStore.Record record = store.put("a.C", programNode, fingerprints);
+
+        assertSameClass(programNode, store.read(record));
+        assertEquals(42, store.getRecord("a.C").getMethodFingerprints().get("static:1:PUBLIC::foo").getHash());
+    }
+
+    public void testCompactionMovesLiveRecords() throws IOException {
+        ASTSnapshotStore store = new ASTSnapshotStore(directory, 0);
+        store.open();
+
+        ProgramNode a = parse("A", "foo");
+        ProgramNode b = parse("B", "bar");
+        ASTSnapshotStore.Record replaced = store.put("a.A", parse("A", "old"), Collections.<String, TreeFingerprint>emptyMap());
+        store.put("a.A", parse("A", "older"), Collections.<String, TreeFingerprint>emptyMap());
+        ASTSnapshot snapshotOfB = new ASTSnapshot("a.B", store, store.put("a.B", b, Collections.<String, TreeFingerprint>emptyMap()));
+        store.put("a.A", parse("A", "oldest"), Collections.<String, TreeFingerprint>emptyMap());
+        ASTSnapshotStore.Record recordOfA = store.put("a.A", a, Collections.<String, TreeFingerprint>emptyMap());
+
+        // the replaced records outweigh the live ones
+        store.flush();
+        assertTrue(!new File(directory, "ast.0.data").exists());
+
+        assertSameClass(a, store.read(recordOfA));
+        assertSameClass(b, snapshotOfB.getProgramNode());
+        try {
+            store.read(replaced);
+            fail("a replaced record is gone after the compaction");
+        } catch (IOException e) {
+            // expected
+        }
+
+        ASTSnapshotStore reopened = new ASTSnapshotStore(directory);
+        reopened.open();
+        assertEquals(2, reopened.getFqNames().size());
+        assertSameClass(a, reopened.read(reopened.getRecord("a.A")));
+        assertSameClass(b, reopened.read(reopened.getRecord("a.B")));
+    }
+
+    public void testClear() throws IOException {
+        ASTSnapshotStore store = new ASTSnapshotStore(directory);
+        store.open();
+
+        ASTSnapshotStore.Record record = store.put("a.C", parse("C", "foo"), Collections.<String, TreeFingerprint>emptyMap());
+        store.clear();
+
+        assertTrue(store.getFqNames().isEmpty());
+        try {
+            store.read(record);
+            fail("a record is gone after clear()");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static ProgramNode parse(String className, String methodName) {
+        String source = "package a { public class " + className + " { public function " + methodName + "():int { var x:int = 1; return x + 2; } } }";
+        return new Parser(new Context(new ContextStatics()), source, className + ".as").parseProgram();
+    }
+
+    private static void assertSameClass(ProgramNode expected, ProgramNode actual) {
+        ClassDefinitionNode expectedClass = TreeNavigator.getPackageClassDefinition(expected);
+        ClassDefinitionNode actualClass = TreeNavigator.getPackageClassDefinition(actual);
+        NodeVisitor<ClassDefinitionNode> visitor = NodeVisitorFactory.getVisitor(ClassDefinitionNode.class);
+        assertTrue(visitor.compareTrees(expectedClass, actualClass));
+    }
+}
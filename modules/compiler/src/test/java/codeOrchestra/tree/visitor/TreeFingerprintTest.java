@@ -0,0 +1,87 @@
+package codeOrchestra.tree.visitor;
+
+import codeOrchestra.tree.TreeNavigator;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import macromedia.asc.parser.FunctionDefinitionNode;
+import macromedia.asc.parser.Parser;
+import macromedia.asc.parser.ProgramNode;
+import macromedia.asc.util.Context;
+import macromedia.asc.util.ContextStatics;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+public class TreeFingerprintTest extends TestCase {
+
+    private static final String FOO = "public function foo():int { var x:int = 1; return x + 2; }";
+    private static final String BAR = "public function bar():String { return 'bar' + 1.5; }";
+
+    private PrintStream out;
+
+    public TreeFingerprintTest(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(TreeFingerprintTest.class);
+    }
+
+    // compareTrees() prints the differences it finds
+    protected void setUp() throws Exception {
+        out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            public void write(int b) {
+            }
+        }));
+    }
+
+    protected void tearDown() throws Exception {
+        System.setOut(out);
+    }
+
+    public void testEqualTreesHaveEqualFingerprints() {
+        List<FunctionDefinitionNode> methods = parseMethods(FOO + BAR);
+        // a different layout, same tree
+        List<FunctionDefinitionNode> reformatted = parseMethods("\n\n  " + FOO.replace(" ", "  ") + "\n" + BAR);
+
+        NodeVisitor<FunctionDefinitionNode> visitor = NodeVisitorFactory.getVisitor(FunctionDefinitionNode.class);
+        for (int i = 0; i < methods.size(); i++) {
+            assertTrue(visitor.compareTrees(methods.get(i), reformatted.get(i)));
+            TreeFingerprint fingerprint = visitor.getFingerprint(methods.get(i));
+            TreeFingerprint other = visitor.getFingerprint(reformatted.get(i));
+            assertEquals(fingerprint.getHash(), other.getHash());
+            assertTrue(!fingerprint.isDifferentFrom(other));
+            assertEquals(fingerprint.isExact(), fingerprint.isSameAs(other));
+        }
+    }
+
+    public void testDifferentTreesHaveDifferentFingerprints() {
+        List<FunctionDefinitionNode> methods = parseMethods(FOO + BAR);
+        List<FunctionDefinitionNode> changed = parseMethods(FOO.replace("x + 2", "x + 3") + BAR.replace("'bar'", "'baz'"));
+
+        NodeVisitor<FunctionDefinitionNode> visitor = NodeVisitorFactory.getVisitor(FunctionDefinitionNode.class);
+        assertTrue(visitor.getFingerprint(methods.get(0)).isDifferentFrom(visitor.getFingerprint(methods.get(1))));
+        for (int i = 0; i < methods.size(); i++) {
+            assertTrue(!visitor.compareTrees(methods.get(i), changed.get(i)));
+            assertTrue(visitor.getFingerprint(methods.get(i)).isDifferentFrom(visitor.getFingerprint(changed.get(i))));
+        }
+    }
+
+    public void testRestore() {
+        TreeFingerprint fingerprint = NodeVisitorFactory.getVisitor(FunctionDefinitionNode.class).getFingerprint(parseMethods(FOO).get(0));
+        TreeFingerprint restored = TreeFingerprint.restore(fingerprint.getHash(), fingerprint.isExact());
+
+        assertTrue(!restored.isDifferentFrom(fingerprint));
+        assertEquals(fingerprint.isExact(), restored.isSameAs(fingerprint));
+        assertTrue(!TreeFingerprint.restore(fingerprint.getHash(), false).isSameAs(fingerprint));
+    }
+
+    private static List<FunctionDefinitionNode> parseMethods(String members) {
+        String source = "package a { public class C { " + members + " } }";
+        ProgramNode programNode = new Parser(new Context(new ContextStatics()), source, "C.as").parseProgram();
+        return TreeNavigator.getMethodDefinitions(TreeNavigator.getPackageClassDefinition(programNode));
+    }
+}
@@ -0,0 +1,88 @@
+package flex2.compiler.io;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class DirectorySnapshotsTest extends TestCase
+{
+	private File directory;
+
+	public DirectorySnapshotsTest(String name)
+	{
+		super(name);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(DirectorySnapshotsTest.class);
+	}
+
+	protected void setUp() throws Exception
+	{
+		directory = Files.createTempDirectory("snapshots").toFile();
+	}
+
+	protected void tearDown() throws Exception
+	{
+		File[] files = directory.listFiles();
+		if (files != null)
+		{
+			for (File file : files)
+			{
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	public void testListing() throws IOException
+	{
+		new File(directory, "A.as").createNewFile();
+		DirectorySnapshots snapshots = new DirectorySnapshots();
+
+		assertTrue(snapshots.isDirectory(directory));
+		assertTrue(snapshots.mayContain(directory, "A.as"));
+		assertTrue(!snapshots.mayContain(directory, "B.as"));
+		assertTrue(snapshots.mayContain(null, "B.as"));
+	}
+
+	public void testUnlistableDirectory() throws IOException
+	{
+		File missing = new File(directory, "missing");
+		File file = new File(directory, "A.as");
+		file.createNewFile();
+		DirectorySnapshots snapshots = new DirectorySnapshots();
+
+		assertTrue(!snapshots.isDirectory(missing));
+		assertTrue(snapshots.mayContain(missing, "A.as"));
+		assertTrue(!snapshots.isDirectory(file));
+		assertTrue(snapshots.mayContain(file, "A.as"));
+	}
+
+	public void testClear() throws IOException
+	{
+		DirectorySnapshots snapshots = new DirectorySnapshots();
+		assertTrue(!snapshots.mayContain(directory, "A.as"));
+
+		new File(directory, "A.as").createNewFile();
+		assertTrue(!snapshots.mayContain(directory, "A.as"));
+
+		snapshots.clear();
+		assertTrue(snapshots.mayContain(directory, "A.as"));
+	}
+
+	public void testClose() throws IOException
+	{
+		DirectorySnapshots snapshots = new DirectorySnapshots();
+		assertTrue(!snapshots.mayContain(directory, "A.as"));
+		snapshots.close();
+
+		new File(directory, "A.as").createNewFile();
+		assertTrue(snapshots.mayContain(directory, "A.as"));
+	}
+}
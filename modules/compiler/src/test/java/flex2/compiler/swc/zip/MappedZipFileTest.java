@@ -0,0 +1,132 @@
+package flex2.compiler.swc.zip;
+
+import flex2.compiler.swc.SwcException;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.CRC32;
+
+public class MappedZipFileTest extends TestCase {
+
+    private static final byte[] CATALOG = "<swc><libraries><library path=\"library.swf\"/></libraries></swc>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LIBRARY = new byte[100000];
+
+    static {
+        for (int i = 0; i < LIBRARY.length; i++) {
+            LIBRARY[i] = (byte) (i % 251);
+        }
+    }
+
+    private File file;
+
+    public MappedZipFileTest(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(MappedZipFileTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        file = File.createTempFile("mapped", ".swc");
+    }
+
+    protected void tearDown() throws Exception {
+        file.delete();
+    }
+
+    public void testEntries() throws IOException {
+        writeZip(null);
+        MappedZipFile zip = new MappedZipFile(file);
+
+        List<String> names = new ArrayList<>();
+        for (Enumeration<ZipEntry> e = zip.getEntries(); e.hasMoreElements(); ) {
+            names.add(e.nextElement().getName());
+        }
+        assertEquals(3, names.size());
+        assertEquals("catalog.xml", names.get(0));
+        assertEquals("library.swf", names.get(1));
+        assertEquals("empty.txt", names.get(2));
+
+        ZipEntry catalog = zip.getEntry("catalog.xml");
+        assertEquals(ZipEntry.STORED, catalog.getMethod());
+        assertEquals(CATALOG.length, catalog.getSize());
+        assertEquals(ZipEntry.DEFLATED, zip.getEntry("library.swf").getMethod());
+        assertEquals(LIBRARY.length, zip.getEntry("library.swf").getSize());
+        assertNull(zip.getEntry("missing.xml"));
+    }
+
+    public void testContent() throws IOException {
+        writeZip("a comment");
+        MappedZipFile zip = new MappedZipFile(file);
+
+        assertTrue(Arrays.equals(CATALOG, readFully(zip.getInputStream(zip.getEntry("catalog.xml")))));
+        assertTrue(Arrays.equals(LIBRARY, readFully(zip.getInputStream(zip.getEntry("library.swf")))));
+        assertEquals(0, readFully(zip.getInputStream(zip.getEntry("empty.txt"))).length);
+
+        // a second read of an entry starts over
+        assertTrue(Arrays.equals(CATALOG, readFully(zip.getInputStream(zip.getEntry("catalog.xml")))));
+        assertEquals(CATALOG.length, zip.getData(zip.getEntry("catalog.xml")).remaining());
+    }
+
+    public void testNotAZip() throws IOException {
+        Files.write(file.toPath(), CATALOG);
+        try {
+            new MappedZipFile(file);
+            fail();
+        } catch (SwcException.UnknownZipFormat e) {
+            // expected
+        }
+    }
+
+    private void writeZip(String comment) throws IOException {
+        try (java.util.zip.ZipOutputStream out = new java.util.zip.ZipOutputStream(new FileOutputStream(file))) {
+            java.util.zip.ZipEntry catalog = new java.util.zip.ZipEntry("catalog.xml");
+            catalog.setMethod(java.util.zip.ZipEntry.STORED);
+            catalog.setSize(CATALOG.length);
+            CRC32 crc = new CRC32();
+            crc.update(CATALOG);
+            catalog.setCrc(crc.getValue());
+            catalog.setExtra(new byte[]{(byte) 0xCA, (byte) 0xFE, 0, 0});
+            out.putNextEntry(catalog);
+            out.write(CATALOG);
+            out.closeEntry();
+
+            out.putNextEntry(new java.util.zip.ZipEntry("library.swf"));
+            out.write(LIBRARY);
+            out.closeEntry();
+
+            out.putNextEntry(new java.util.zip.ZipEntry("empty.txt"));
+            out.closeEntry();
+
+            if (comment != null) {
+                out.setComment(comment);
+            }
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
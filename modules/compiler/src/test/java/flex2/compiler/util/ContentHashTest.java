@@ -0,0 +1,74 @@
+package flex2.compiler.util;
+
+import flex2.compiler.io.LocalFile;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class ContentHashTest extends TestCase
+{
+	public ContentHashTest(String name)
+	{
+		super(name);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(ContentHashTest.class);
+	}
+
+	public void testReferenceValues()
+	{
+		// the xxHash64 reference values, seed 0
+		assertEquals(0xEF46DB3751D8E999L, ContentHash.hash(bytes("")));
+		assertEquals(0xD24EC4F1A98C6E5BL, ContentHash.hash(bytes("a")));
+		assertEquals(0x44BC2CF5AD770999L, ContentHash.hash(bytes("abc")));
+		assertEquals(0xFBCEA83C8A378BF1L, ContentHash.hash(bytes("Nobody inspects the spammish repetition")));
+	}
+
+	public void testEveryByteCounts()
+	{
+		byte[] b = new byte[100];
+		for (int i = 0; i < b.length; i++)
+		{
+			b[i] = (byte) i;
+		}
+		long hash = ContentHash.hash(b);
+
+		for (int i = 0; i < b.length; i++)
+		{
+			b[i]++;
+			assertTrue(ContentHash.hash(b) != hash);
+			b[i]--;
+		}
+		assertEquals(hash, ContentHash.hash(b));
+	}
+
+	public void testFile() throws IOException
+	{
+		File file = File.createTempFile("content", ".as");
+		try
+		{
+			byte[] content = bytes("package { public class A { public var x:int = 1; } }");
+			Files.write(file.toPath(), content);
+
+			LocalFile localFile = new LocalFile(file);
+			assertTrue(ContentHash.isHashable(localFile));
+			assertEquals(ContentHash.hash(content), ContentHash.hash(localFile));
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+
+	private static byte[] bytes(String s)
+	{
+		return s.getBytes(StandardCharsets.US_ASCII);
+	}
+}
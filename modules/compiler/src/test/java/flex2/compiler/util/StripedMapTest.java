@@ -0,0 +1,118 @@
+package flex2.compiler.util;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StripedMapTest extends TestCase
+{
+	public StripedMapTest(String name)
+	{
+		super(name);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(StripedMapTest.class);
+	}
+
+	public void testPutAndGet()
+	{
+		StripedMap<String, Integer> map = new StripedMap<>("test", 16);
+
+		assertNull(map.put("a", 1));
+		assertEquals(Integer.valueOf(1), map.put("a", 2));
+		assertEquals(Integer.valueOf(2), map.get("a"));
+		assertTrue(map.containsKey("a"));
+		assertEquals(1, map.size());
+		assertEquals(2, map.getWriteCount());
+	}
+
+	public void testNulls()
+	{
+		StripedMap<String, Integer> map = new StripedMap<>("test", 16);
+		map.put("a", 1);
+
+		assertNull(map.get(null));
+		assertTrue(!map.containsKey(null));
+
+		// putting null removes the key
+		assertEquals(Integer.valueOf(1), map.put("a", null));
+		assertTrue(!map.containsKey("a"));
+		assertEquals(0, map.size());
+
+		assertNull(map.putIfAbsent("b", null));
+		assertTrue(!map.containsKey("b"));
+	}
+
+	public void testPutIfAbsent()
+	{
+		StripedMap<String, Integer> map = new StripedMap<>("test", 16);
+
+		assertNull(map.putIfAbsent("a", 1));
+		assertEquals(Integer.valueOf(1), map.putIfAbsent("a", 2));
+		assertEquals(Integer.valueOf(1), map.get("a"));
+	}
+
+	public void testResetCounters()
+	{
+		StripedMap<String, Integer> map = new StripedMap<>("test", 16);
+		map.put("a", 1);
+		map.resetCounters();
+
+		assertEquals(0, map.getWriteCount());
+		assertEquals(0, map.getContendedWriteCount());
+		assertEquals(Integer.valueOf(1), map.get("a"));
+	}
+
+	public void testSingleWriterPerKey() throws InterruptedException
+	{
+		final StripedMap<Integer, Integer> map = new StripedMap<>("test", 16);
+		final AtomicInteger stored = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final int keys = 1000;
+
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++)
+		{
+			final int value = t;
+			Thread thread = new Thread(() ->
+			{
+				try
+				{
+					start.await();
+				}
+				catch (InterruptedException e)
+				{
+					return;
+				}
+				for (int key = 0; key < keys; key++)
+				{
+					if (map.putIfAbsent(key, value) == null)
+					{
+						stored.incrementAndGet();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		// exactly one thread stored each key
+		assertEquals(keys, stored.get());
+		assertEquals(keys, map.size());
+		assertEquals(8 * keys, map.getWriteCount());
+		assertTrue(map.getContendedWriteCount() <= map.getWriteCount());
+	}
+}
@@ -0,0 +1,162 @@
+package flex2.tools;
+
+import flash.swf.Frame;
+import flash.swf.Movie;
+import flash.swf.tags.DoABC;
+import flex2.compiler.util.WorkerPool;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import macromedia.asc.embedding.Main;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PostLinkTest extends TestCase
+{
+	private static final String BUILTIN =
+		"package {\n" +
+		"public dynamic class Object { public function Object() {} }\n" +
+		"public final class Class {}\n" +
+		"public final dynamic class Function {}\n" +
+		"public final class Namespace {}\n" +
+		"public final class Boolean {}\n" +
+		"public final class Number {}\n" +
+		"public final class int {}\n" +
+		"public final class uint {}\n" +
+		"public final class String { public function get length():int { return 0; } }\n" +
+		"public dynamic class Array {}\n" +
+		"public final class QName {}\n" +
+		"public final class XML {}\n" +
+		"public final class XMLList {}\n" +
+		"public final class RegExp {}\n" +
+		"}\n";
+
+	private static Map<String, byte[]> scripts;
+
+	private int threadCount;
+	private PrintStream out;
+	private PrintStream err;
+
+	public PostLinkTest(String name)
+	{
+		super(name);
+	}
+
+	public static Test suite()
+	{
+		return new TestSuite(PostLinkTest.class);
+	}
+
+	protected void setUp() throws Exception
+	{
+		threadCount = WorkerPool.getThreadCount();
+		out = System.out;
+		err = System.err;
+		System.setOut(quiet());
+		System.setErr(quiet());
+		if (scripts == null)
+		{
+			scripts = compile();
+		}
+	}
+
+	protected void tearDown() throws Exception
+	{
+		WorkerPool.setThreadCount(threadCount);
+		System.setOut(out);
+		System.setErr(err);
+	}
+
+	public void testConcurrentEncodingIsSerialEncoding()
+	{
+		for (boolean debug : new boolean[]{false, true})
+		{
+			byte[] serial = merge(1, debug);
+			byte[] concurrent = merge(4, debug);
+
+			assertTrue(serial.length > 0);
+			assertTrue(Arrays.equals(serial, concurrent));
+		}
+	}
+
+	private static byte[] merge(int threads, boolean debug)
+	{
+		WorkerPool.setThreadCount(threads);
+
+		Movie movie = new Movie();
+		movie.frames = new ArrayList<>();
+		Frame frame = new Frame();
+		movie.frames.add(frame);
+		for (Map.Entry<String, byte[]> script : scripts.entrySet())
+		{
+			DoABC doABC = new DoABC(script.getKey(), 1);
+			doABC.abc = script.getValue();
+			frame.doABCs.add(doABC);
+		}
+
+		new PostLink(debug, true).run(movie);
+
+		assertEquals(1, frame.doABCs.size());
+		return frame.doABCs.get(0).abc;
+	}
+
+	/**
+	 * Compiles the scripts with asc. The builtins go in each of them, asc's Main keeps the imports of its
+	 * previous runs.
+	 */
+	private static Map<String, byte[]> compile() throws Exception
+	{
+		Map<String, String> sources = new LinkedHashMap<>();
+		sources.put("A", "package a { public class A { public var x:int = 1; public function f(a:int):int { " +
+		                 "var s:int = 0; for (var i:int = 0; i < a; i++) { s += i * x; } return s; } } }");
+		sources.put("B", "package b { public class B { public function g(s:String):String { " +
+		                 "return s + \"b\" + 2; } } }");
+		sources.put("C", "package c { public class C { public static const NAME:String = \"c\"; " +
+		                 "public function h(o:Object):Boolean { return o is C && NAME.length > 0; } } }");
+
+		Map<String, byte[]> result = new LinkedHashMap<>();
+		File directory = Files.createTempDirectory("postlink").toFile();
+		try
+		{
+			for (Map.Entry<String, String> source : sources.entrySet())
+			{
+				File file = new File(directory, source.getKey() + ".as");
+				Files.write(file.toPath(), (BUILTIN + source.getValue()).getBytes(StandardCharsets.UTF_8));
+				Main.main(new String[]{file.getPath()});
+				result.put(source.getKey(), Files.readAllBytes(new File(directory, source.getKey() + ".abc").toPath()));
+			}
+		}
+		finally
+		{
+			File[] files = directory.listFiles();
+			if (files != null)
+			{
+				for (File file : files)
+				{
+					file.delete();
+				}
+			}
+			directory.delete();
+		}
+		return result;
+	}
+
+	// asc reports the .abc files it writes
+	private static PrintStream quiet()
+	{
+		return new PrintStream(new OutputStream()
+		{
+			public void write(int b)
+			{
+			}
+		});
+	}
+}